@@ -6,12 +6,17 @@ import cn.drcomo.motioncast.config.ModelRuleLoader;
 import cn.drcomo.motioncast.state.PlayerStateManager;
 import cn.drcomo.motioncast.engine.ActionEngine;
 import cn.drcomo.motioncast.targetfunction.TargeterRegistry;
+import cn.drcomo.motioncast.tick.TickClock;
 import cn.drcomo.motioncast.tick.TickScheduler;
 import cn.drcomo.motioncast.cooldown.CooldownService;
+import cn.drcomo.motioncast.cooldown.CooldownStore;
+import cn.drcomo.motioncast.cooldown.LocalCooldownStore;
+import cn.drcomo.motioncast.cooldown.RemoteSyncCooldownStore;
 import cn.drcomo.motioncast.command.ReloadCommand;
 import cn.drcomo.motioncast.listener.PlayerEventListener;
 import cn.drcomo.motioncast.listener.VehicleEventListener;
 import cn.drcomo.motioncast.listener.EntityEventListener;
+import cn.drcomo.motioncast.listener.ConditionInvalidationListener;
 import cn.drcomo.motioncast.integration.MythicMobsIntegration;
 import cn.drcomo.motioncast.integration.ModelEngineIntegration;
 
@@ -35,15 +40,21 @@ public final class DrcomoMotionCast extends JavaPlugin {
     private ActionEngine actionEngine;
     private TargeterRegistry targeterRegistry;
     private TickScheduler tickScheduler;
+    private TickClock tickClock;
     private CooldownService cooldownService;
+    private CooldownStore cooldownStore;
     private MythicMobsIntegration mythicMobsIntegration;
     private ModelEngineIntegration modelEngineIntegration;
     private cn.drcomo.motioncast.integration.MythicAttackBridge mythicAttackBridge;
+    private cn.drcomo.motioncast.integration.MythicSkillResolver mythicSkillResolver;
+    private cn.drcomo.motioncast.integration.MythicSkillExecutor mythicSkillExecutor;
+    private cn.drcomo.motioncast.integration.MythicCasterCache mythicCasterCache;
     
     // 事件监听器
     private PlayerEventListener playerEventListener;
     private VehicleEventListener vehicleEventListener;
     private EntityEventListener entityEventListener;
+    private ConditionInvalidationListener conditionInvalidationListener;
     
     @Override
     public void onEnable() {
@@ -86,6 +97,10 @@ public final class DrcomoMotionCast extends JavaPlugin {
         if (tickScheduler != null) {
             tickScheduler.shutdown();
         }
+        // 排队中的施法以未执行结束，其冷却预占须在冷却服务关闭前撤销
+        if (actionEngine != null) {
+            actionEngine.shutdown();
+        }
         if (cooldownService != null) {
             cooldownService.shutdown();
         }
@@ -138,10 +153,8 @@ public final class DrcomoMotionCast extends JavaPlugin {
         // 初始化集成模块（按可用性实例化，避免类加载失败）
         if (getServer().getPluginManager().isPluginEnabled("MythicMobs")) {
             mythicMobsIntegration = new MythicMobsIntegration(logger);
-            mythicAttackBridge = new cn.drcomo.motioncast.integration.MythicAttackBridge(logger);
         } else {
             mythicMobsIntegration = null;
-            mythicAttackBridge = null;
         }
         if (getServer().getPluginManager().isPluginEnabled("ModelEngine")) {
             modelEngineIntegration = new ModelEngineIntegration(logger);
@@ -150,17 +163,48 @@ public final class DrcomoMotionCast extends JavaPlugin {
         }
         
         // 初始化核心服务
-        cooldownService = new CooldownService(logger);
-        targeterRegistry = new TargeterRegistry(logger);
-        stateManager = new PlayerStateManager(this, logger);
-        ruleLoader = new ModelRuleLoader(this, yamlUtil, logger);
+        tickClock = new TickClock();
+        targeterRegistry = new TargeterRegistry(logger, tickClock);
+        // MythicMobs 原生 targeter 字符串在规则加载时解析并随规则缓存
+        if (mythicMobsIntegration != null) {
+            targeterRegistry.register(new cn.drcomo.motioncast.integration.MythicTargeterResolver(logger));
+        }
+        stateManager = new PlayerStateManager(this, logger, tickClock);
+        // MythicMobs 施法者适配对象缓存在会话上，由近战桥接与直接执行路径共用
+        if (mythicMobsIntegration != null) {
+            mythicCasterCache = new cn.drcomo.motioncast.integration.MythicCasterCache(logger, stateManager);
+            mythicAttackBridge = new cn.drcomo.motioncast.integration.MythicAttackBridge(logger, mythicCasterCache);
+            mythicSkillExecutor = new cn.drcomo.motioncast.integration.MythicSkillExecutor(logger, mythicCasterCache);
+        } else {
+            mythicCasterCache = null;
+            mythicAttackBridge = null;
+            mythicSkillExecutor = null;
+        }
+        ruleLoader = new ModelRuleLoader(this, yamlUtil, logger, targeterRegistry);
+        // 外部插件注册或注销目标解析器后重新绑定规则的目标选择器，触发路径只读取绑定结果
+        targeterRegistry.addRegistryListener(ruleLoader::rebindTargetSelectors);
+        // 规则重载时迁移会话中按序号存储的冷却与触发记录
+        ruleLoader.addGenerationListener(stateManager::migrateRuleGeneration);
+        // 规则加载后为每条规则解析 MythicMobs 技能句柄，缺失的技能在此时报告
+        if (mythicMobsIntegration != null) {
+            mythicSkillResolver = new cn.drcomo.motioncast.integration.MythicSkillResolver(logger, ruleLoader);
+            ruleLoader.addGenerationListener(mythicSkillResolver::onRuleGeneration);
+        } else {
+            mythicSkillResolver = null;
+        }
+        // 冷却存储：启用同步时在本地存储之上包装远程同步层
+        LocalCooldownStore localCooldownStore = new LocalCooldownStore(stateManager, ruleLoader, tickClock);
+        RemoteSyncCooldownStore remoteCooldownStore =
+                new RemoteSyncCooldownStore(this, logger, ruleLoader, tickClock, localCooldownStore);
+        cooldownStore = remoteCooldownStore.isEnabled() ? remoteCooldownStore : localCooldownStore;
+        cooldownService = new CooldownService(logger, cooldownStore, tickClock);
         
         // 初始化引擎和调度器
         actionEngine = new ActionEngine(this, logger, ruleLoader, stateManager,
                                         cooldownService, targeterRegistry,
                                         mythicMobsIntegration, modelEngineIntegration,
-                                        mythicAttackBridge);
-        tickScheduler = new TickScheduler(this, logger, stateManager, actionEngine);
+                                        mythicAttackBridge, mythicSkillExecutor, tickClock);
+        tickScheduler = new TickScheduler(this, logger, stateManager, actionEngine, tickClock);
     }
     
     /**
@@ -233,12 +277,29 @@ public final class DrcomoMotionCast extends JavaPlugin {
         playerEventListener = new PlayerEventListener(actionEngine, stateManager, logger);
         vehicleEventListener = new VehicleEventListener(actionEngine, stateManager);
         entityEventListener = new EntityEventListener(actionEngine, stateManager);
+        conditionInvalidationListener = new ConditionInvalidationListener(stateManager);
         
         getServer().getPluginManager().registerEvents(playerEventListener, this);
         getServer().getPluginManager().registerEvents(vehicleEventListener, this);
         getServer().getPluginManager().registerEvents(entityEventListener, this);
         // PlayerStateManager 自身也实现了 Listener，需注册其入服/离服事件
         getServer().getPluginManager().registerEvents(stateManager, this);
+        // 占位符缓存在离服时移除玩家条目
+        getServer().getPluginManager().registerEvents(actionEngine.getPlaceholderCache(), this);
+        // 世界/等级/游戏模式变化时使相关条件结果缓存失效
+        getServer().getPluginManager().registerEvents(conditionInvalidationListener, this);
+        // 冷却同步在入服时预读、离服时立即提交
+        if (cooldownStore instanceof RemoteSyncCooldownStore) {
+            getServer().getPluginManager().registerEvents((RemoteSyncCooldownStore) cooldownStore, this);
+        }
+        // MythicMobs 重载后重新解析规则技能句柄
+        if (mythicSkillResolver != null) {
+            getServer().getPluginManager().registerEvents(mythicSkillResolver, this);
+        }
+        // 切换世界与死亡时清空会话上的施法者适配对象
+        if (mythicCasterCache != null) {
+            getServer().getPluginManager().registerEvents(mythicCasterCache, this);
+        }
         // ModelEngine 集成事件（仅在可用时注册）
         if (modelEngineIntegration != null && modelEngineIntegration.isAvailable()) {
             getServer().getPluginManager().registerEvents(modelEngineIntegration, this);
@@ -262,6 +323,7 @@ public final class DrcomoMotionCast extends JavaPlugin {
      * 启动定时调度器
      */
     private void startSchedulers() {
+        cooldownStore.start();
         tickScheduler.start();
         logger.info("定时调度器启动完成");
     }
@@ -291,6 +353,18 @@ public final class DrcomoMotionCast extends JavaPlugin {
         return cooldownService;
     }
     
+    public CooldownStore getCooldownStore() {
+        return cooldownStore;
+    }
+    
+    public ConditionInvalidationListener getConditionInvalidationListener() {
+        return conditionInvalidationListener;
+    }
+    
+    public TickClock getTickClock() {
+        return tickClock;
+    }
+    
     public TargeterRegistry getTargeterRegistry() {
         return targeterRegistry;
     }
@@ -299,6 +373,14 @@ public final class DrcomoMotionCast extends JavaPlugin {
         return mythicMobsIntegration;
     }
     
+    public cn.drcomo.motioncast.integration.MythicSkillResolver getMythicSkillResolver() {
+        return mythicSkillResolver;
+    }
+    
+    public cn.drcomo.motioncast.integration.MythicCasterCache getMythicCasterCache() {
+        return mythicCasterCache;
+    }
+    
     public ModelEngineIntegration getModelEngineIntegration() {
         return modelEngineIntegration;
     }
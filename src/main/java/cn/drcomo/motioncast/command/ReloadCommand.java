@@ -13,10 +13,11 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 重载命令处理器
- * 处理 /DrcomoMotionCast reload 命令
+ * 处理 /DrcomoMotionCast reload 与 /DrcomoMotionCast stats 命令
  */
 public class ReloadCommand implements CommandExecutor, TabCompleter {
     
@@ -42,13 +43,18 @@ public class ReloadCommand implements CommandExecutor, TabCompleter {
         
         // 检查参数
         if (args.length == 0) {
-            sender.sendMessage("§e用法: /" + label + " reload");
+            sender.sendMessage("§e用法: /" + label + " <reload|stats>");
+            return true;
+        }
+        
+        if ("stats".equalsIgnoreCase(args[0])) {
+            sendStatistics(sender);
             return true;
         }
         
         if (!"reload".equalsIgnoreCase(args[0])) {
             sender.sendMessage("§c未知的子命令: " + args[0]);
-            sender.sendMessage("§e用法: /" + label + " reload");
+            sender.sendMessage("§e用法: /" + label + " <reload|stats>");
             return true;
         }
         
@@ -91,6 +97,55 @@ public class ReloadCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * 输出运行统计信息
+     */
+    private void sendStatistics(CommandSender sender) {
+        if (!(plugin instanceof DrcomoMotionCast)) {
+            sender.sendMessage("§c统计信息不可用");
+            return;
+        }
+        DrcomoMotionCast main = (DrcomoMotionCast) plugin;
+        
+        sender.sendMessage("§6=== DrcomoMotionCast 统计 ===");
+        if (main.getStateManager() != null) {
+            sendSection(sender, "玩家会话", main.getStateManager().getStatistics());
+        }
+        if (main.getCooldownService() != null) {
+            sendSection(sender, "冷却", main.getCooldownService().getStatistics());
+        }
+        if (main.getCooldownStore() != null) {
+            sendSection(sender, "冷却存储", main.getCooldownStore().getStatistics());
+        }
+        if (main.getActionEngine() != null) {
+            sender.sendMessage("§e[动作引擎] §7" + main.getActionEngine().getStatistics());
+            sendSection(sender, "占位符缓存", main.getActionEngine().getPlaceholderCache().getStatistics());
+            sendSection(sender, "占位符解析耗时 Top10", main.getActionEngine().getPlaceholderCache().getPlaceholderStatistics(10));
+            sendSection(sender, "条件结果缓存", main.getActionEngine().getConditionCacheStatistics());
+            sendSection(sender, "技能执行路径", main.getActionEngine().getCastPathStatistics());
+            sendSection(sender, "技能执行队列", main.getActionEngine().getExecutionQueueStatistics());
+        }
+        if (main.getTargeterRegistry() != null) {
+            sendSection(sender, "区域目标索引", main.getTargeterRegistry().getSpatialIndex().getStatistics());
+        }
+        if (main.getMythicSkillResolver() != null) {
+            sendSection(sender, "规则技能解析", main.getMythicSkillResolver().getStatistics());
+        }
+        if (main.getMythicCasterCache() != null) {
+            sendSection(sender, "施法者适配缓存", main.getMythicCasterCache().getStatistics());
+        }
+    }
+    
+    /**
+     * 输出单个统计分组
+     */
+    private void sendSection(CommandSender sender, String title, Map<String, Object> stats) {
+        sender.sendMessage("§e[" + title + "]");
+        for (Map.Entry<String, Object> entry : stats.entrySet()) {
+            sender.sendMessage("§7 - " + entry.getKey() + ": §f" + entry.getValue());
+        }
+    }
+    
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         // 检查权限
@@ -100,7 +155,7 @@ public class ReloadCommand implements CommandExecutor, TabCompleter {
         
         // Tab补全
         if (args.length == 1) {
-            return Arrays.asList("reload");
+            return Arrays.asList("reload", "stats");
         }
         
         return null;
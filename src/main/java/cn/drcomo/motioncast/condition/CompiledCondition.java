@@ -0,0 +1,92 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 已编译的条件表达式
+ * 在规则加载时由 ConditionCompiler 生成，不可变；求值时遍历表达式树，PAPI 占位符按需取值且每次求值只取一次
+ * 原生占位符已在编译时绑定到表达式树中，求值时直接读取玩家属性
+ */
+public final class CompiledCondition {
+    
+    private final String source;
+    private final ConditionNode root;
+    private final String[] placeholders;
+    private final String[] nativePlaceholders;
+    private final boolean constant;
+    private final int dependencyMask;
+    
+    CompiledCondition(String source, ConditionNode root, String[] placeholders, String[] nativePlaceholders,
+                      int dependencyMask) {
+        this.source = source;
+        this.root = root;
+        this.placeholders = placeholders;
+        this.nativePlaceholders = nativePlaceholders;
+        this.constant = root.isConstant();
+        this.dependencyMask = dependencyMask;
+    }
+    
+    /**
+     * 求值
+     *
+     * @param player 玩家
+     * @param placeholderSource 占位符取值来源
+     * @return 条件是否成立
+     */
+    public boolean evaluate(Player player, PlaceholderSource placeholderSource) {
+        if (constant) {
+            return root.test(ConditionNode.EMPTY_FRAME);
+        }
+        return root.test(new ConditionFrame(player, placeholderSource, placeholders));
+    }
+    
+    /**
+     * 获取原始表达式
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    /**
+     * 获取表达式引用的 PAPI 占位符（去重，含两侧 %，不含原生占位符）
+     */
+    public List<String> getPlaceholders() {
+        return Collections.unmodifiableList(java.util.Arrays.asList(placeholders));
+    }
+    
+    /**
+     * 获取已绑定为原生 getter 的占位符（去重，含两侧 %）
+     */
+    public List<String> getNativePlaceholders() {
+        return Collections.unmodifiableList(java.util.Arrays.asList(nativePlaceholders));
+    }
+    
+    /**
+     * 是否为常量表达式（不引用任何占位符）
+     */
+    public boolean isConstant() {
+        return constant;
+    }
+    
+    /**
+     * 结果是否可缓存：引用的占位符均已声明失效来源（见 PlaceholderDependencies）
+     */
+    public boolean isCacheable() {
+        return !constant && dependencyMask != PlaceholderDependencies.VOLATILE;
+    }
+    
+    /**
+     * 获取失效来源掩码（ConditionDependency.bit() 的组合），不可缓存时返回 PlaceholderDependencies.VOLATILE
+     */
+    public int getDependencyMask() {
+        return dependencyMask;
+    }
+    
+    @Override
+    public String toString() {
+        return source;
+    }
+}
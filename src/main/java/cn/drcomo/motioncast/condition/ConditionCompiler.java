@@ -0,0 +1,520 @@
+package cn.drcomo.motioncast.condition;
+
+import cn.drcomo.corelib.hook.placeholder.parse.ParseException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 条件表达式编译器
+ * 在规则加载时将 require 字符串编译为不可变的表达式树，语法错误在加载期抛出
+ *
+ * 支持的语法（优先级由低到高）：
+ * - 逻辑：||、&&、!
+ * - 比较：==、!=（=!、<>）、>、>=（=>）、<、<=（=<），非数值按字典序比较
+ * - 字符串包含：>>（左含右）、!>> / >>!（左不含右）、<<（右含左）、!<< / <<!（右不含左）
+ * - 算术：+、-、*、/、%，以及一元负号
+ * - 函数：min、max、floor、ceil、round、abs、pow、sqrt、sin、cos、tan、log、ln、clamp、lerp、percentage
+ * - 括号分组；单引号或双引号字符串；%placeholder% 占位符，可与文本拼接（如 world_%player_name%）
+ * 运算符按最长匹配识别
+ * 已在 NativePlaceholders 注册的占位符在编译时绑定为原生 getter，其余在求值时经 PlaceholderSource 取值
+ */
+public final class ConditionCompiler {
+    
+    private ConditionCompiler() {
+    }
+    
+    /**
+     * 编译条件表达式
+     *
+     * @param expression 条件表达式
+     * @return 编译结果
+     * @throws ParseException 表达式语法错误
+     */
+    public static CompiledCondition compile(String expression) throws ParseException {
+        return compile(expression, new PlaceholderCostModel());
+    }
+    
+    /**
+     * 编译条件表达式，并按成本模型重排 && / || 链中的子句
+     * 子句无副作用，重排不改变结果；成本低的子句先求值，使其尽可能先决定结果
+     *
+     * @param expression 条件表达式
+     * @param costModel 占位符成本模型
+     * @return 编译结果
+     * @throws ParseException 表达式语法错误
+     */
+    public static CompiledCondition compile(String expression, PlaceholderCostModel costModel) throws ParseException {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new ParseException("条件表达式为空");
+        }
+        Parser parser = new Parser(expression, costModel);
+        ConditionNode root = parser.parse();
+        String[] placeholders = parser.placeholderSlots.keySet().toArray(new String[0]);
+        String[] nativePlaceholders = parser.nativePlaceholders.toArray(new String[0]);
+        int dependencyMask = parser.volatileDependency ? PlaceholderDependencies.VOLATILE : parser.dependencyMask;
+        return new CompiledCondition(expression, root, placeholders, nativePlaceholders, dependencyMask);
+    }
+    
+    // ========== 词法 ==========
+    
+    private enum TokenType {
+        LPAREN, RPAREN, COMMA, AND, OR, NOT, COMPARE, ARITH, OPERAND, END
+    }
+    
+    // 比较运算符，按长度降序排列以便最长匹配
+    private static final String[] COMPARE_SYMBOLS = {
+            "!>>", ">>!", "!<<", "<<!",
+            ">>", "<<", "==", "!=", "=!", "<>", ">=", "=>", "<=", "=<",
+            ">", "<"
+    };
+    
+    private static final int[] COMPARE_OPS = {
+            ConditionNode.Compare.NOT_CONTAINS, ConditionNode.Compare.NOT_CONTAINS,
+            ConditionNode.Compare.NOT_CONTAINED, ConditionNode.Compare.NOT_CONTAINED,
+            ConditionNode.Compare.CONTAINS, ConditionNode.Compare.CONTAINED,
+            ConditionNode.Compare.EQ, ConditionNode.Compare.NE, ConditionNode.Compare.NE, ConditionNode.Compare.NE,
+            ConditionNode.Compare.GE, ConditionNode.Compare.GE, ConditionNode.Compare.LE, ConditionNode.Compare.LE,
+            ConditionNode.Compare.GT, ConditionNode.Compare.LT
+    };
+    
+    private static final class Token {
+        final TokenType type;
+        final int position;
+        final int compareOp;
+        final char arithOp;
+        final ConditionNode operand;
+        
+        Token(TokenType type, int position, int compareOp, char arithOp, ConditionNode operand) {
+            this.type = type;
+            this.position = position;
+            this.compareOp = compareOp;
+            this.arithOp = arithOp;
+            this.operand = operand;
+        }
+        
+        static Token of(TokenType type, int position) {
+            return new Token(type, position, -1, '\0', null);
+        }
+    }
+    
+    // ========== 语法 ==========
+    
+    private static final class Parser {
+        private final String source;
+        private final PlaceholderCostModel costModel;
+        private final Map<String, Integer> placeholderSlots = new LinkedHashMap<>();
+        private final Set<String> nativePlaceholders = new LinkedHashSet<>();
+        private int dependencyMask = 0;
+        private boolean volatileDependency = false;
+        private final List<Token> tokens = new ArrayList<>();
+        private int index = 0;
+        
+        Parser(String source, PlaceholderCostModel costModel) {
+            this.source = source;
+            this.costModel = costModel;
+        }
+        
+        ConditionNode parse() throws ParseException {
+            tokenize();
+            ConditionNode root = parseOr();
+            Token trailing = peek();
+            if (trailing.type != TokenType.END) {
+                throw error(trailing.position, "多余的内容");
+            }
+            return root;
+        }
+        
+        // or := and ('||' and)*
+        private ConditionNode parseOr() throws ParseException {
+            List<ConditionNode> clauses = new ArrayList<>();
+            addClause(clauses, parseAnd(), false);
+            while (peek().type == TokenType.OR) {
+                index++;
+                addClause(clauses, parseAnd(), false);
+            }
+            return buildChain(clauses, false);
+        }
+        
+        // and := not ('&&' not)*
+        private ConditionNode parseAnd() throws ParseException {
+            List<ConditionNode> clauses = new ArrayList<>();
+            addClause(clauses, parseNot(), true);
+            while (peek().type == TokenType.AND) {
+                index++;
+                addClause(clauses, parseNot(), true);
+            }
+            return buildChain(clauses, true);
+        }
+        
+        /**
+         * 加入子句；括号内的同类链直接展开，使 (a && b) && c 作为一条链整体排序
+         */
+        private void addClause(List<ConditionNode> clauses, ConditionNode clause, boolean and) {
+            if (and && clause instanceof ConditionNode.And) {
+                java.util.Collections.addAll(clauses, ((ConditionNode.And) clause).clauses());
+            } else if (!and && clause instanceof ConditionNode.Or) {
+                java.util.Collections.addAll(clauses, ((ConditionNode.Or) clause).clauses());
+            } else {
+                clauses.add(clause);
+            }
+        }
+        
+        /**
+         * 按估算成本升序（稳定排序，成本相同时保持书写顺序）构建短路链
+         */
+        private ConditionNode buildChain(List<ConditionNode> clauses, boolean and) {
+            if (clauses.size() == 1) {
+                return clauses.get(0);
+            }
+            int size = clauses.size();
+            double[] costs = new double[size];
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                costs[i] = clauses.get(i).cost(costModel);
+                order[i] = i;
+            }
+            java.util.Arrays.sort(order, (a, b) -> Double.compare(costs[a], costs[b]));
+            ConditionNode[] sorted = new ConditionNode[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = clauses.get(order[i]);
+            }
+            return ConditionNode.fold(and ? new ConditionNode.And(sorted) : new ConditionNode.Or(sorted));
+        }
+        
+        // not := '!' not | comparison
+        private ConditionNode parseNot() throws ParseException {
+            if (peek().type == TokenType.NOT) {
+                index++;
+                return ConditionNode.fold(new ConditionNode.Not(parseNot()));
+            }
+            return parseComparison();
+        }
+        
+        // comparison := additive (op additive)?
+        private ConditionNode parseComparison() throws ParseException {
+            ConditionNode left = parseAdditive();
+            Token token = peek();
+            if (token.type == TokenType.COMPARE) {
+                index++;
+                ConditionNode right = parseAdditive();
+                if (peek().type == TokenType.COMPARE) {
+                    throw error(peek().position, "比较运算不能连续使用，请使用括号或 && 拆分");
+                }
+                return ConditionNode.fold(new ConditionNode.Compare(token.compareOp, left, right));
+            }
+            return left;
+        }
+        
+        // additive := multiplicative (('+' | '-') multiplicative)*
+        private ConditionNode parseAdditive() throws ParseException {
+            ConditionNode left = parseMultiplicative();
+            while (peek().type == TokenType.ARITH && (peek().arithOp == '+' || peek().arithOp == '-')) {
+                char op = next().arithOp;
+                left = ConditionNode.fold(new ConditionNode.Arithmetic(op, left, parseMultiplicative()));
+            }
+            return left;
+        }
+        
+        // multiplicative := unary (('*' | '/' | '%') unary)*
+        private ConditionNode parseMultiplicative() throws ParseException {
+            ConditionNode left = parseUnary();
+            while (peek().type == TokenType.ARITH && peek().arithOp != '+' && peek().arithOp != '-') {
+                char op = next().arithOp;
+                left = ConditionNode.fold(new ConditionNode.Arithmetic(op, left, parseUnary()));
+            }
+            return left;
+        }
+        
+        // unary := '-' unary | '+' unary | primary
+        private ConditionNode parseUnary() throws ParseException {
+            Token token = peek();
+            if (token.type == TokenType.ARITH && token.arithOp == '-') {
+                index++;
+                return ConditionNode.fold(new ConditionNode.Negate(parseUnary()));
+            }
+            if (token.type == TokenType.ARITH && token.arithOp == '+') {
+                index++;
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+        
+        // primary := '(' or ')' | function '(' additive (',' additive)* ')' | operand
+        private ConditionNode parsePrimary() throws ParseException {
+            Token token = next();
+            switch (token.type) {
+                case LPAREN: {
+                    ConditionNode inner = parseOr();
+                    if (next().type != TokenType.RPAREN) {
+                        throw error(token.position, "括号未闭合");
+                    }
+                    return inner;
+                }
+                case OPERAND:
+                    if (peek().type == TokenType.LPAREN && isBareWord(token)) {
+                        return parseCall(token);
+                    }
+                    return token.operand;
+                case END:
+                    throw error(token.position, "表达式不完整");
+                default:
+                    throw error(token.position, "此处需要操作数");
+            }
+        }
+        
+        /**
+         * 解析函数调用，函数名与参数个数在编译时校验
+         */
+        private ConditionNode parseCall(Token name) throws ParseException {
+            String function = name.operand.text(ConditionNode.EMPTY_FRAME);
+            int arity = ConditionNode.Call.arity(function);
+            if (arity < 0) {
+                throw error(name.position, "未知函数 '" + function + "'");
+            }
+            index++;
+            List<ConditionNode> args = new ArrayList<>(arity);
+            if (peek().type != TokenType.RPAREN) {
+                args.add(parseAdditive());
+                while (peek().type == TokenType.COMMA) {
+                    index++;
+                    args.add(parseAdditive());
+                }
+            }
+            if (next().type != TokenType.RPAREN) {
+                throw error(name.position, "函数 " + function + " 的括号未闭合");
+            }
+            if (args.size() != arity) {
+                throw error(name.position, "函数 " + function + " 需要 " + arity + " 个参数，实际为 " + args.size());
+            }
+            return ConditionNode.fold(new ConditionNode.Call(function, args.toArray(new ConditionNode[0])));
+        }
+        
+        /**
+         * 是否为未加引号的纯文本单词（可作为函数名）
+         */
+        private boolean isBareWord(Token token) {
+            char first = source.charAt(token.position);
+            return token.operand instanceof ConditionNode.Literal && first != '\'' && first != '"';
+        }
+        
+        private Token peek() {
+            return tokens.get(index);
+        }
+        
+        private Token next() {
+            Token token = tokens.get(index);
+            if (token.type != TokenType.END) {
+                index++;
+            }
+            return token;
+        }
+        
+        private ParseException error(int position, String message) {
+            return new ParseException("位置 " + (position + 1) + ": " + message + "，表达式: " + source);
+        }
+        
+        // ========== 词法扫描 ==========
+        
+        private void tokenize() throws ParseException {
+            int length = source.length();
+            int i = 0;
+            while (i < length) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                switch (c) {
+                    case '(':
+                        tokens.add(Token.of(TokenType.LPAREN, i++));
+                        continue;
+                    case ')':
+                        tokens.add(Token.of(TokenType.RPAREN, i++));
+                        continue;
+                    case ',':
+                        tokens.add(Token.of(TokenType.COMMA, i++));
+                        continue;
+                    case '&':
+                    case '|':
+                        if (i + 1 < length && source.charAt(i + 1) == c) {
+                            tokens.add(Token.of(c == '&' ? TokenType.AND : TokenType.OR, i));
+                            i += 2;
+                            continue;
+                        }
+                        throw error(i, "无效的运算符 '" + c + "'，请使用 '" + c + c + "'");
+                    case '!':
+                    case '=':
+                    case '>':
+                    case '<': {
+                        int symbol = compareSymbolAt(i);
+                        if (symbol >= 0) {
+                            tokens.add(new Token(TokenType.COMPARE, i, COMPARE_OPS[symbol], '\0', null));
+                            i += COMPARE_SYMBOLS[symbol].length();
+                            continue;
+                        }
+                        if (c == '!') {
+                            tokens.add(Token.of(TokenType.NOT, i++));
+                            continue;
+                        }
+                        throw error(i, "无效的运算符 '='，请使用 '=='");
+                    }
+                    case '+':
+                    case '-':
+                    case '*':
+                    case '/':
+                        tokens.add(new Token(TokenType.ARITH, i, -1, c, null));
+                        i++;
+                        continue;
+                    case '%':
+                        if (placeholderEnd(i) < 0) {
+                            tokens.add(new Token(TokenType.ARITH, i, -1, c, null));
+                            i++;
+                            continue;
+                        }
+                        break;
+                    case '\'':
+                    case '"': {
+                        int end = source.indexOf(c, i + 1);
+                        if (end < 0) {
+                            throw error(i, "字符串未闭合");
+                        }
+                        tokens.add(new Token(TokenType.OPERAND, i, -1, '\0',
+                                new ConditionNode.Literal(source.substring(i + 1, end))));
+                        i = end + 1;
+                        continue;
+                    }
+                    default:
+                        break;
+                }
+                i = scanWord(i);
+            }
+            tokens.add(Token.of(TokenType.END, length));
+        }
+        
+        /**
+         * 返回 start 处最长匹配的比较运算符下标，不是比较运算符时返回 -1
+         */
+        private int compareSymbolAt(int start) {
+            for (int i = 0; i < COMPARE_SYMBOLS.length; i++) {
+                if (source.startsWith(COMPARE_SYMBOLS[i], start)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        /**
+         * 扫描文本操作数：字面量片段与占位符交替拼接，遇到运算符或空白结束
+         */
+        private int scanWord(int start) {
+            List<ConditionNode> parts = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int i = start;
+            int length = source.length();
+            while (i < length) {
+                char c = source.charAt(i);
+                if (c == '%') {
+                    int end = placeholderEnd(i);
+                    if (end < 0) {
+                        break;
+                    }
+                    if (literal.length() > 0) {
+                        parts.add(new ConditionNode.Literal(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    parts.add(placeholderNode(source.substring(i, end + 1)));
+                    i = end + 1;
+                    continue;
+                }
+                if (Character.isWhitespace(c) || isOperatorChar(c)) {
+                    break;
+                }
+                literal.append(c);
+                i++;
+            }
+            if (literal.length() > 0) {
+                parts.add(new ConditionNode.Literal(literal.toString()));
+            }
+            
+            ConditionNode operand = parts.size() == 1
+                    ? parts.get(0)
+                    : new ConditionNode.Template(parts.toArray(new ConditionNode[0]));
+            tokens.add(new Token(TokenType.OPERAND, start, -1, '\0', operand));
+            return i;
+        }
+        
+        /**
+         * 占位符节点：已注册的原生占位符直接绑定 getter，其余分配 PAPI 取值槽
+         */
+        private ConditionNode placeholderNode(String placeholder) {
+            int dependencies = PlaceholderDependencies.lookup(placeholder);
+            if (dependencies == PlaceholderDependencies.VOLATILE) {
+                volatileDependency = true;
+            } else {
+                dependencyMask |= dependencies;
+            }
+            
+            ConditionNode nativeNode = NativePlaceholders.bind(placeholder);
+            if (nativeNode != null) {
+                nativePlaceholders.add(placeholder);
+                return nativeNode;
+            }
+            return new ConditionNode.Slot(slotOf(placeholder), placeholder);
+        }
+        
+        /**
+         * 若 start 处为占位符则返回其结尾 % 的位置，否则返回 -1
+         * 占位符两个 % 之间至少一个字符且不含空白
+         */
+        private int placeholderEnd(int start) {
+            int length = source.length();
+            for (int i = start + 1; i < length; i++) {
+                char c = source.charAt(i);
+                if (c == '%') {
+                    return i > start + 1 ? i : -1;
+                }
+                if (Character.isWhitespace(c)) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+        
+        private int slotOf(String placeholder) {
+            Integer slot = placeholderSlots.get(placeholder);
+            if (slot == null) {
+                slot = placeholderSlots.size();
+                placeholderSlots.put(placeholder, slot);
+            }
+            return slot;
+        }
+        
+        private static boolean isOperatorChar(char c) {
+            switch (c) {
+                case '(':
+                case ')':
+                case ',':
+                case '&':
+                case '|':
+                case '!':
+                case '=':
+                case '>':
+                case '<':
+                case '+':
+                case '-':
+                case '*':
+                case '/':
+                case '\'':
+                case '"':
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package cn.drcomo.motioncast.condition;
+
+/**
+ * 条件结果的失效来源
+ * 慢变占位符声明其值依赖的来源；对应的 Bukkit 事件发生时，该玩家依赖此来源的条件缓存失效
+ */
+public enum ConditionDependency {
+    
+    /** 所在世界（切换世界） */
+    WORLD,
+    
+    /** 经验等级（等级变化） */
+    LEVEL,
+    
+    /** 权限与权限组（切换世界、游戏模式变化、入服；其余变更由缓存最长保留时间兜底） */
+    PERMISSION,
+    
+    /** 游戏模式（游戏模式变化） */
+    GAMEMODE;
+    
+    /**
+     * 该来源在依赖掩码中的位
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+}
@@ -0,0 +1,51 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.entity.Player;
+
+/**
+ * 单次条件求值的取值帧
+ * PAPI 占位符在首次被读取时才向来源解析，使被短路跳过的子句不产生解析开销；
+ * 数值在首次使用时转换并缓存；原生占位符直接读取玩家
+ */
+final class ConditionFrame {
+    
+    private final Player player;
+    private final PlaceholderSource source;
+    private final String[] placeholders;
+    private final String[] values;
+    private final double[] numbers;
+    private final boolean[] converted;
+    
+    ConditionFrame(Player player, PlaceholderSource source, String[] placeholders) {
+        this.player = player;
+        this.source = source;
+        this.placeholders = placeholders;
+        this.values = new String[placeholders.length];
+        this.numbers = new double[placeholders.length];
+        this.converted = new boolean[placeholders.length];
+    }
+    
+    Player player() {
+        return player;
+    }
+    
+    String text(int slot) {
+        String value = values[slot];
+        if (value == null) {
+            value = source.resolve(player, placeholders[slot]);
+            if (value == null) {
+                value = "";
+            }
+            values[slot] = value;
+        }
+        return value;
+    }
+    
+    double number(int slot) {
+        if (!converted[slot]) {
+            numbers[slot] = ConditionNode.toNumber(text(slot));
+            converted[slot] = true;
+        }
+        return numbers[slot];
+    }
+}
@@ -0,0 +1,661 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.entity.Player;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 条件表达式树节点
+ * 节点在加载时构建后不可变；值为弱类型，同一节点可按文本、数值或真值读取
+ * 比较运算两侧均可转换为数值时按数值比较，否则按文本比较（大小比较为字典序）；包含运算始终按文本比较
+ */
+abstract class ConditionNode {
+    
+    static final ConditionFrame EMPTY_FRAME = new ConditionFrame(null, null, new String[0]);
+    
+    abstract String text(ConditionFrame frame);
+    
+    abstract double number(ConditionFrame frame);
+    
+    abstract boolean test(ConditionFrame frame);
+    
+    /**
+     * 是否不依赖占位符（可在加载时折叠为常量）
+     */
+    abstract boolean isConstant();
+    
+    /**
+     * 估算单次求值成本（微秒），用于 && / || 子句排序
+     */
+    abstract double cost(PlaceholderCostModel model);
+    
+    /**
+     * 文本转数值，无法转换时返回 NaN
+     * 先做首字符检查，避免对普通文本抛出异常
+     */
+    static double toNumber(String text) {
+        if (text == null || text.isEmpty()) {
+            return Double.NaN;
+        }
+        char c = text.charAt(0);
+        if (!(c >= '0' && c <= '9') && c != '-' && c != '+' && c != '.') {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+    
+    /**
+     * 文本真值：true / yes 或非零数值
+     */
+    static boolean truthy(String text) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        if ("true".equalsIgnoreCase(text) || "yes".equalsIgnoreCase(text)) {
+            return true;
+        }
+        double value = toNumber(text);
+        return !Double.isNaN(value) && value != 0;
+    }
+    
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+    
+    /**
+     * 常量折叠：不依赖占位符的子树直接替换为字面量
+     */
+    static ConditionNode fold(ConditionNode node) {
+        if (node instanceof Literal || !node.isConstant()) {
+            return node;
+        }
+        return new Literal(node.text(EMPTY_FRAME));
+    }
+    
+    static boolean allConstant(ConditionNode[] nodes) {
+        for (ConditionNode node : nodes) {
+            if (!node.isConstant()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static double totalCost(ConditionNode[] nodes, PlaceholderCostModel model) {
+        double total = 0;
+        for (ConditionNode node : nodes) {
+            total += node.cost(model);
+        }
+        return total;
+    }
+    
+    // ========== 操作数 ==========
+    
+    /**
+     * 字面量（数字、字符串或常量折叠结果）
+     */
+    static final class Literal extends ConditionNode {
+        private final String value;
+        private final double number;
+        private final boolean truth;
+        
+        Literal(String value) {
+            this.value = value;
+            this.number = toNumber(value);
+            this.truth = truthy(value);
+        }
+        
+        @Override
+        String text(ConditionFrame frame) {
+            return value;
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return number;
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            return truth;
+        }
+        
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return PlaceholderCostModel.CONSTANT_COST;
+        }
+    }
+    
+    /**
+     * 占位符槽：整个操作数就是一个占位符
+     */
+    static final class Slot extends ConditionNode {
+        private final int slot;
+        private final String placeholder;
+        
+        Slot(int slot, String placeholder) {
+            this.slot = slot;
+            this.placeholder = placeholder;
+        }
+        
+        @Override
+        String text(ConditionFrame frame) {
+            return frame.text(slot);
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return frame.number(slot);
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            return truthy(frame.text(slot));
+        }
+        
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return model.estimate(placeholder);
+        }
+    }
+    
+    /**
+     * 原生数值占位符：直接调用 Bukkit getter，数值比较无需文本转换
+     */
+    static final class NativeNumber extends NumberNode {
+        private final ToDoubleFunction<Player> getter;
+        
+        NativeNumber(ToDoubleFunction<Player> getter) {
+            this.getter = getter;
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return getter.applyAsDouble(frame.player());
+        }
+        
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return PlaceholderCostModel.NATIVE_COST;
+        }
+    }
+    
+    /**
+     * 原生文本占位符：直接调用 Bukkit getter
+     */
+    static final class NativeText extends ConditionNode {
+        private final Function<Player, String> getter;
+        
+        NativeText(Function<Player, String> getter) {
+            this.getter = getter;
+        }
+        
+        @Override
+        String text(ConditionFrame frame) {
+            String value = getter.apply(frame.player());
+            return value != null ? value : "";
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return toNumber(text(frame));
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            return truthy(text(frame));
+        }
+        
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return PlaceholderCostModel.NATIVE_COST;
+        }
+    }
+    
+    /**
+     * 文本模板：字面量与占位符拼接，如 world_%player_name%
+     */
+    static final class Template extends ConditionNode {
+        private final ConditionNode[] parts;
+        
+        Template(ConditionNode[] parts) {
+            this.parts = parts;
+        }
+        
+        @Override
+        String text(ConditionFrame frame) {
+            StringBuilder builder = new StringBuilder();
+            for (ConditionNode part : parts) {
+                builder.append(part.text(frame));
+            }
+            return builder.toString();
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return toNumber(text(frame));
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            return truthy(text(frame));
+        }
+        
+        @Override
+        boolean isConstant() {
+            return false;
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            double total = 0;
+            for (ConditionNode part : parts) {
+                total += part.cost(model);
+            }
+            return total;
+        }
+    }
+    
+    // ========== 逻辑与比较 ==========
+    
+    /**
+     * 布尔结果节点的公共读取方式
+     */
+    abstract static class BooleanNode extends ConditionNode {
+        @Override
+        String text(ConditionFrame frame) {
+            return test(frame) ? "true" : "false";
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return test(frame) ? 1 : 0;
+        }
+    }
+    
+    static final class Not extends BooleanNode {
+        private final ConditionNode operand;
+        
+        Not(ConditionNode operand) {
+            this.operand = operand;
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            return !operand.test(frame);
+        }
+        
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return operand.cost(model);
+        }
+    }
+    
+    /**
+     * && 链：子句按编译时给定的顺序短路求值
+     */
+    static final class And extends BooleanNode {
+        private final ConditionNode[] clauses;
+        
+        And(ConditionNode[] clauses) {
+            this.clauses = clauses;
+        }
+        
+        ConditionNode[] clauses() {
+            return clauses;
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            for (ConditionNode clause : clauses) {
+                if (!clause.test(frame)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        @Override
+        boolean isConstant() {
+            return allConstant(clauses);
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return totalCost(clauses, model);
+        }
+    }
+    
+    /**
+     * || 链：子句按编译时给定的顺序短路求值
+     */
+    static final class Or extends BooleanNode {
+        private final ConditionNode[] clauses;
+        
+        Or(ConditionNode[] clauses) {
+            this.clauses = clauses;
+        }
+        
+        ConditionNode[] clauses() {
+            return clauses;
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            for (ConditionNode clause : clauses) {
+                if (clause.test(frame)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        boolean isConstant() {
+            return allConstant(clauses);
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return totalCost(clauses, model);
+        }
+    }
+    
+    static final class Compare extends BooleanNode {
+        static final int EQ = 0;
+        static final int NE = 1;
+        static final int GT = 2;
+        static final int GE = 3;
+        static final int LT = 4;
+        static final int LE = 5;
+        // 字符串包含：>> 左含右、!>> 左不含右、<< 右含左、!<< 右不含左
+        static final int CONTAINS = 6;
+        static final int NOT_CONTAINS = 7;
+        static final int CONTAINED = 8;
+        static final int NOT_CONTAINED = 9;
+        
+        private final int op;
+        private final ConditionNode left;
+        private final ConditionNode right;
+        
+        Compare(int op, ConditionNode left, ConditionNode right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            switch (op) {
+                case CONTAINS:
+                    return left.text(frame).contains(right.text(frame));
+                case NOT_CONTAINS:
+                    return !left.text(frame).contains(right.text(frame));
+                case CONTAINED:
+                    return right.text(frame).contains(left.text(frame));
+                case NOT_CONTAINED:
+                    return !right.text(frame).contains(left.text(frame));
+                default:
+                    break;
+            }
+            double a = left.number(frame);
+            double b = right.number(frame);
+            if (Double.isNaN(a) || Double.isNaN(b)) {
+                String x = left.text(frame);
+                String y = right.text(frame);
+                switch (op) {
+                    case EQ:
+                        return x.equals(y);
+                    case NE:
+                        return !x.equals(y);
+                    case GT:
+                        return x.compareTo(y) > 0;
+                    case GE:
+                        return x.compareTo(y) >= 0;
+                    case LT:
+                        return x.compareTo(y) < 0;
+                    default:
+                        return x.compareTo(y) <= 0;
+                }
+            }
+            switch (op) {
+                case EQ:
+                    return a == b;
+                case NE:
+                    return a != b;
+                case GT:
+                    return a > b;
+                case GE:
+                    return a >= b;
+                case LT:
+                    return a < b;
+                default:
+                    return a <= b;
+            }
+        }
+        
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return left.cost(model) + right.cost(model);
+        }
+    }
+    
+    // ========== 算术 ==========
+    
+    /**
+     * 数值结果节点的公共读取方式
+     */
+    abstract static class NumberNode extends ConditionNode {
+        @Override
+        String text(ConditionFrame frame) {
+            double value = number(frame);
+            return Double.isNaN(value) ? "NaN" : formatNumber(value);
+        }
+        
+        @Override
+        boolean test(ConditionFrame frame) {
+            double value = number(frame);
+            return !Double.isNaN(value) && value != 0;
+        }
+    }
+    
+    static final class Negate extends NumberNode {
+        private final ConditionNode operand;
+        
+        Negate(ConditionNode operand) {
+            this.operand = operand;
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            return -operand.number(frame);
+        }
+        
+        @Override
+        boolean isConstant() {
+            return operand.isConstant();
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return operand.cost(model);
+        }
+    }
+    
+    static final class Arithmetic extends NumberNode {
+        private final char op;
+        private final ConditionNode left;
+        private final ConditionNode right;
+        
+        Arithmetic(char op, ConditionNode left, ConditionNode right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            double a = left.number(frame);
+            double b = right.number(frame);
+            switch (op) {
+                case '+':
+                    return a + b;
+                case '-':
+                    return a - b;
+                case '*':
+                    return a * b;
+                case '/':
+                    return b == 0 ? Double.NaN : a / b;
+                default:
+                    return b == 0 ? Double.NaN : a % b;
+            }
+        }
+        
+        @Override
+        boolean isConstant() {
+            return left.isConstant() && right.isConstant();
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return left.cost(model) + right.cost(model);
+        }
+    }
+    
+    /**
+     * 数学函数调用，如 max(%player_level%, 10)；函数名与参数个数在编译时校验
+     */
+    static final class Call extends NumberNode {
+        private final String name;
+        private final ConditionNode[] args;
+        
+        Call(String name, ConditionNode[] args) {
+            this.name = name;
+            this.args = args;
+        }
+        
+        /**
+         * 函数的参数个数，未知函数返回 -1
+         */
+        static int arity(String name) {
+            switch (name) {
+                case "floor":
+                case "ceil":
+                case "round":
+                case "abs":
+                case "sqrt":
+                case "sin":
+                case "cos":
+                case "tan":
+                case "log":
+                case "ln":
+                    return 1;
+                case "min":
+                case "max":
+                case "pow":
+                case "percentage":
+                    return 2;
+                case "clamp":
+                case "lerp":
+                    return 3;
+                default:
+                    return -1;
+            }
+        }
+        
+        @Override
+        double number(ConditionFrame frame) {
+            double a = args[0].number(frame);
+            switch (name) {
+                case "floor":
+                    return Math.floor(a);
+                case "ceil":
+                    return Math.ceil(a);
+                case "round":
+                    return Math.round(a);
+                case "abs":
+                    return Math.abs(a);
+                case "sqrt":
+                    return Math.sqrt(a);
+                case "sin":
+                    return Math.sin(a);
+                case "cos":
+                    return Math.cos(a);
+                case "tan":
+                    return Math.tan(a);
+                case "log":
+                    return Math.log10(a);
+                case "ln":
+                    return Math.log(a);
+                default:
+                    break;
+            }
+            double b = args[1].number(frame);
+            switch (name) {
+                case "min":
+                    return Math.min(a, b);
+                case "max":
+                    return Math.max(a, b);
+                case "pow":
+                    return Math.pow(a, b);
+                case "percentage":
+                    return b == 0 ? Double.NaN : a / b * 100;
+                default:
+                    break;
+            }
+            double c = args[2].number(frame);
+            if ("clamp".equals(name)) {
+                return Math.max(b, Math.min(c, a));
+            }
+            return a + c * (b - a);
+        }
+        
+        @Override
+        boolean isConstant() {
+            return allConstant(args);
+        }
+        
+        @Override
+        double cost(PlaceholderCostModel model) {
+            return totalCost(args, model);
+        }
+    }
+}
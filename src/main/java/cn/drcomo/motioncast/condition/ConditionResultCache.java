@@ -0,0 +1,103 @@
+package cn.drcomo.motioncast.condition;
+
+import cn.drcomo.motioncast.rules.RuleGeneration;
+
+/**
+ * 单个玩家的条件结果缓存
+ * 以规则序号为下标保存最近一次求值结果，并记录写入时所依赖来源的纪元之和；
+ * 相关事件使对应来源的纪元递增，纪元之和随之改变，缓存即失效（纪元只增不减，和不变即表示来源均未变化）
+ * 规则重载后条件可能已改变，代数变化时整体清空；仅在主线程访问
+ */
+public class ConditionResultCache {
+    
+    /** lookup 未命中 */
+    public static final int MISS = -1;
+    
+    private static final byte EMPTY = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    
+    private final long[] epochs = new long[ConditionDependency.values().length];
+    
+    private RuleGeneration generation;
+    private byte[] results = new byte[0];
+    private long[] signatures = new long[0];
+    private long[] storedAt = new long[0];
+    
+    /**
+     * 查询缓存的条件结果
+     *
+     * @param maxAgeTicks 结果最长保留时间，超过即视为未命中（兜底无事件可感知的变化）
+     * @return MISS、0（不成立）或 1（成立）
+     */
+    public int lookup(RuleGeneration current, int ordinal, int dependencyMask, long nowTick, long maxAgeTicks) {
+        if (generation != current || ordinal < 0 || ordinal >= results.length) {
+            return MISS;
+        }
+        byte result = results[ordinal];
+        if (result == EMPTY
+                || signatures[ordinal] != signature(dependencyMask)
+                || nowTick - storedAt[ordinal] >= maxAgeTicks) {
+            return MISS;
+        }
+        return result == TRUE ? 1 : 0;
+    }
+    
+    /**
+     * 写入条件结果
+     */
+    public void store(RuleGeneration current, int ordinal, int dependencyMask, long nowTick, boolean result) {
+        if (ordinal < 0) {
+            return;
+        }
+        if (generation != current) {
+            int capacity = current.getCapacity();
+            results = new byte[capacity];
+            signatures = new long[capacity];
+            storedAt = new long[capacity];
+            generation = current;
+        }
+        if (ordinal >= results.length) {
+            return;
+        }
+        results[ordinal] = result ? TRUE : FALSE;
+        signatures[ordinal] = signature(dependencyMask);
+        storedAt[ordinal] = nowTick;
+    }
+    
+    /**
+     * 使依赖该来源的结果失效
+     */
+    public void invalidate(ConditionDependency dependency) {
+        epochs[dependency.ordinal()]++;
+    }
+    
+    /**
+     * 使全部结果失效
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i]++;
+        }
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        generation = null;
+        results = new byte[0];
+        signatures = new long[0];
+        storedAt = new long[0];
+    }
+    
+    private long signature(int dependencyMask) {
+        long sum = 0;
+        for (int i = 0; i < epochs.length; i++) {
+            if ((dependencyMask & (1 << i)) != 0) {
+                sum += epochs[i];
+            }
+        }
+        return sum;
+    }
+}
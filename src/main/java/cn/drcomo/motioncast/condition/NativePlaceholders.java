@@ -0,0 +1,101 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 原生占位符注册表
+ * 常用的玩家占位符在编译期直接绑定为 Bukkit getter，求值时返回原生数值或文本，
+ * 不经过 PlaceholderAPI 的字符串替换，也不做 文本→数值 的往返转换；未注册的占位符仍回退到 PAPI
+ * 取值语义与 PAPI Player 扩展保持一致（坐标为方块坐标）
+ */
+public final class NativePlaceholders {
+    
+    private static final Map<String, ToDoubleFunction<Player>> NUMERIC = new HashMap<>();
+    private static final Map<String, Function<Player, String>> TEXT = new HashMap<>();
+    
+    static {
+        registerNumber("player_health", Player::getHealth);
+        registerNumber("player_max_health", NativePlaceholders::maxHealth);
+        registerNumber("player_level", Player::getLevel);
+        registerNumber("player_total_exp", Player::getTotalExperience);
+        registerNumber("player_food_level", Player::getFoodLevel);
+        registerNumber("player_saturation", Player::getSaturation);
+        registerNumber("player_remaining_air", Player::getRemainingAir);
+        registerNumber("player_x", p -> p.getLocation().getBlockX());
+        registerNumber("player_y", p -> p.getLocation().getBlockY());
+        registerNumber("player_z", p -> p.getLocation().getBlockZ());
+        registerNumber("player_yaw", p -> p.getLocation().getYaw());
+        registerNumber("player_pitch", p -> p.getLocation().getPitch());
+        
+        registerText("player_name", Player::getName);
+        registerText("player_world", NativePlaceholders::worldName);
+    }
+    
+    private NativePlaceholders() {
+    }
+    
+    /**
+     * 注册数值型原生占位符
+     *
+     * @param name 不含两侧 % 的占位符名，如 player_health
+     */
+    public static synchronized void registerNumber(String name, ToDoubleFunction<Player> getter) {
+        TEXT.remove(name);
+        NUMERIC.put(name, getter);
+    }
+    
+    /**
+     * 注册文本型原生占位符
+     *
+     * @param name 不含两侧 % 的占位符名，如 player_world
+     */
+    public static synchronized void registerText(String name, Function<Player, String> getter) {
+        NUMERIC.remove(name);
+        TEXT.put(name, getter);
+    }
+    
+    /**
+     * 获取已注册的原生占位符名
+     */
+    public static synchronized Set<String> getNames() {
+        Set<String> names = new java.util.TreeSet<>(NUMERIC.keySet());
+        names.addAll(TEXT.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+    
+    /**
+     * 为占位符查找原生绑定，未注册时返回 null
+     *
+     * @param placeholder 含两侧 % 的占位符文本
+     */
+    static synchronized ConditionNode bind(String placeholder) {
+        String name = placeholder.substring(1, placeholder.length() - 1).toLowerCase();
+        ToDoubleFunction<Player> numeric = NUMERIC.get(name);
+        if (numeric != null) {
+            return new ConditionNode.NativeNumber(numeric);
+        }
+        Function<Player, String> text = TEXT.get(name);
+        if (text != null) {
+            return new ConditionNode.NativeText(text);
+        }
+        return null;
+    }
+    
+    @SuppressWarnings("deprecation")
+    private static double maxHealth(Player player) {
+        return player.getMaxHealth();
+    }
+    
+    private static String worldName(Player player) {
+        World world = player.getWorld();
+        return world != null ? world.getName() : "";
+    }
+}
@@ -0,0 +1,163 @@
+package cn.drcomo.motioncast.condition;
+
+import cn.drcomo.motioncast.tick.TickClock;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 占位符逐tick缓存
+ * 以 (玩家, 服务器tick) 为作用域：同一tick内同一玩家的同一占位符只向底层来源解析一次，
+ * 跨规则共享（如飞行、悬停、攻击规则都引用 %player_health%）；进入新tick时该玩家的缓存整体失效
+ * 仅在主线程使用；同时按占位符统计命中率与解析耗时，便于定位昂贵的扩展，实测耗时同时写入成本模型
+ */
+public class PlaceholderCache implements PlaceholderSource, Listener {
+    
+    private final PlaceholderSource delegate;
+    private final TickClock tickClock;
+    private final PlaceholderCostModel costModel;
+    
+    // 玩家 -> 当前tick的取值（条目跨tick复用，进入新tick时清空）
+    private final Map<UUID, PlayerEntry> entries = new HashMap<>();
+    
+    // 占位符 -> 统计
+    private final Map<String, PlaceholderStats> stats = new HashMap<>();
+    
+    private long totalHits = 0;
+    private long totalMisses = 0;
+    
+    public PlaceholderCache(PlaceholderSource delegate, TickClock tickClock, PlaceholderCostModel costModel) {
+        this.delegate = delegate;
+        this.tickClock = tickClock;
+        this.costModel = costModel;
+    }
+    
+    @Override
+    public String resolve(Player player, String placeholder) {
+        long now = tickClock.now();
+        PlayerEntry entry = entries.get(player.getUniqueId());
+        if (entry == null) {
+            entry = new PlayerEntry();
+            entries.put(player.getUniqueId(), entry);
+        }
+        if (entry.tick != now) {
+            entry.values.clear();
+            entry.tick = now;
+        }
+        
+        PlaceholderStats stat = stats.get(placeholder);
+        if (stat == null) {
+            stat = new PlaceholderStats();
+            stats.put(placeholder, stat);
+        }
+        
+        String value = entry.values.get(placeholder);
+        if (value != null) {
+            stat.hits++;
+            totalHits++;
+            return value;
+        }
+        
+        long start = System.nanoTime();
+        value = delegate.resolve(player, placeholder);
+        long elapsed = System.nanoTime() - start;
+        stat.resolveNanos += elapsed;
+        costModel.record(placeholder, elapsed);
+        stat.misses++;
+        totalMisses++;
+        
+        if (value == null) {
+            value = "";
+        }
+        entry.values.put(placeholder, value);
+        return value;
+    }
+    
+    /**
+     * 使指定玩家的缓存失效
+     */
+    public void invalidate(UUID playerUUID) {
+        entries.remove(playerUUID);
+    }
+    
+    /**
+     * 玩家离服时移除其缓存条目
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * 清空所有缓存与统计
+     */
+    public void clear() {
+        entries.clear();
+        stats.clear();
+        totalHits = 0;
+        totalMisses = 0;
+    }
+    
+    /**
+     * 获取缓存总体统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        long total = totalHits + totalMisses;
+        result.put("缓存玩家数", entries.size());
+        result.put("占位符种类数", stats.size());
+        result.put("累计命中数", totalHits);
+        result.put("累计解析数", totalMisses);
+        result.put("命中率", total > 0 ? String.format("%.1f%%", (double) totalHits / total * 100) : "0.0%");
+        return result;
+    }
+    
+    /**
+     * 获取按累计解析耗时降序排列的占位符统计
+     *
+     * @param limit 最多返回的条数
+     * @return 占位符 -> "命中率 / 解析次数 / 平均耗时"
+     */
+    public Map<String, Object> getPlaceholderStatistics(int limit) {
+        List<Map.Entry<String, PlaceholderStats>> sorted = new ArrayList<>(stats.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().resolveNanos, a.getValue().resolveNanos));
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < sorted.size() && i < limit; i++) {
+            PlaceholderStats stat = sorted.get(i).getValue();
+            long total = stat.hits + stat.misses;
+            result.put(sorted.get(i).getKey(), String.format("命中率 %.1f%%，解析 %d 次，平均 %.3fms",
+                    total > 0 ? (double) stat.hits / total * 100 : 0.0,
+                    stat.misses,
+                    stat.misses > 0 ? stat.resolveNanos / 1_000_000.0 / stat.misses : 0.0));
+        }
+        return result;
+    }
+    
+    /**
+     * 单个玩家当前tick的取值
+     */
+    private static final class PlayerEntry {
+        private long tick = -1L;
+        private final Map<String, String> values = new HashMap<>();
+    }
+    
+    /**
+     * 单个占位符的统计
+     */
+    private static final class PlaceholderStats {
+        private long hits;
+        private long misses;
+        private long resolveNanos;
+    }
+}
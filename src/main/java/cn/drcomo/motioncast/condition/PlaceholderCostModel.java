@@ -0,0 +1,123 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 占位符求值成本模型
+ * 为条件编译器估算各子句的成本（单位：微秒）：常量为0，原生占位符为固定的极小值，
+ * PAPI 占位符使用运行期实测的平均解析耗时（指数滑动平均），未测量过的使用默认值
+ * 实测数据在关闭时保存、启动时读取，使重启后的首次规则编译即可按历史成本排序
+ * 仅在主线程读写
+ */
+public class PlaceholderCostModel {
+    
+    /** 常量成本 */
+    public static final double CONSTANT_COST = 0.0;
+    /** 原生占位符成本 */
+    public static final double NATIVE_COST = 0.05;
+    /** 未测量过的 PAPI 占位符成本 */
+    public static final double DEFAULT_PAPI_COST = 10.0;
+    
+    // 滑动平均系数
+    private static final double SMOOTHING = 0.1;
+    
+    private final Map<String, Estimate> estimates = new HashMap<>();
+    
+    /**
+     * 估算 PAPI 占位符的单次解析成本（微秒）
+     */
+    public double estimate(String placeholder) {
+        Estimate estimate = estimates.get(placeholder);
+        return estimate != null ? estimate.micros : DEFAULT_PAPI_COST;
+    }
+    
+    /**
+     * 记录一次实测解析耗时
+     */
+    public void record(String placeholder, long nanos) {
+        double micros = nanos / 1000.0;
+        Estimate estimate = estimates.get(placeholder);
+        if (estimate == null) {
+            estimates.put(placeholder, new Estimate(micros, 1));
+            return;
+        }
+        estimate.micros += (micros - estimate.micros) * SMOOTHING;
+        estimate.samples++;
+    }
+    
+    /**
+     * 获取已测量的占位符数量
+     */
+    public int size() {
+        return estimates.size();
+    }
+    
+    /**
+     * 从文件读取成本数据，文件不存在时保持为空
+     *
+     * @return 读取的条目数
+     */
+    public int load(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+        int count = 0;
+        for (Map<?, ?> entry : config.getMapList("placeholders")) {
+            Object placeholder = entry.get("placeholder");
+            Object micros = entry.get("cost_micros");
+            Object samples = entry.get("samples");
+            if (placeholder == null || !(micros instanceof Number)) {
+                continue;
+            }
+            long sampleCount = samples instanceof Number ? ((Number) samples).longValue() : 1L;
+            estimates.put(String.valueOf(placeholder),
+                    new Estimate(((Number) micros).doubleValue(), sampleCount));
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * 将成本数据写入文件
+     */
+    public void save(File file) throws IOException {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (Map.Entry<String, Estimate> entry : estimates.entrySet()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("placeholder", entry.getKey());
+            map.put("cost_micros", Math.round(entry.getValue().micros * 1000.0) / 1000.0);
+            map.put("samples", entry.getValue().samples);
+            entries.add(map);
+        }
+        
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("placeholders", entries);
+        config.save(file);
+    }
+    
+    /**
+     * 单个占位符的成本估计
+     */
+    private static final class Estimate {
+        private double micros;
+        private long samples;
+        
+        Estimate(double micros, long samples) {
+            this.micros = micros;
+            this.samples = samples;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package cn.drcomo.motioncast.condition;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 占位符失效来源注册表
+ * 为慢变占位符（原生或 PAPI）声明其值依赖的 ConditionDependency；
+ * 只有全部占位符都已声明的条件才会被缓存，未声明的占位符视为随时变化，所在条件每次都重新求值
+ * 支持精确名与前缀（如 player_has_permission_ 覆盖所有权限检查占位符）
+ */
+public final class PlaceholderDependencies {
+    
+    /** 未声明（随时变化，不可缓存） */
+    public static final int VOLATILE = -1;
+    
+    private static final Map<String, Integer> EXACT = new HashMap<>();
+    private static final Map<String, Integer> PREFIX = new LinkedHashMap<>();
+    
+    static {
+        // 不会变化的身份信息
+        declare("player_name");
+        declare("player_uuid");
+        
+        declare("player_world", ConditionDependency.WORLD);
+        declare("player_level", ConditionDependency.LEVEL);
+        declare("player_gamemode", ConditionDependency.GAMEMODE);
+        declare("player_is_op", ConditionDependency.PERMISSION);
+        declarePrefix("player_has_permission_", ConditionDependency.PERMISSION);
+        
+        // 权限组类扩展（组可能按世界区分）
+        declarePrefix("vault_group", ConditionDependency.PERMISSION, ConditionDependency.WORLD);
+        declarePrefix("vault_rank", ConditionDependency.PERMISSION, ConditionDependency.WORLD);
+        declarePrefix("luckperms_", ConditionDependency.PERMISSION, ConditionDependency.WORLD);
+    }
+    
+    private PlaceholderDependencies() {
+    }
+    
+    /**
+     * 声明占位符的失效来源；不传来源表示该占位符的值不会变化
+     *
+     * @param name 不含两侧 % 的占位符名
+     */
+    public static synchronized void declare(String name, ConditionDependency... dependencies) {
+        EXACT.put(name.toLowerCase(), mask(dependencies));
+    }
+    
+    /**
+     * 按前缀声明占位符的失效来源
+     *
+     * @param prefix 不含 % 的占位符名前缀
+     */
+    public static synchronized void declarePrefix(String prefix, ConditionDependency... dependencies) {
+        PREFIX.put(prefix.toLowerCase(), mask(dependencies));
+    }
+    
+    /**
+     * 查找占位符的依赖掩码
+     *
+     * @param placeholder 含两侧 % 的占位符文本
+     * @return 依赖掩码；未声明时返回 VOLATILE
+     */
+    static synchronized int lookup(String placeholder) {
+        String name = placeholder.substring(1, placeholder.length() - 1).toLowerCase();
+        Integer mask = EXACT.get(name);
+        if (mask != null) {
+            return mask;
+        }
+        for (Map.Entry<String, Integer> entry : PREFIX.entrySet()) {
+            if (name.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return VOLATILE;
+    }
+    
+    private static int mask(ConditionDependency... dependencies) {
+        int mask = 0;
+        for (ConditionDependency dependency : dependencies) {
+            mask |= dependency.bit();
+        }
+        return mask;
+    }
+}
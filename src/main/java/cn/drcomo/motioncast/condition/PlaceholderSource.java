@@ -0,0 +1,20 @@
+package cn.drcomo.motioncast.condition;
+
+import org.bukkit.entity.Player;
+
+/**
+ * 占位符取值来源
+ * 条件求值时按占位符槽逐个调用，每次求值每个占位符只取值一次
+ */
+@FunctionalInterface
+public interface PlaceholderSource {
+    
+    /**
+     * 解析单个占位符
+     *
+     * @param player 玩家
+     * @param placeholder 含两侧 % 的占位符文本，如 %player_health%
+     * @return 解析结果，不可为 null
+     */
+    String resolve(Player player, String placeholder);
+}
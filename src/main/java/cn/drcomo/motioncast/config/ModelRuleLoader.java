@@ -4,10 +4,18 @@ import cn.drcomo.corelib.util.DebugUtil;
 import cn.drcomo.corelib.config.YamlUtil;
 import cn.drcomo.corelib.config.ConfigValidator;
 import cn.drcomo.corelib.config.ValidationResult;
+import cn.drcomo.corelib.hook.placeholder.parse.ParseException;
+import cn.drcomo.motioncast.condition.ConditionCompiler;
+import cn.drcomo.motioncast.condition.PlaceholderCostModel;
+import cn.drcomo.motioncast.cooldown.CooldownSlotIndex;
 import cn.drcomo.motioncast.rules.ActionRule;
 import cn.drcomo.motioncast.rules.ActionType;
 import cn.drcomo.motioncast.rules.TriggerWhen;
 import cn.drcomo.motioncast.rules.RuleMeta;
+import cn.drcomo.motioncast.rules.RuleGeneration;
+import cn.drcomo.motioncast.rules.CastPriority;
+import cn.drcomo.motioncast.targetfunction.CompiledTargetSelector;
+import cn.drcomo.motioncast.targetfunction.TargeterRegistry;
 
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.EntityType;
@@ -16,18 +24,21 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * 模型规则加载器
  * 负责从YAML文件加载、解析和管理所有的动作规则
  */
-public class ModelRuleLoader {
+public class ModelRuleLoader implements CooldownSlotIndex {
     
     private final JavaPlugin plugin;
     private final YamlUtil yamlUtil;
     private final DebugUtil logger;
     private final ConfigValidator configValidator;
+    private final TargeterRegistry targeterRegistry;
     
     // 存储所有已加载的规则 - 线程安全
     private final Map<String, List<ActionRule>> modelRules = new ConcurrentHashMap<>();
@@ -35,16 +46,67 @@ public class ModelRuleLoader {
     // 规则索引 - 用于快速查询
     private final Map<String, Map<ActionType, Map<TriggerWhen, List<ActionRule>>>> ruleIndex = new ConcurrentHashMap<>();
     
+    // 含目标选择器的规则所在的触发时机（模型 -> 动作 -> 时机集合），每次重建索引时整体替换
+    private volatile Map<String, Map<ActionType, Set<TriggerWhen>>> targetedIndex = Collections.emptyMap();
+    
     // 文件监控句柄
     private final Map<String, YamlUtil.ConfigWatchHandle> watchHandles = new ConcurrentHashMap<>();
     
-    public ModelRuleLoader(JavaPlugin plugin, YamlUtil yamlUtil, DebugUtil logger) {
+    // 按唯一键索引的规则（每次重建索引时整体替换）
+    private volatile Map<String, ActionRule> rulesByKey = Collections.emptyMap();
+    
+    // 当前代各冷却槽的标识（规则唯一键、组键、全局通道键），用于重载时生成槽位映射
+    private static final String GROUP_SLOT_PREFIX = "@group:";
+    private static final String GLOBAL_SLOT_KEY = "@global";
+    private Map<String, Integer> slotsByKey = Collections.emptyMap();
+    
+    // 当前规则代数：每次重建索引派生新一代，序号在 [0, capacity) 内稠密分配
+    private volatile RuleGeneration currentGeneration = RuleGeneration.initial();
+    
+    // 代数变更监听（在重建索引的线程上调用，即主线程）
+    private final List<Consumer<RuleGeneration>> generationListeners = new CopyOnWriteArrayList<>();
+    
+    // 占位符成本模型：条件编译时按成本重排子句，运行期由占位符缓存写入实测耗时
+    private static final String COST_PROFILE_FILE = "data/placeholder_costs.yml";
+    private final PlaceholderCostModel costModel = new PlaceholderCostModel();
+    
+    public ModelRuleLoader(JavaPlugin plugin, YamlUtil yamlUtil, DebugUtil logger, TargeterRegistry targeterRegistry) {
         this.plugin = plugin;
         this.yamlUtil = yamlUtil;
         this.logger = logger;
+        this.targeterRegistry = targeterRegistry;
         this.configValidator = new ConfigValidator(yamlUtil, logger);
         
         initializeValidator();
+        loadCostProfile();
+    }
+    
+    /**
+     * 读取上次运行保存的占位符成本数据，供条件子句排序使用
+     */
+    private void loadCostProfile() {
+        try {
+            int count = costModel.load(new File(plugin.getDataFolder(), COST_PROFILE_FILE));
+            if (count > 0) {
+                logger.debug("已读取 " + count + " 个占位符的成本数据");
+            }
+        } catch (Exception e) {
+            logger.warn("读取占位符成本数据失败，将使用默认成本: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 保存占位符成本数据
+     */
+    private void saveCostProfile() {
+        if (costModel.size() == 0) {
+            return;
+        }
+        try {
+            costModel.save(new File(plugin.getDataFolder(), COST_PROFILE_FILE));
+        } catch (Exception e) {
+            logger.warn("保存占位符成本数据失败: " + e.getMessage());
+        }
     }
     
     /**
@@ -68,8 +130,9 @@ public class ModelRuleLoader {
             logger.warn("复制默认 models 资源失败: " + e.getMessage());
         }
 
-        // 3) 清空现有数据
+        // 3) 清空现有数据；目标选择器重新绑定
         clearAllRules();
+        targeterRegistry.clearCompiledSelectors();
 
         // 4) 遍历加载数据目录 models/ 下的全部 yml
         Map<String, org.bukkit.configuration.file.YamlConfiguration> configs;
@@ -77,11 +140,13 @@ public class ModelRuleLoader {
             configs = yamlUtil.loadAllConfigsInFolder("models");
         } catch (Exception e) {
             logger.error("扫描 models 目录失败: " + e.getMessage());
+            rebuildRuleIndex();
             return;
         }
 
         if (configs == null || configs.isEmpty()) {
             logger.warn("models 目录下没有找到任何配置文件");
+            rebuildRuleIndex();
             return;
         }
 
@@ -287,6 +352,16 @@ public class ModelRuleLoader {
                     errors.add("cd 必须为>=0的整数: rules." + i + ".cd");
                 }
 
+                Integer gcdVal = getInteger(rs, "gcd");
+                if (gcdVal != null && gcdVal.intValue() < 0) {
+                    errors.add("gcd 必须为>=0的整数: rules." + i + ".gcd");
+                }
+
+                String priorityStr = getString(rs, "priority");
+                if (priorityStr != null && CastPriority.fromString(priorityStr.trim()) == null) {
+                    errors.add("无效执行优先级: rules." + i + ".priority=" + priorityStr);
+                }
+
                 if (when == TriggerWhen.TICK) {
                     Integer everyVal = getInteger(rs, "every");
                     if (everyVal == null || everyVal.intValue() < 1) {
@@ -412,16 +487,57 @@ public class ModelRuleLoader {
         rule.setEvery(getInt(section, "every", 1));
         rule.setAfter(getInt(section, "after", 0));
         rule.setCooldown(getInt(section, "cd", 0));
+        rule.setCooldownGroup(getString(section, "cooldown_group"));
+        rule.setGlobalCooldown(getInt(section, "gcd", 0));
         rule.setTarget(getString(section, "target"));
         rule.setRequire(getString(section, "require"));
 
+        // 目标选择器在加载时绑定解析器，不受支持的选择器在此报告
+        CompiledTargetSelector targetSelector = targeterRegistry.compile(rule.getTarget());
+        if (targetSelector != null && !targetSelector.isSupported()) {
+            logger.warn("规则 " + idStr + " 的目标选择器不受支持: " + targetSelector.getSource() + "，触发时将不传递目标");
+        }
+        rule.setTargetSelector(targetSelector);
+
+        // 条件表达式在加载时编译，语法错误的规则直接拒绝
+        String require = rule.getRequire();
+        if (require != null && !require.trim().isEmpty()) {
+            try {
+                rule.setCondition(ConditionCompiler.compile(require, costModel));
+            } catch (ParseException e) {
+                logger.error("规则 " + idStr + " 的条件表达式无效: " + e.getMessage());
+                return null;
+            }
+        }
+
         // 解析元数据
         RuleMeta meta = parseMeta(getMap(section, "meta"));
         rule.setMeta(meta);
 
+        // 执行优先级：绑定原始事件或需要取消事件的规则必须在事件内同步执行
+        rule.setPriority(parsePriority(idStr, action, meta, getString(section, "priority")));
+
         return rule;
     }
     
+    /**
+     * 解析执行优先级；未配置时为 immediate，只有显式配置的规则才会延后执行
+     * attack、damaged 与取消事件的规则必须在事件内执行，配置为可延后的优先级时改回 immediate
+     */
+    private CastPriority parsePriority(String ruleId, ActionType action, RuleMeta meta, String priorityStr) {
+        boolean eventBound = action == ActionType.ATTACK || action == ActionType.DAMAGED
+                || (meta != null && meta.isCancelEvent());
+        CastPriority priority = priorityStr != null ? CastPriority.fromString(priorityStr.trim()) : null;
+        if (priority == null) {
+            return CastPriority.IMMEDIATE;
+        }
+        if (eventBound && priority.isDeferrable()) {
+            logger.warn("规则 " + ruleId + " 需要在事件内同步执行，priority=" + priority + " 已改为 immediate");
+            return CastPriority.IMMEDIATE;
+        }
+        return priority;
+    }
+    
     /**
      * 解析规则元数据
      */
@@ -513,8 +629,23 @@ public class ModelRuleLoader {
     private void rebuildRuleIndex() {
         ruleIndex.clear();
         
+        Map<String, ActionRule> byKey = new HashMap<>();
+        Map<String, Map<ActionType, Set<TriggerWhen>>> targeted = new HashMap<>();
+        Map<String, Integer> slots = new HashMap<>();
+        List<ActionRule> grouped = new ArrayList<>();
+        int nextOrdinal = 0;
         for (List<ActionRule> rules : modelRules.values()) {
             for (ActionRule rule : rules) {
+                // 分配稠密序号，供冷却表等按数组下标访问
+                int ordinal = nextOrdinal++;
+                rule.setOrdinal(ordinal);
+                rule.setCooldownSlot(ordinal);
+                byKey.put(rule.getUniqueKey(), rule);
+                slots.put(rule.getUniqueKey(), ordinal);
+                if (rule.hasCooldownGroup()) {
+                    grouped.add(rule);
+                }
+                
                 String modelId = rule.getModelId();
                 ActionType action = rule.getAction();
                 TriggerWhen when = rule.getWhen();
@@ -523,10 +654,55 @@ public class ModelRuleLoader {
                          .computeIfAbsent(action, k -> new ConcurrentHashMap<>())
                          .computeIfAbsent(when, k -> new ArrayList<>())
                          .add(rule);
+                if (rule.hasTarget()) {
+                    targeted.computeIfAbsent(modelId, k -> new EnumMap<>(ActionType.class))
+                            .computeIfAbsent(action, k -> EnumSet.noneOf(TriggerWhen.class))
+                            .add(when);
+                }
             }
         }
         
-        logger.debug("规则索引重建完成");
+        // 冷却组槽紧随规则序号之后分配（同模型内同名共享），最后一个槽为全局冷却通道
+        int nextSlot = nextOrdinal;
+        for (ActionRule rule : grouped) {
+            String groupKey = getCooldownSlotKey(rule);
+            Integer slot = slots.get(groupKey);
+            if (slot == null) {
+                slot = nextSlot++;
+                slots.put(groupKey, slot);
+            }
+            rule.setCooldownSlot(slot);
+        }
+        int globalSlot = nextSlot++;
+        slots.put(GLOBAL_SLOT_KEY, globalSlot);
+        
+        // 上一代槽位 -> 新槽位，按规则唯一键/组键对应；已删除的映射为 -1
+        RuleGeneration previous = currentGeneration;
+        int[] remap = new int[previous.getCapacity()];
+        Arrays.fill(remap, -1);
+        for (Map.Entry<String, Integer> entry : slotsByKey.entrySet()) {
+            Integer slot = slots.get(entry.getKey());
+            int oldSlot = entry.getValue();
+            if (slot != null && oldSlot < remap.length) {
+                remap[oldSlot] = slot;
+            }
+        }
+        
+        rulesByKey = byKey;
+        targetedIndex = targeted;
+        slotsByKey = slots;
+        RuleGeneration generation = previous.advance(nextSlot, globalSlot, remap);
+        currentGeneration = generation;
+        
+        logger.debug("规则索引重建完成: " + generation + "，冷却组数: " + (globalSlot - nextOrdinal));
+        
+        for (Consumer<RuleGeneration> listener : generationListeners) {
+            try {
+                listener.accept(generation);
+            } catch (Exception e) {
+                logger.error("处理规则代数变更时发生异常: " + e.getMessage());
+            }
+        }
     }
     
     /**
@@ -547,6 +723,19 @@ public class ModelRuleLoader {
         return rules != null ? new ArrayList<>(rules) : Collections.emptyList();
     }
     
+    /**
+     * 检查指定模型、动作与时机的规则中是否有规则指定了目标选择器
+     * 引擎据此决定是否需要创建目标解析上下文
+     */
+    public boolean hasTargetedRules(String modelId, ActionType action, TriggerWhen when) {
+        Map<ActionType, Set<TriggerWhen>> modelIndex = targetedIndex.get(modelId);
+        if (modelIndex == null) {
+            return false;
+        }
+        Set<TriggerWhen> whens = modelIndex.get(action);
+        return whens != null && whens.contains(when);
+    }
+    
     /**
      * 获取指定模型的所有规则
      */
@@ -567,6 +756,97 @@ public class ModelRuleLoader {
                 .collect(Collectors.toSet());
     }
     
+    /**
+     * 按唯一键（modelId:ruleId）获取规则，不存在时返回 null
+     */
+    public ActionRule getRuleByKey(String uniqueKey) {
+        return rulesByKey.get(uniqueKey);
+    }
+    
+    /**
+     * 获取规则冷却槽的标识：冷却组内的规则为组键，其余为规则唯一键
+     * 标识在重载、重启与子服之间保持不变，用于冷却同步
+     */
+    @Override
+    public String getCooldownSlotKey(ActionRule rule) {
+        return rule.hasCooldownGroup()
+                ? GROUP_SLOT_PREFIX + rule.getModelId() + ":" + rule.getCooldownGroup()
+                : rule.getUniqueKey();
+    }
+    
+    /**
+     * 获取全局冷却通道的标识
+     */
+    @Override
+    public String getGlobalSlotKey() {
+        return GLOBAL_SLOT_KEY;
+    }
+    
+    /**
+     * 按标识获取当前代数中的冷却槽，不存在时返回 -1
+     */
+    @Override
+    public int getCooldownSlot(String slotKey) {
+        Integer slot = slotsByKey.get(slotKey);
+        return slot != null ? slot : -1;
+    }
+    
+    /**
+     * 重新绑定所有已加载规则的目标选择器（目标解析器注册或注销后调用），不受支持的选择器在此报告
+     */
+    public void rebindTargetSelectors() {
+        int rebound = 0;
+        for (ActionRule rule : getAllRules()) {
+            CompiledTargetSelector targetSelector = targeterRegistry.compile(rule.getTarget());
+            if (targetSelector == null) {
+                continue;
+            }
+            if (!targetSelector.isSupported()) {
+                logger.warn("规则 " + rule.getId() + " 的目标选择器不受支持: " + targetSelector.getSource() + "，触发时将不传递目标");
+            }
+            rule.setTargetSelector(targetSelector);
+            rebound++;
+        }
+        if (rebound > 0) {
+            logger.debug("目标解析器已变更，重新绑定 " + rebound + " 条规则的目标选择器");
+        }
+    }
+    
+    /**
+     * 获取当前已加载的所有规则
+     */
+    public Collection<ActionRule> getAllRules() {
+        return rulesByKey.values();
+    }
+    
+    /**
+     * 获取占位符成本模型
+     */
+    public PlaceholderCostModel getCostModel() {
+        return costModel;
+    }
+    
+    /**
+     * 获取当前规则代数（每次重建索引派生新一代，携带旧序号到新序号的映射）
+     */
+    public RuleGeneration getCurrentGeneration() {
+        return currentGeneration;
+    }
+    
+    /**
+     * 获取当前冷却槽容量（规则序号 + 冷却组槽 + 全局冷却通道）
+     */
+    public int getRuleCapacity() {
+        return currentGeneration.getCapacity();
+    }
+    
+    /**
+     * 注册规则代数变更监听，用于在重载后一次性迁移按序号存储的数据
+     */
+    public void addGenerationListener(Consumer<RuleGeneration> listener) {
+        generationListeners.add(listener);
+    }
+    
     /**
      * 获取规则总数
      */
@@ -593,6 +873,8 @@ public class ModelRuleLoader {
         // 清空数据
         modelRules.clear();
         ruleIndex.clear();
+        targetedIndex = Collections.emptyMap();
+        // rulesByKey 与 slotsByKey 保留至下次重建索引，作为迁移上一代槽位的依据
         
         logger.debug("已清空所有规则数据");
     }
@@ -601,6 +883,7 @@ public class ModelRuleLoader {
      * 关闭资源
      */
     public void shutdown() {
+        saveCostProfile();
         clearAllRules();
         logger.info("模型规则加载器已关闭");
     }
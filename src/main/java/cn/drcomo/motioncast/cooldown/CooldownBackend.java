@@ -0,0 +1,61 @@
+package cn.drcomo.motioncast.cooldown;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 远程冷却后端
+ * 由 RemoteSyncCooldownStore 在其单线程IO执行器上调用，实现无需考虑并发调用，但不得回调 Bukkit API
+ */
+public interface CooldownBackend {
+    
+    /**
+     * 建立连接、初始化表结构
+     */
+    void open() throws Exception;
+    
+    /**
+     * 在一个事务中写入一批变更
+     * 执行顺序：先整玩家删除，再单条删除，最后写入
+     *
+     * @param playerWipes 需删除全部冷却的玩家
+     * @param deletes 需删除的单条冷却（到期时间无意义）
+     * @param upserts 需写入或覆盖的冷却
+     */
+    void writeBatch(Collection<UUID> playerWipes, List<CooldownRecord> deletes, List<CooldownRecord> upserts) throws Exception;
+    
+    /**
+     * 读取玩家在指定时刻之后仍未过期的冷却
+     */
+    List<CooldownRecord> loadActive(UUID playerUUID, long nowMillis) throws Exception;
+    
+    /**
+     * 占用玩家，记录其冷却当前由哪个服务器负责写入
+     * 玩家仍被其他服务器占用（其离服提交尚未完成）时不占用；force 为 true 时直接接管
+     *
+     * @return 占用成功时返回 null，否则返回当前占用者标识
+     */
+    String claim(UUID playerUUID, String serverId, boolean force) throws Exception;
+    
+    /**
+     * 释放玩家占用，仅当占用者为指定服务器时生效
+     * 在该玩家的离服变更提交之后调用
+     */
+    void release(UUID playerUUID, String serverId) throws Exception;
+    
+    /**
+     * 释放指定服务器的全部占用（启动时清理上次异常退出残留的占用）
+     */
+    void releaseAll(String serverId) throws Exception;
+    
+    /**
+     * 关闭连接
+     */
+    void close();
+    
+    /**
+     * 后端名称，用于日志与统计
+     */
+    String getName();
+}
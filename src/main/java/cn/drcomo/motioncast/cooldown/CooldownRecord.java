@@ -0,0 +1,42 @@
+package cn.drcomo.motioncast.cooldown;
+
+import java.util.UUID;
+
+/**
+ * 远程冷却记录：玩家 + 冷却槽标识 + 到期墙钟毫秒
+ * 冷却槽标识为规则唯一键、冷却组键或全局冷却通道键
+ * 以墙钟时间存储，便于跨重启、跨服务器换算剩余时间
+ */
+public final class CooldownRecord {
+    
+    private final UUID playerUUID;
+    private final String slotKey;
+    private final long expireAtMillis;
+    
+    public CooldownRecord(UUID playerUUID, String slotKey, long expireAtMillis) {
+        this.playerUUID = playerUUID;
+        this.slotKey = slotKey;
+        this.expireAtMillis = expireAtMillis;
+    }
+    
+    public UUID getPlayerUUID() {
+        return playerUUID;
+    }
+    
+    public String getSlotKey() {
+        return slotKey;
+    }
+    
+    public long getExpireAtMillis() {
+        return expireAtMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "CooldownRecord{" +
+                "player=" + playerUUID +
+                ", slot='" + slotKey + '\'' +
+                ", expireAt=" + expireAtMillis +
+                '}';
+    }
+}
@@ -2,61 +2,48 @@ package cn.drcomo.motioncast.cooldown;
 
 import cn.drcomo.corelib.util.DebugUtil;
 import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.tick.TickClock;
 import org.bukkit.entity.Player;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 冷却管理服务
  * 管理规则的冷却时间，基于 playerUUID + ruleId 级别
+ * 冷却槽的读写委托给 CooldownStore：本地存储直接操作会话冷却表，远程同步存储在此之上异步同步到共享后端
+ * 本服务只负责冷却语义与统计，热路径上的读取始终只访问本地内存
  */
 public class CooldownService {
     
-    private final DebugUtil logger;
+    /**
+     * tryAcquire 返回值：预占成功（大于0的返回值表示剩余冷却tick）
+     */
+    public static final long ACQUIRED = 0L;
     
-    // 冷却数据存储: playerUUID -> (ruleUniqueKey -> expireTime)
-    private final Map<UUID, Map<String, Long>> playerCooldowns = new ConcurrentHashMap<>();
+    private final DebugUtil logger;
+    private final CooldownStore store;
+    private final TickClock tickClock;
     
     // 全局冷却统计
     private volatile long totalCooldownsSet = 0;
     private volatile long totalCooldownsChecked = 0;
     private volatile long totalCooldownsBlocked = 0;
     
-    // 清理任务执行器
-    private final ScheduledExecutorService cleanupExecutor;
-    
-    public CooldownService(DebugUtil logger) {
+    public CooldownService(DebugUtil logger, CooldownStore store, TickClock tickClock) {
         this.logger = logger;
-        
-        // 创建清理任务执行器
-        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "CooldownService-Cleanup");
-            thread.setDaemon(true);
-            return thread;
-        });
-        
-        // 启动定期清理过期冷却的任务
-        startCleanupTask();
+        this.store = store;
+        this.tickClock = tickClock;
         
         logger.debug("冷却管理服务已启动");
     }
     
     /**
-     * 启动清理任务
+     * 获取冷却存储
      */
-    private void startCleanupTask() {
-        cleanupExecutor.scheduleAtFixedRate(() -> {
-            try {
-                cleanupExpiredCooldowns();
-            } catch (Exception e) {
-                logger.error("清理过期冷却时发生异常: " + e.getMessage());
-            }
-        }, 30, 30, TimeUnit.SECONDS); // 每30秒清理一次
+    public CooldownStore getStore() {
+        return store;
     }
     
     /**
@@ -75,15 +62,61 @@ public class CooldownService {
             return; // 无冷却
         }
         
-        long expireTime = System.currentTimeMillis() + (cooldownTicks * 50L); // tick转毫秒
-        String ruleKey = rule.getUniqueKey();
-        
-        playerCooldowns.computeIfAbsent(playerUUID, k -> new ConcurrentHashMap<>())
-                      .put(ruleKey, expireTime);
+        if (!store.set(playerUUID, rule, tickClock.now() + cooldownTicks)) {
+            logger.debug("玩家 " + playerUUID + " 没有状态会话，跳过设置规则 " + rule.getId() + " 冷却");
+            return;
+        }
         
         totalCooldownsSet++;
         
-        logger.debug("为玩家 " + playerUUID + " 设置规则 " + ruleKey + " 冷却 " + cooldownTicks + " tick");
+        logger.debug("为玩家 " + playerUUID + " 设置规则 " + rule.getUniqueKey() + " 冷却 " + cooldownTicks + " tick");
+    }
+    
+    /**
+     * 原子地检查并预占规则冷却（热路径专用：一次查找完成检查与设置）
+     * 冷却槽在加载时已编译为规则自身槽或冷却组槽，检查仅为一次数组读取；设置了 gcd 的规则额外检查全局冷却通道
+     * 预占成功即视为已提交；若随后技能执行失败，调用 rollback 撤销本次预占
+     *
+     * @param nowTick 当前tick，同一次调用链中的 rollback 需传入相同值
+     * @return ACQUIRED 表示预占成功（不涉及冷却的规则直接返回 ACQUIRED）；大于0 表示被冷却阻止，值为剩余tick
+     */
+    public long tryAcquire(Player player, ActionRule rule, long nowTick) {
+        if (!rule.usesCooldownTable()) {
+            return ACQUIRED; // 无冷却
+        }
+        
+        totalCooldownsChecked++;
+        
+        long remaining = store.tryAcquire(player.getUniqueId(), rule, nowTick);
+        if (remaining > 0) {
+            totalCooldownsBlocked++;
+            return remaining;
+        }
+        if (rule.getCooldown() > 0) {
+            totalCooldownsSet++;
+        }
+        return ACQUIRED;
+    }
+    
+    /**
+     * 撤销 tryAcquire 的预占（技能执行失败或条件未通过时调用）
+     * 仅当槽位仍为本次预占写入的值时才清除
+     */
+    public void rollback(Player player, ActionRule rule, long nowTick) {
+        if (rule.getCooldown() <= 0 && rule.getGlobalCooldown() <= 0) {
+            return;
+        }
+        // 计数只统计规则自身冷却，仅有全局冷却被撤销时不调整
+        if (store.rollback(player.getUniqueId(), rule, nowTick) && rule.getCooldown() > 0) {
+            totalCooldownsSet--;
+        }
+    }
+    
+    /**
+     * 获取当前tick
+     */
+    public long currentTick() {
+        return tickClock.now();
     }
     
     /**
@@ -99,24 +132,9 @@ public class CooldownService {
     public boolean isOnCooldown(UUID playerUUID, ActionRule rule) {
         totalCooldownsChecked++;
         
-        Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-        if (playerCds == null) {
-            return false;
-        }
-        
-        String ruleKey = rule.getUniqueKey();
-        Long expireTime = playerCds.get(ruleKey);
-        if (expireTime == null) {
-            return false;
-        }
-        
-        long now = System.currentTimeMillis();
-        if (now >= expireTime) {
-            // 冷却已过期，清理
-            playerCds.remove(ruleKey);
-            if (playerCds.isEmpty()) {
-                playerCooldowns.remove(playerUUID);
-            }
+        long expireTick = store.getExpireTick(playerUUID, rule);
+        if (expireTick == 0L || tickClock.now() >= expireTick) {
+            // 已过期的槽位由时间轮在到期tick释放
             return false;
         }
         
@@ -135,24 +153,12 @@ public class CooldownService {
      * 获取规则剩余冷却时间（tick）
      */
     public int getRemainingCooldown(UUID playerUUID, ActionRule rule) {
-        Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-        if (playerCds == null) {
-            return 0;
-        }
-        
-        String ruleKey = rule.getUniqueKey();
-        Long expireTime = playerCds.get(ruleKey);
-        if (expireTime == null) {
+        long expireTick = store.getExpireTick(playerUUID, rule);
+        if (expireTick == 0L) {
             return 0;
         }
         
-        long now = System.currentTimeMillis();
-        if (now >= expireTime) {
-            return 0;
-        }
-        
-        long remainingMs = expireTime - now;
-        return (int) Math.ceil(remainingMs / 50.0); // 毫秒转tick，向上取整
+        return (int) Math.max(0L, expireTick - tickClock.now());
     }
     
     /**
@@ -166,19 +172,7 @@ public class CooldownService {
      * 获取规则剩余冷却时间（毫秒）
      */
     public long getRemainingCooldownMs(UUID playerUUID, ActionRule rule) {
-        Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-        if (playerCds == null) {
-            return 0;
-        }
-        
-        String ruleKey = rule.getUniqueKey();
-        Long expireTime = playerCds.get(ruleKey);
-        if (expireTime == null) {
-            return 0;
-        }
-        
-        long now = System.currentTimeMillis();
-        return Math.max(0, expireTime - now);
+        return getRemainingCooldown(playerUUID, rule) * 50L; // tick转毫秒
     }
     
     /**
@@ -192,16 +186,8 @@ public class CooldownService {
      * 清除玩家的单个规则冷却
      */
     public void clearCooldown(UUID playerUUID, ActionRule rule) {
-        Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-        if (playerCds != null) {
-            String ruleKey = rule.getUniqueKey();
-            if (playerCds.remove(ruleKey) != null) {
-                logger.debug("清除玩家 " + playerUUID + " 的规则 " + ruleKey + " 冷却");
-            }
-            
-            if (playerCds.isEmpty()) {
-                playerCooldowns.remove(playerUUID);
-            }
+        if (store.clear(playerUUID, rule)) {
+            logger.debug("清除玩家 " + playerUUID + " 的规则 " + rule.getUniqueKey() + " 冷却");
         }
     }
     
@@ -216,18 +202,17 @@ public class CooldownService {
      * 清除玩家的所有冷却
      */
     public void clearAllCooldowns(UUID playerUUID) {
-        Map<String, Long> removed = playerCooldowns.remove(playerUUID);
-        if (removed != null && !removed.isEmpty()) {
-            logger.debug("清除玩家 " + playerUUID + " 的所有 " + removed.size() + " 个冷却");
+        int removed = store.clearAll(playerUUID);
+        if (removed > 0) {
+            logger.debug("清除玩家 " + playerUUID + " 的所有 " + removed + " 个冷却");
         }
     }
     
     /**
-     * 清除所有玩家的所有冷却
+     * 清除所有玩家的所有冷却（仅本地内存，不影响远程数据）
      */
     public void clearAllCooldowns() {
-        int count = playerCooldowns.size();
-        playerCooldowns.clear();
+        int count = store.clearAllLocal();
         if (count > 0) {
             logger.info("清除了所有 " + count + " 个玩家的冷却数据");
         }
@@ -244,52 +229,21 @@ public class CooldownService {
      * 获取玩家当前的冷却数量
      */
     public int getPlayerCooldownCount(UUID playerUUID) {
-        Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-        return playerCds != null ? playerCds.size() : 0;
+        return store.getActiveCount(playerUUID);
     }
     
     /**
      * 获取所有玩家的总冷却数量
      */
     public int getTotalCooldownCount() {
-        return playerCooldowns.values().stream()
-                .mapToInt(Map::size)
-                .sum();
+        return store.getTotalActiveCount();
     }
     
     /**
      * 获取有冷却的玩家数量
      */
     public int getPlayersWithCooldownCount() {
-        return playerCooldowns.size();
-    }
-    
-    /**
-     * 清理过期的冷却
-     */
-    private void cleanupExpiredCooldowns() {
-        long now = System.currentTimeMillis();
-        int totalCleaned = 0;
-        
-        for (UUID playerUUID : playerCooldowns.keySet()) {
-            Map<String, Long> playerCds = playerCooldowns.get(playerUUID);
-            if (playerCds == null) continue;
-            
-            // 计算并移除过期的冷却
-            int beforeSize = playerCds.size();
-            playerCds.entrySet().removeIf(entry -> now >= entry.getValue());
-            int afterSize = playerCds.size();
-            totalCleaned += (beforeSize - afterSize);
-            
-            // 如果玩家没有冷却了，移除整个玩家条目
-            if (playerCds.isEmpty()) {
-                playerCooldowns.remove(playerUUID);
-            }
-        }
-        
-        if (totalCleaned > 0) {
-            logger.debug("清理了 " + totalCleaned + " 个过期冷却");
-        }
+        return store.getPlayersWithActiveCount();
     }
     
     /**
@@ -318,15 +272,14 @@ public class CooldownService {
      * 获取冷却统计信息
      */
     public Map<String, Object> getStatistics() {
-        Map<String, Object> stats = Map.of(
-            "有冷却的玩家数", getPlayersWithCooldownCount(),
-            "总冷却数量", getTotalCooldownCount(),
-            "累计设置冷却数", totalCooldownsSet,
-            "累计检查冷却数", totalCooldownsChecked,
-            "累计被阻止数", totalCooldownsBlocked,
-            "阻止率", totalCooldownsChecked > 0 ? 
-                String.format("%.1f%%", (double) totalCooldownsBlocked / totalCooldownsChecked * 100) : "0.0%"
-        );
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("有冷却的玩家数", getPlayersWithCooldownCount());
+        stats.put("总冷却数量", getTotalCooldownCount());
+        stats.put("累计设置冷却数", totalCooldownsSet);
+        stats.put("累计检查冷却数", totalCooldownsChecked);
+        stats.put("累计被阻止数", totalCooldownsBlocked);
+        stats.put("阻止率", totalCooldownsChecked > 0 ?
+                String.format("%.1f%%", (double) totalCooldownsBlocked / totalCooldownsChecked * 100) : "0.0%");
         
         return stats;
     }
@@ -337,19 +290,8 @@ public class CooldownService {
     public void shutdown() {
         logger.info("正在关闭冷却管理服务...");
         
-        // 停止清理任务
-        cleanupExecutor.shutdown();
-        try {
-            if (!cleanupExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                cleanupExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            cleanupExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-        
-        // 清空所有冷却数据
-        clearAllCooldowns();
+        // 由存储提交剩余的同步变更，再清空内存中的冷却数据及待触发的到期任务
+        store.shutdown();
         
         logger.info("冷却管理服务已关闭");
     }
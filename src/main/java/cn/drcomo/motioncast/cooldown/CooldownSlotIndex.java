@@ -0,0 +1,26 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.rules.ActionRule;
+
+/**
+ * 冷却槽索引
+ * 冷却槽标识（规则唯一键、冷却组键、全局冷却通道键）在重载、重启与子服之间保持不变，
+ * 槽位下标只在当前规则代数内有效；远程同步以标识读写，本地存储以下标读写
+ */
+public interface CooldownSlotIndex {
+    
+    /**
+     * 获取规则冷却槽的标识：冷却组内的规则为组键，其余为规则唯一键
+     */
+    String getCooldownSlotKey(ActionRule rule);
+    
+    /**
+     * 获取全局冷却通道的标识
+     */
+    String getGlobalSlotKey();
+    
+    /**
+     * 按标识获取当前代数中的冷却槽，不存在时返回 -1
+     */
+    int getCooldownSlot(String slotKey);
+}
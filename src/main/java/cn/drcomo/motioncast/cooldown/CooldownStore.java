@@ -0,0 +1,91 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.rules.ActionRule;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 冷却存储
+ * CooldownService 通过该接口读写冷却槽；所有方法在主线程调用
+ * 实现必须保证读操作只访问本地内存，远程同步只能以异步方式进行
+ */
+public interface CooldownStore {
+    
+    /**
+     * 检查并预占规则冷却（含冷却组与全局冷却通道）
+     *
+     * @return 0 表示预占成功；大于0 表示被阻止，值为剩余tick
+     */
+    long tryAcquire(UUID playerUUID, ActionRule rule, long nowTick);
+    
+    /**
+     * 撤销 tryAcquire 的预占
+     *
+     * @return 是否有冷却被撤销（规则自身或冷却组槽、全局冷却通道任一）
+     */
+    boolean rollback(UUID playerUUID, ActionRule rule, long nowTick);
+    
+    /**
+     * 获取规则冷却槽的到期tick，无冷却时返回0
+     */
+    long getExpireTick(UUID playerUUID, ActionRule rule);
+    
+    /**
+     * 直接写入规则冷却槽的到期tick
+     *
+     * @return 玩家没有会话时返回 false
+     */
+    boolean set(UUID playerUUID, ActionRule rule, long expireTick);
+    
+    /**
+     * 清除规则冷却槽
+     *
+     * @return 清除前是否存在冷却
+     */
+    boolean clear(UUID playerUUID, ActionRule rule);
+    
+    /**
+     * 清除玩家全部冷却
+     *
+     * @return 清除的冷却数量
+     */
+    int clearAll(UUID playerUUID);
+    
+    /**
+     * 清除所有玩家在本地内存中的冷却（不影响远程数据）
+     *
+     * @return 有冷却被清除的玩家数量
+     */
+    int clearAllLocal();
+    
+    /**
+     * 获取玩家仍在冷却中的槽位数
+     */
+    int getActiveCount(UUID playerUUID);
+    
+    /**
+     * 获取所有玩家仍在冷却中的槽位总数
+     */
+    int getTotalActiveCount();
+    
+    /**
+     * 获取有冷却的玩家数量
+     */
+    int getPlayersWithActiveCount();
+    
+    /**
+     * 启动存储（建立连接、启动后台任务等）
+     */
+    void start();
+    
+    /**
+     * 关闭存储，提交尚未同步的变更
+     */
+    void shutdown();
+    
+    /**
+     * 获取存储统计信息
+     */
+    Map<String, Object> getStatistics();
+}
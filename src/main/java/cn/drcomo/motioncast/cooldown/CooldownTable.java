@@ -0,0 +1,267 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.rules.RuleGeneration;
+import cn.drcomo.motioncast.tick.TimingWheel;
+
+import java.util.Arrays;
+
+/**
+ * 单个玩家的冷却表
+ * 以规则序号为下标的原始 long 数组，存储冷却到期的tick；0 表示无冷却
+ * 数组与规则代数绑定，规则重载后按代数链上的映射表把冷却迁移到新序号，已删除规则的冷却被丢弃
+ * 过期记录由时间轮在到期tick释放，表内只维护非零槽位计数，不做扫描
+ * 仅在主线程访问
+ */
+public class CooldownTable {
+    
+    private static final long[] EMPTY = new long[0];
+    
+    private long[] expiries = EMPTY;
+    private RuleGeneration generation;
+    private int activeCount = 0;
+    
+    /**
+     * 确保冷却表与当前规则代数一致
+     * 代数落后时沿代数链把仍存在的规则冷却迁移到新序号
+     */
+    public void ensure(RuleGeneration current) {
+        if (generation == current) {
+            return;
+        }
+        if (generation == null || activeCount == 0) {
+            // 无冷却可迁移，仅按需扩容
+            if (expiries.length < current.getCapacity()) {
+                expiries = new long[current.getCapacity()];
+            }
+            generation = current;
+            return;
+        }
+        
+        long[] migrated = new long[current.getCapacity()];
+        int migratedCount = 0;
+        for (int i = 0; i < expiries.length; i++) {
+            if (expiries[i] == 0L) continue;
+            int ordinal = RuleGeneration.translate(generation, current, i);
+            if (ordinal >= 0 && ordinal < migrated.length) {
+                migrated[ordinal] = expiries[i];
+                migratedCount++;
+            }
+        }
+        expiries = migrated;
+        activeCount = migratedCount;
+        generation = current;
+    }
+    
+    /**
+     * 获取当前绑定的规则代数
+     */
+    public RuleGeneration getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * 获取指定序号的冷却到期tick，越界或无冷却时返回0
+     */
+    public long get(int ordinal) {
+        return ordinal >= 0 && ordinal < expiries.length ? expiries[ordinal] : 0L;
+    }
+    
+    /**
+     * 设置指定序号的冷却到期tick
+     */
+    public void set(int ordinal, long expireTick) {
+        if (ordinal >= 0 && ordinal < expiries.length) {
+            if (expiries[ordinal] == 0L) activeCount++;
+            expiries[ordinal] = expireTick;
+        }
+    }
+    
+    /**
+     * 原子地检查并预占冷却
+     *
+     * @return 0 表示预占成功（已写入新的到期tick）；大于0 表示仍在冷却中的剩余tick
+     */
+    public long tryAcquire(int ordinal, long nowTick, long expireTick) {
+        if (ordinal < 0 || ordinal >= expiries.length) {
+            return 0L;
+        }
+        long current = expiries[ordinal];
+        if (current > nowTick) {
+            return current - nowTick;
+        }
+        if (current == 0L) activeCount++;
+        expiries[ordinal] = expireTick;
+        return 0L;
+    }
+    
+    /**
+     * 撤销预占：仅当槽位仍为预占时写入的到期tick才清除，避免覆盖之后的新冷却
+     *
+     * @return 是否撤销成功
+     */
+    public boolean release(int ordinal, long expectedExpireTick) {
+        if (expectedExpireTick != 0L && ordinal >= 0 && ordinal < expiries.length
+                && expiries[ordinal] == expectedExpireTick) {
+            expiries[ordinal] = 0L;
+            activeCount--;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 时间轮到期回调：将注册时的序号迁移到当前代数后，到期tick匹配则释放槽位
+     * 槽位已被清除、覆盖或规则已删除时忽略
+     *
+     * @return 是否释放了槽位
+     */
+    public boolean expire(RuleGeneration scheduledGeneration, int ordinal, long expireTick) {
+        if (generation == null) {
+            return false;
+        }
+        int current = scheduledGeneration == generation
+                ? ordinal : RuleGeneration.translate(scheduledGeneration, generation, ordinal);
+        return current >= 0 && release(current, expireTick);
+    }
+    
+    /**
+     * 清除指定序号的冷却
+     *
+     * @return 清除前是否存在冷却记录
+     */
+    public boolean clear(int ordinal) {
+        if (ordinal >= 0 && ordinal < expiries.length && expiries[ordinal] != 0L) {
+            expiries[ordinal] = 0L;
+            activeCount--;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 清除全部冷却
+     *
+     * @return 清除前的冷却记录数量
+     */
+    public int clearAll() {
+        int count = activeCount;
+        if (count > 0) {
+            Arrays.fill(expiries, 0L);
+            activeCount = 0;
+        }
+        return count;
+    }
+    
+    /**
+     * 获取仍在冷却中的记录数
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+    
+    /**
+     * 获取最晚的冷却到期tick，无冷却时返回0
+     */
+    public long latestExpiry() {
+        if (activeCount == 0) {
+            return 0L;
+        }
+        long latest = 0L;
+        for (long expiry : expiries) {
+            if (expiry > latest) latest = expiry;
+        }
+        return latest;
+    }
+    
+    /**
+     * 保存仍未到期的槽位（会话驱逐时调用）
+     *
+     * @return 快照；没有未到期的冷却时返回 null
+     */
+    public Snapshot snapshot(long nowTick) {
+        if (activeCount == 0 || generation == null) {
+            return null;
+        }
+        int count = 0;
+        for (long expiry : expiries) {
+            if (expiry > nowTick) count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+        int[] slots = new int[count];
+        long[] slotExpiries = new long[count];
+        long latest = 0L;
+        int index = 0;
+        for (int i = 0; i < expiries.length; i++) {
+            if (expiries[i] <= nowTick) continue;
+            slots[index] = i;
+            slotExpiries[index] = expiries[i];
+            latest = Math.max(latest, expiries[i]);
+            index++;
+        }
+        return new Snapshot(generation, slots, slotExpiries, latest);
+    }
+    
+    /**
+     * 恢复快照中仍未到期的槽位，并向时间轮注册到期释放
+     * 仅当当前槽位为空或更早到期时写入；快照所属代数与当前不同时沿代数链迁移
+     *
+     * @return 恢复的槽位数
+     */
+    public int restore(Snapshot snapshot, long nowTick, TimingWheel timingWheel) {
+        if (generation == null || generation.getId() < snapshot.generation.getId()) {
+            ensure(snapshot.generation);
+        }
+        RuleGeneration target = generation;
+        int restored = 0;
+        for (int i = 0; i < snapshot.slots.length; i++) {
+            long expireTick = snapshot.expiries[i];
+            if (expireTick <= nowTick) continue;
+            int ordinal = snapshot.generation == target
+                    ? snapshot.slots[i] : RuleGeneration.translate(snapshot.generation, target, snapshot.slots[i]);
+            if (ordinal < 0 || get(ordinal) >= expireTick) continue;
+            set(ordinal, expireTick);
+            timingWheel.schedule(expireTick, tick -> expire(target, ordinal, expireTick));
+            restored++;
+        }
+        return restored;
+    }
+    
+    @Override
+    public String toString() {
+        return "CooldownTable{" +
+                "generation=" + generation +
+                ", capacity=" + expiries.length +
+                ", active=" + activeCount +
+                '}';
+    }
+    
+    /**
+     * 冷却快照：离线玩家会话被驱逐后保留的未到期槽位
+     */
+    public static final class Snapshot {
+        private final RuleGeneration generation;
+        private final int[] slots;
+        private final long[] expiries;
+        private final long latestExpiry;
+        
+        private Snapshot(RuleGeneration generation, int[] slots, long[] expiries, long latestExpiry) {
+            this.generation = generation;
+            this.slots = slots;
+            this.expiries = expiries;
+            this.latestExpiry = latestExpiry;
+        }
+        
+        /**
+         * 获取最晚的到期tick，此后快照可丢弃
+         */
+        public long getLatestExpiry() {
+            return latestExpiry;
+        }
+        
+        public int size() {
+            return slots.length;
+        }
+    }
+}
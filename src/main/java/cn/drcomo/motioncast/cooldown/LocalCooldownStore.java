@@ -0,0 +1,257 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.config.ModelRuleLoader;
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.rules.RuleGeneration;
+import cn.drcomo.motioncast.state.PlayerStateManager;
+import cn.drcomo.motioncast.state.PlayerStateSession;
+import cn.drcomo.motioncast.tick.TickClock;
+import cn.drcomo.motioncast.tick.TimingWheel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 本地冷却存储
+ * 冷却数据存放在玩家会话的 CooldownTable 中，以冷却槽为下标、到期tick为值
+ * 每个冷却在设置时向共享时间轮注册到期任务，到期tick即释放槽位，不做周期性全量清理
+ */
+public class LocalCooldownStore implements CooldownStore {
+    
+    private final PlayerStateManager stateManager;
+    private final ModelRuleLoader ruleLoader;
+    private final TickClock tickClock;
+    private final TimingWheel timingWheel;
+    
+    private long totalExpired = 0;
+    
+    public LocalCooldownStore(PlayerStateManager stateManager, ModelRuleLoader ruleLoader, TickClock tickClock) {
+        this.stateManager = stateManager;
+        this.ruleLoader = ruleLoader;
+        this.tickClock = tickClock;
+        this.timingWheel = tickClock.getTimingWheel();
+    }
+    
+    @Override
+    public long tryAcquire(UUID playerUUID, ActionRule rule, long nowTick) {
+        CooldownTable table = tableOf(playerUUID);
+        if (table == null) {
+            return 0L;
+        }
+        
+        // 全局冷却通道
+        int gcdTicks = rule.getGlobalCooldown();
+        int globalSlot = table.getGeneration().getGlobalSlot();
+        if (gcdTicks > 0) {
+            long laneRemaining = table.get(globalSlot) - nowTick;
+            if (laneRemaining > 0) {
+                return laneRemaining;
+            }
+        }
+        
+        // 规则/冷却组槽：无自身冷却的组内规则只检查不占用
+        int slot = rule.getCooldownSlot();
+        int cooldownTicks = rule.getCooldown();
+        long remaining;
+        if (cooldownTicks > 0) {
+            remaining = table.tryAcquire(slot, nowTick, nowTick + cooldownTicks);
+        } else {
+            remaining = Math.max(0L, table.get(slot) - nowTick);
+        }
+        if (remaining > 0) {
+            return remaining;
+        }
+        
+        // 回滚后残留的到期任务会因到期tick不匹配而被忽略
+        if (cooldownTicks > 0) {
+            scheduleExpiry(table, slot, nowTick + cooldownTicks);
+        }
+        if (gcdTicks > 0) {
+            table.set(globalSlot, nowTick + gcdTicks);
+            scheduleExpiry(table, globalSlot, nowTick + gcdTicks);
+        }
+        return 0L;
+    }
+    
+    @Override
+    public boolean rollback(UUID playerUUID, ActionRule rule, long nowTick) {
+        CooldownTable table = tableOf(playerUUID);
+        if (table == null) {
+            return false;
+        }
+        boolean released = false;
+        int gcdTicks = rule.getGlobalCooldown();
+        if (gcdTicks > 0) {
+            released = table.release(table.getGeneration().getGlobalSlot(), nowTick + gcdTicks);
+        }
+        int cooldownTicks = rule.getCooldown();
+        if (cooldownTicks > 0 && table.release(rule.getCooldownSlot(), nowTick + cooldownTicks)) {
+            released = true;
+        }
+        return released;
+    }
+    
+    @Override
+    public long getExpireTick(UUID playerUUID, ActionRule rule) {
+        CooldownTable table = tableOf(playerUUID);
+        return table != null ? table.get(rule.getCooldownSlot()) : 0L;
+    }
+    
+    @Override
+    public boolean set(UUID playerUUID, ActionRule rule, long expireTick) {
+        CooldownTable table = tableOf(playerUUID);
+        if (table == null) {
+            return false;
+        }
+        table.set(rule.getCooldownSlot(), expireTick);
+        scheduleExpiry(table, rule.getCooldownSlot(), expireTick);
+        return true;
+    }
+    
+    /**
+     * 获取全局冷却通道的到期tick，无冷却时返回0
+     */
+    public long getGlobalExpireTick(UUID playerUUID) {
+        CooldownTable table = tableOf(playerUUID);
+        return table != null ? table.get(table.getGeneration().getGlobalSlot()) : 0L;
+    }
+    
+    /**
+     * 恢复远程或持久化的冷却槽（规则槽、冷却组槽或全局冷却通道）
+     * 仅当当前槽位为空或更早到期时写入，避免覆盖内存中更新的冷却
+     *
+     * @param slot 当前代数中的冷却槽
+     * @param remainingTicks 剩余冷却tick
+     * @return 是否写入
+     */
+    public boolean restoreSlot(UUID playerUUID, int slot, long remainingTicks) {
+        CooldownTable table = tableOf(playerUUID);
+        if (table == null || slot < 0 || remainingTicks <= 0) {
+            return false;
+        }
+        long expireTick = tickClock.now() + remainingTicks;
+        if (table.get(slot) >= expireTick) {
+            return false;
+        }
+        table.set(slot, expireTick);
+        scheduleExpiry(table, slot, expireTick);
+        return true;
+    }
+    
+    @Override
+    public boolean clear(UUID playerUUID, ActionRule rule) {
+        CooldownTable table = tableOf(playerUUID);
+        return table != null && table.clear(rule.getCooldownSlot());
+    }
+    
+    @Override
+    public int clearAll(UUID playerUUID) {
+        stateManager.discardParkedCooldowns(playerUUID);
+        PlayerStateSession session = stateManager.getSession(playerUUID);
+        return session != null ? session.getCooldownTable().clearAll() : 0;
+    }
+    
+    @Override
+    public int clearAllLocal() {
+        int count = 0;
+        for (PlayerStateSession session : stateManager.getAllSessions()) {
+            if (session.getCooldownTable().clearAll() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int getActiveCount(UUID playerUUID) {
+        PlayerStateSession session = stateManager.getSession(playerUUID);
+        return session != null ? session.getCooldownTable().getActiveCount() : 0;
+    }
+    
+    @Override
+    public int getTotalActiveCount() {
+        int total = 0;
+        for (PlayerStateSession session : stateManager.getAllSessions()) {
+            total += session.getCooldownTable().getActiveCount();
+        }
+        return total;
+    }
+    
+    @Override
+    public int getPlayersWithActiveCount() {
+        int count = 0;
+        for (PlayerStateSession session : stateManager.getAllSessions()) {
+            if (session.getCooldownTable().getActiveCount() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public void start() {
+        // 本地存储无需启动
+    }
+    
+    @Override
+    public void shutdown() {
+        clearAllLocal();
+        timingWheel.clear();
+    }
+    
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("类型", "本地");
+        stats.put("累计到期释放数", totalExpired);
+        stats.put("时间轮待触发数", timingWheel.getPendingCount());
+        return stats;
+    }
+    
+    /**
+     * 获取玩家的冷却表，并确保其与当前规则代数一致
+     * 玩家没有会话时返回 null
+     */
+    private CooldownTable tableOf(UUID playerUUID) {
+        PlayerStateSession session = stateManager.getSession(playerUUID);
+        if (session == null) {
+            return null;
+        }
+        CooldownTable table = session.getCooldownTable();
+        table.ensure(ruleLoader.getCurrentGeneration());
+        return table;
+    }
+    
+    /**
+     * 向时间轮注册冷却到期任务
+     */
+    private void scheduleExpiry(CooldownTable table, int slot, long expireTick) {
+        timingWheel.schedule(expireTick, new CooldownExpiry(table, table.getGeneration(), slot, expireTick));
+    }
+    
+    /**
+     * 冷却到期任务：到期tick释放对应槽位
+     * 记录注册时的规则代数，规则重载后由冷却表沿代数链换算到新序号
+     */
+    private final class CooldownExpiry implements TimingWheel.Timeout {
+        private final CooldownTable table;
+        private final RuleGeneration generation;
+        private final int slot;
+        private final long expireTick;
+        
+        CooldownExpiry(CooldownTable table, RuleGeneration generation, int slot, long expireTick) {
+            this.table = table;
+            this.generation = generation;
+            this.slot = slot;
+            this.expireTick = expireTick;
+        }
+        
+        @Override
+        public void expire(long tick) {
+            if (table.expire(generation, slot, expireTick)) {
+                totalExpired++;
+            }
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.tick.TickClock;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 远程同步冷却存储
+ * 所有读写先落在本地存储，热路径只访问本地；变更在主线程按 玩家+冷却槽 合并（规则槽、冷却组槽与全局冷却通道），
+ * 定时或达到批量阈值时交换出整批，在独立IO线程提交给远程后端
+ * 玩家入服时在IO线程占用该玩家并预读其未过期的冷却，再回到主线程写入本地；离服时立即提交该批变更并释放占用。
+ * 玩家仍被上一服务器占用（其离服提交尚未完成）时按间隔重试预读，超时后直接接管
+ * 到期时间以墙钟毫秒同步，跨服务器时依赖各服时钟一致
+ */
+public class RemoteSyncCooldownStore implements CooldownStore, Listener {
+    
+    // 待写入值为该标记时表示删除
+    private static final long DELETE_MARK = 0L;
+    
+    private final Plugin plugin;
+    private final DebugUtil logger;
+    private final CooldownSlotIndex slotIndex;
+    private final TickClock tickClock;
+    private final LocalCooldownStore local;
+    // 墙钟毫秒来源与主线程任务入口
+    private final LongSupplier wallClock;
+    private final Executor mainThread;
+    
+    // 配置
+    private boolean enabled = false;
+    private String backendType = "sqlite";
+    private String databaseFile = "data/cooldowns.db";
+    private int flushIntervalTicks = 100;
+    private int maxBatchSize = 500;
+    private int minCooldownTicks = 200;
+    private String serverId = "";
+    private int loadRetryMillis = 250;
+    private int loadTimeoutMillis = 3000;
+    
+    // 运行期资源
+    private CooldownBackend backend;
+    private ScheduledExecutorService ioExecutor;
+    private BukkitTask flushTask;
+    private volatile boolean ready = false;
+    
+    // 本服在线玩家（主线程写入，IO线程读取），离服后中止尚在重试的预读
+    private final Set<UUID> joinedPlayers = ConcurrentHashMap.newKeySet();
+    
+    // 主线程合并缓冲：玩家 -> (冷却槽标识 -> 到期毫秒，DELETE_MARK 表示删除)
+    private Map<UUID, Map<String, Long>> pendingWrites = new HashMap<>();
+    private Set<UUID> pendingWipes = new HashSet<>();
+    private int pendingCount = 0;
+    
+    // 统计信息（IO线程写入）
+    private final AtomicLong totalFlushes = new AtomicLong(0);
+    private final AtomicLong totalRowsWritten = new AtomicLong(0);
+    private final AtomicLong totalFlushMillis = new AtomicLong(0);
+    private final AtomicLong failedFlushes = new AtomicLong(0);
+    private final AtomicLong totalLoads = new AtomicLong(0);
+    private final AtomicLong totalRowsLoaded = new AtomicLong(0);
+    private final AtomicLong loadRetries = new AtomicLong(0);
+    private final AtomicLong loadTakeovers = new AtomicLong(0);
+    private volatile int lastBatchSize = 0;
+    private volatile int maxObservedBatchSize = 0;
+    private volatile long lastFlushMillis = 0;
+    private volatile long lastLoadMillis = 0;
+    private long totalRecorded = 0;
+    
+    public RemoteSyncCooldownStore(Plugin plugin, DebugUtil logger, CooldownSlotIndex slotIndex,
+                                   TickClock tickClock, LocalCooldownStore local) {
+        this.plugin = plugin;
+        this.logger = logger;
+        this.slotIndex = slotIndex;
+        this.tickClock = tickClock;
+        this.local = local;
+        this.wallClock = System::currentTimeMillis;
+        this.mainThread = task -> Bukkit.getScheduler().runTask(plugin, task);
+        
+        loadConfiguration();
+    }
+    
+    /**
+     * 以指定的服务器标识、墙钟与主线程入口创建已启用的同步存储，不读取配置（测试用）
+     */
+    RemoteSyncCooldownStore(DebugUtil logger, CooldownSlotIndex slotIndex, TickClock tickClock,
+                            LocalCooldownStore local, String serverId, LongSupplier wallClock, Executor mainThread) {
+        this.plugin = null;
+        this.logger = logger;
+        this.slotIndex = slotIndex;
+        this.tickClock = tickClock;
+        this.local = local;
+        this.wallClock = wallClock;
+        this.mainThread = mainThread;
+        this.enabled = true;
+        this.serverId = serverId;
+    }
+    
+    /**
+     * 从 settings.yml 读取同步配置
+     */
+    private void loadConfiguration() {
+        try {
+            int cfgFlushIntervalTicks = flushIntervalTicks;
+            int cfgMaxBatchSize = maxBatchSize;
+            int cfgMinCooldownTicks = minCooldownTicks;
+            int cfgLoadRetryMillis = loadRetryMillis;
+            int cfgLoadTimeoutMillis = loadTimeoutMillis;
+            if (plugin instanceof cn.drcomo.motioncast.DrcomoMotionCast) {
+                cn.drcomo.corelib.config.YamlUtil yaml = ((cn.drcomo.motioncast.DrcomoMotionCast) plugin).getYamlUtil();
+                if (yaml != null) {
+                    enabled = yaml.getBoolean("settings", "cooldown.sync.enabled", enabled);
+                    backendType = yaml.getString("settings", "cooldown.sync.backend", backendType);
+                    databaseFile = yaml.getString("settings", "cooldown.sync.file", databaseFile);
+                    cfgFlushIntervalTicks = yaml.getInt("settings", "cooldown.sync.flush_interval_ticks", cfgFlushIntervalTicks);
+                    cfgMaxBatchSize = yaml.getInt("settings", "cooldown.sync.max_batch_size", cfgMaxBatchSize);
+                    cfgMinCooldownTicks = yaml.getInt("settings", "cooldown.sync.min_cooldown_ticks", cfgMinCooldownTicks);
+                    serverId = yaml.getString("settings", "cooldown.sync.server_id", serverId);
+                    cfgLoadRetryMillis = yaml.getInt("settings", "cooldown.sync.load_retry_ms", cfgLoadRetryMillis);
+                    cfgLoadTimeoutMillis = yaml.getInt("settings", "cooldown.sync.load_timeout_ms", cfgLoadTimeoutMillis);
+                }
+            }
+            configure(cfgFlushIntervalTicks, cfgMaxBatchSize, cfgMinCooldownTicks, cfgLoadRetryMillis, cfgLoadTimeoutMillis);
+            if (serverId == null || serverId.trim().isEmpty()) {
+                // 共享同一 SQLite 文件的子服位于同一主机，端口可区分且重启后保持不变
+                serverId = "port-" + Bukkit.getPort();
+            }
+            serverId = serverId.trim();
+            if (databaseFile == null || databaseFile.trim().isEmpty()) {
+                databaseFile = "data/cooldowns.db";
+            }
+            backendType = backendType == null ? "sqlite" : backendType.trim().toLowerCase();
+        } catch (Exception e) {
+            logger.error("加载冷却同步配置时出现错误，将使用默认值: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 更新提交与预读参数
+     */
+    void configure(int flushIntervalTicks, int maxBatchSize, int minCooldownTicks, int loadRetryMillis, int loadTimeoutMillis) {
+        this.flushIntervalTicks = Math.max(1, flushIntervalTicks);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.minCooldownTicks = Math.max(1, minCooldownTicks);
+        this.loadRetryMillis = Math.max(50, loadRetryMillis);
+        this.loadTimeoutMillis = Math.max(0, loadTimeoutMillis);
+    }
+    
+    /**
+     * 是否启用远程同步（未启用时应直接使用本地存储）
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 按配置创建远程后端
+     */
+    private CooldownBackend createBackend() {
+        switch (backendType) {
+            case "sqlite":
+                return new SQLiteCooldownBackend(plugin, databaseFile);
+            default:
+                logger.warn("未知的冷却同步后端: " + backendType + "，已回退为 sqlite");
+                return new SQLiteCooldownBackend(plugin, databaseFile);
+        }
+    }
+    
+    /**
+     * 启动同步：在IO线程打开后端，并在主线程启动定时提交
+     */
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.debug("冷却同步未启用");
+            return;
+        }
+        
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "CooldownSync-IO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startBackend(createBackend(), executor);
+        
+        flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flush, flushIntervalTicks, flushIntervalTicks);
+    }
+    
+    /**
+     * 在给定的IO执行器上打开后端；定时提交由调用方负责
+     */
+    void startBackend(CooldownBackend backend, ScheduledExecutorService executor) {
+        this.backend = backend;
+        this.ioExecutor = executor;
+        ioExecutor.execute(() -> {
+            try {
+                backend.open();
+                // 清理本服上次异常退出时残留的占用
+                backend.releaseAll(serverId);
+                ready = true;
+                logger.info("冷却同步已启动: " + backend.getName() + "，服务器标识: " + serverId);
+            } catch (Exception e) {
+                logger.error("冷却同步后端初始化失败，本次运行仅使用本地冷却: " + e.getMessage());
+            }
+        });
+    }
+    
+    // ========== 冷却读写：全部先作用于本地存储 ==========
+    
+    @Override
+    public long tryAcquire(UUID playerUUID, ActionRule rule, long nowTick) {
+        long remaining = local.tryAcquire(playerUUID, rule, nowTick);
+        if (remaining == 0L) {
+            syncRule(playerUUID, rule);
+        }
+        return remaining;
+    }
+    
+    @Override
+    public boolean rollback(UUID playerUUID, ActionRule rule, long nowTick) {
+        boolean released = local.rollback(playerUUID, rule, nowTick);
+        if (released) {
+            syncRule(playerUUID, rule);
+        }
+        return released;
+    }
+    
+    @Override
+    public long getExpireTick(UUID playerUUID, ActionRule rule) {
+        return local.getExpireTick(playerUUID, rule);
+    }
+    
+    @Override
+    public boolean set(UUID playerUUID, ActionRule rule, long expireTick) {
+        boolean written = local.set(playerUUID, rule, expireTick);
+        if (written && shouldSync(rule.getCooldown())) {
+            syncSlot(playerUUID, slotIndex.getCooldownSlotKey(rule), expireTick);
+        }
+        return written;
+    }
+    
+    @Override
+    public boolean clear(UUID playerUUID, ActionRule rule) {
+        boolean cleared = local.clear(playerUUID, rule);
+        if (cleared && shouldSync(rule.getCooldown())) {
+            record(playerUUID, slotIndex.getCooldownSlotKey(rule), DELETE_MARK);
+        }
+        return cleared;
+    }
+    
+    @Override
+    public int clearAll(UUID playerUUID) {
+        if (enabled) {
+            // 同时丢弃该玩家尚未提交的写入
+            Map<String, Long> dropped = pendingWrites.remove(playerUUID);
+            if (dropped != null) {
+                pendingCount -= dropped.size();
+            }
+            if (pendingWipes.add(playerUUID)) {
+                pendingCount++;
+            }
+        }
+        return local.clearAll(playerUUID);
+    }
+    
+    @Override
+    public int clearAllLocal() {
+        return local.clearAllLocal();
+    }
+    
+    @Override
+    public int getActiveCount(UUID playerUUID) {
+        return local.getActiveCount(playerUUID);
+    }
+    
+    @Override
+    public int getTotalActiveCount() {
+        return local.getTotalActiveCount();
+    }
+    
+    @Override
+    public int getPlayersWithActiveCount() {
+        return local.getPlayersWithActiveCount();
+    }
+    
+    // ========== 合并缓冲与批量提交 ==========
+    
+    /**
+     * 是否需要同步该时长的冷却（仅长冷却）
+     */
+    private boolean shouldSync(int cooldownTicks) {
+        return enabled && cooldownTicks >= minCooldownTicks;
+    }
+    
+    /**
+     * 同步规则涉及的冷却槽：规则自身（或冷却组）槽与全局冷却通道
+     * 记录本地槽位的当前值，预占与撤销都能正确反映到远程
+     */
+    private void syncRule(UUID playerUUID, ActionRule rule) {
+        if (shouldSync(rule.getCooldown())) {
+            syncSlot(playerUUID, slotIndex.getCooldownSlotKey(rule), local.getExpireTick(playerUUID, rule));
+        }
+        if (shouldSync(rule.getGlobalCooldown())) {
+            syncSlot(playerUUID, slotIndex.getGlobalSlotKey(), local.getGlobalExpireTick(playerUUID));
+        }
+    }
+    
+    /**
+     * 将本地槽位的到期tick换算为墙钟毫秒记入缓冲，槽位为空或已到期时记为删除
+     */
+    private void syncSlot(UUID playerUUID, String slotKey, long expireTick) {
+        long remainingTicks = expireTick - tickClock.now();
+        record(playerUUID, slotKey, remainingTicks > 0 ? wallClock.getAsLong() + remainingTicks * 50L : DELETE_MARK);
+    }
+    
+    private void record(UUID playerUUID, String slotKey, long expireAtMillis) {
+        Map<String, Long> writes = pendingWrites.computeIfAbsent(playerUUID, k -> new HashMap<>());
+        if (writes.put(slotKey, expireAtMillis) == null) {
+            pendingCount++;
+        }
+        totalRecorded++;
+        if (pendingCount >= maxBatchSize) {
+            flush();
+        }
+    }
+    
+    /**
+     * 交换出当前合并缓冲并提交到IO线程（主线程）
+     */
+    public void flush() {
+        if (!enabled || ioExecutor == null || pendingCount == 0) {
+            return;
+        }
+        
+        Map<UUID, Map<String, Long>> writes = pendingWrites;
+        Set<UUID> wipes = pendingWipes;
+        pendingWrites = new HashMap<>();
+        pendingWipes = new HashSet<>();
+        pendingCount = 0;
+        
+        List<CooldownRecord> upserts = new ArrayList<>();
+        List<CooldownRecord> deletes = new ArrayList<>();
+        for (Map.Entry<UUID, Map<String, Long>> entry : writes.entrySet()) {
+            for (Map.Entry<String, Long> write : entry.getValue().entrySet()) {
+                CooldownRecord record = new CooldownRecord(entry.getKey(), write.getKey(), write.getValue());
+                if (write.getValue() == DELETE_MARK) {
+                    deletes.add(record);
+                } else {
+                    upserts.add(record);
+                }
+            }
+        }
+        
+        ioExecutor.execute(() -> writeBatch(wipes, deletes, upserts));
+    }
+    
+    /**
+     * 向后端提交一批变更（IO线程）
+     */
+    private void writeBatch(Set<UUID> playerWipes, List<CooldownRecord> deletes, List<CooldownRecord> upserts) {
+        if (!ready) {
+            failedFlushes.incrementAndGet();
+            return;
+        }
+        int batchSize = playerWipes.size() + deletes.size() + upserts.size();
+        long start = System.nanoTime();
+        try {
+            backend.writeBatch(playerWipes, deletes, upserts);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            totalFlushes.incrementAndGet();
+            totalRowsWritten.addAndGet(batchSize);
+            totalFlushMillis.addAndGet(elapsed);
+            lastBatchSize = batchSize;
+            lastFlushMillis = elapsed;
+            if (batchSize > maxObservedBatchSize) {
+                maxObservedBatchSize = batchSize;
+            }
+            logger.debug("冷却同步提交完成: " + batchSize + " 条，耗时 " + elapsed + "ms");
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            logger.error("冷却同步提交失败（" + batchSize + " 条）: " + e.getMessage());
+        }
+    }
+    
+    // ========== 入服预读 / 离服提交 ==========
+    
+    /**
+     * 玩家入服时预读其未过期的冷却
+     * IO线程为单线程，预读会排在本服此前已提交的变更之后；其他子服的离服提交由占用标记保证先于预读
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        playerJoined(event.getPlayer().getUniqueId());
+    }
+    
+    void playerJoined(UUID playerUUID) {
+        if (!enabled || ioExecutor == null) {
+            return;
+        }
+        // 先提交尚未同步的变更，保证预读结果不落后于本服内存
+        flush();
+        
+        joinedPlayers.add(playerUUID);
+        long deadline = wallClock.getAsLong() + loadTimeoutMillis;
+        ioExecutor.execute(() -> loadPlayer(playerUUID, deadline));
+    }
+    
+    /**
+     * 玩家离服时立即提交变更，提交完成后释放占用，便于其切换到的子服读到最新冷却
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerQuit(event.getPlayer().getUniqueId());
+    }
+    
+    void playerQuit(UUID playerUUID) {
+        if (!enabled || ioExecutor == null) {
+            return;
+        }
+        joinedPlayers.remove(playerUUID);
+        if (pendingWrites.containsKey(playerUUID) || pendingWipes.contains(playerUUID)) {
+            flush();
+        }
+        ioExecutor.execute(() -> releasePlayer(playerUUID));
+    }
+    
+    /**
+     * 释放玩家占用（IO线程，排在离服提交之后）
+     */
+    private void releasePlayer(UUID playerUUID) {
+        if (!ready) {
+            return;
+        }
+        try {
+            backend.release(playerUUID, serverId);
+        } catch (Exception e) {
+            logger.error("释放玩家 " + playerUUID + " 的冷却占用失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 占用玩家并读取其未过期的冷却（IO线程），结果回到主线程应用
+     * 玩家仍被其他服务器占用时稍后重试，超过截止时间后强制接管
+     */
+    private void loadPlayer(UUID playerUUID, long deadline) {
+        if (!ready || !joinedPlayers.contains(playerUUID)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            boolean force = wallClock.getAsLong() >= deadline;
+            String holder = backend.claim(playerUUID, serverId, force);
+            if (holder != null) {
+                loadRetries.incrementAndGet();
+                ioExecutor.schedule(() -> loadPlayer(playerUUID, deadline), loadRetryMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (force) {
+                loadTakeovers.incrementAndGet();
+                logger.debug("玩家 " + playerUUID + " 的冷却占用未在限定时间内释放，已接管");
+            }
+            List<CooldownRecord> records = backend.loadActive(playerUUID, wallClock.getAsLong());
+            lastLoadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            totalLoads.incrementAndGet();
+            if (records == null || records.isEmpty()) {
+                return;
+            }
+            totalRowsLoaded.addAndGet(records.size());
+            mainThread.execute(() -> applyLoaded(playerUUID, records));
+        } catch (Exception e) {
+            logger.error("预读玩家 " + playerUUID + " 的远程冷却失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 将预读结果写入本地存储（主线程）
+     * 玩家已离服时放弃；冷却槽已不存在（规则或冷却组已删除）的记录直接忽略；本地已有更晚冷却时以本地为准
+     */
+    private void applyLoaded(UUID playerUUID, List<CooldownRecord> records) {
+        if (!joinedPlayers.contains(playerUUID)) {
+            return;
+        }
+        long nowMillis = wallClock.getAsLong();
+        int restored = 0;
+        for (CooldownRecord record : records) {
+            int slot = slotIndex.getCooldownSlot(record.getSlotKey());
+            if (slot < 0) {
+                continue;
+            }
+            long remainingMillis = record.getExpireAtMillis() - nowMillis;
+            if (remainingMillis <= 0) {
+                continue;
+            }
+            long remainingTicks = (remainingMillis + 49L) / 50L;
+            if (local.restoreSlot(playerUUID, slot, remainingTicks)) {
+                restored++;
+            }
+        }
+        if (restored > 0) {
+            logger.debug("为玩家 " + playerUUID + " 恢复了 " + restored + " 个远程冷却");
+        }
+    }
+    
+    // ========== 统计与关闭 ==========
+    
+    @Override
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>(local.getStatistics());
+        stats.put("类型", "远程同步(" + (backend != null ? backend.getName() : backendType) + ")");
+        stats.put("服务器标识", serverId);
+        stats.put("就绪", ready);
+        stats.put("待提交变更数", pendingCount);
+        stats.put("累计记录变更数", totalRecorded);
+        stats.put("累计提交批次", totalFlushes.get());
+        stats.put("累计写入行数", totalRowsWritten.get());
+        stats.put("最近批次大小", lastBatchSize);
+        stats.put("最大批次大小", maxObservedBatchSize);
+        long flushes = totalFlushes.get();
+        stats.put("平均批次大小", flushes > 0 ? String.format("%.1f", (double) totalRowsWritten.get() / flushes) : "0.0");
+        stats.put("最近提交耗时", lastFlushMillis + "ms");
+        stats.put("平均提交耗时", flushes > 0 ? String.format("%.1fms", (double) totalFlushMillis.get() / flushes) : "0.0ms");
+        stats.put("提交失败次数", failedFlushes.get());
+        stats.put("累计预读次数", totalLoads.get());
+        stats.put("累计预读行数", totalRowsLoaded.get());
+        stats.put("最近预读耗时", lastLoadMillis + "ms");
+        stats.put("预读等待重试次数", loadRetries.get());
+        stats.put("预读超时接管次数", loadTakeovers.get());
+        return stats;
+    }
+    
+    /**
+     * 关闭同步：提交剩余变更并等待IO线程写完（仅在插件卸载时阻塞），随后关闭本地存储
+     */
+    @Override
+    public void shutdown() {
+        if (enabled && ioExecutor != null) {
+            if (flushTask != null) {
+                flushTask.cancel();
+                flushTask = null;
+            }
+            
+            flush();
+            List<UUID> online = new ArrayList<>(joinedPlayers);
+            joinedPlayers.clear();
+            ioExecutor.execute(() -> {
+                for (UUID playerUUID : online) {
+                    releasePlayer(playerUUID);
+                }
+                ready = false;
+                backend.close();
+            });
+            ioExecutor.shutdown();
+            try {
+                if (!ioExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    logger.warn("冷却同步未能在5秒内完成提交，部分冷却可能丢失");
+                    ioExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                ioExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            logger.info("冷却同步已关闭");
+        }
+        local.shutdown();
+    }
+}
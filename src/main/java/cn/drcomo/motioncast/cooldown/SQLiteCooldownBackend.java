@@ -0,0 +1,128 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.corelib.database.SQLiteDB;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基于 CoreLib SQLiteDB 的冷却后端
+ * 多个子服共享同一数据库文件时即可跨服同步冷却
+ * 冷却行以冷却槽标识为键；占用表记录玩家当前所在的服务器，用于让入服预读排在上一服务器的离服提交之后
+ */
+public class SQLiteCooldownBackend implements CooldownBackend {
+    
+    private static final String TABLE = "motioncast_cooldowns";
+    private static final String SQL_CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "player_uuid TEXT NOT NULL, "
+            + "rule_key TEXT NOT NULL, "
+            + "expire_at INTEGER NOT NULL, "
+            + "PRIMARY KEY (player_uuid, rule_key))";
+    private static final String SQL_CREATE_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_" + TABLE + "_expire ON " + TABLE + " (expire_at)";
+    private static final String SQL_UPSERT =
+            "INSERT OR REPLACE INTO " + TABLE + " (player_uuid, rule_key, expire_at) VALUES (?, ?, ?)";
+    private static final String SQL_DELETE =
+            "DELETE FROM " + TABLE + " WHERE player_uuid = ? AND rule_key = ?";
+    private static final String SQL_DELETE_PLAYER =
+            "DELETE FROM " + TABLE + " WHERE player_uuid = ?";
+    private static final String SQL_PURGE_EXPIRED =
+            "DELETE FROM " + TABLE + " WHERE expire_at <= ?";
+    private static final String SQL_LOAD_PLAYER =
+            "SELECT rule_key, expire_at FROM " + TABLE + " WHERE player_uuid = ? AND expire_at > ?";
+    
+    private static final String HOLDER_TABLE = "motioncast_cooldown_holders";
+    private static final String SQL_CREATE_HOLDER_TABLE = "CREATE TABLE IF NOT EXISTS " + HOLDER_TABLE + " ("
+            + "player_uuid TEXT NOT NULL PRIMARY KEY, "
+            + "server_id TEXT NOT NULL, "
+            + "claimed_at INTEGER NOT NULL)";
+    private static final String SQL_SELECT_HOLDER =
+            "SELECT server_id FROM " + HOLDER_TABLE + " WHERE player_uuid = ?";
+    private static final String SQL_UPSERT_HOLDER =
+            "INSERT OR REPLACE INTO " + HOLDER_TABLE + " (player_uuid, server_id, claimed_at) VALUES (?, ?, ?)";
+    private static final String SQL_RELEASE_HOLDER =
+            "DELETE FROM " + HOLDER_TABLE + " WHERE player_uuid = ? AND server_id = ?";
+    private static final String SQL_RELEASE_SERVER =
+            "DELETE FROM " + HOLDER_TABLE + " WHERE server_id = ?";
+    
+    private final SQLiteDB database;
+    private final String databaseFile;
+    
+    public SQLiteCooldownBackend(Plugin plugin, String databaseFile) {
+        this.databaseFile = databaseFile;
+        this.database = new SQLiteDB(plugin, databaseFile, Collections.emptyList());
+    }
+    
+    @Override
+    public void open() throws Exception {
+        database.connect();
+        database.transaction(db -> {
+            db.executeUpdate(SQL_CREATE_TABLE);
+            db.executeUpdate(SQL_CREATE_INDEX);
+            db.executeUpdate(SQL_CREATE_HOLDER_TABLE);
+            db.executeUpdate(SQL_PURGE_EXPIRED, System.currentTimeMillis());
+        });
+    }
+    
+    @Override
+    public void writeBatch(Collection<UUID> playerWipes, List<CooldownRecord> deletes,
+                           List<CooldownRecord> upserts) throws Exception {
+        database.transaction(db -> {
+            for (UUID playerUUID : playerWipes) {
+                db.executeUpdate(SQL_DELETE_PLAYER, playerUUID.toString());
+            }
+            for (CooldownRecord record : deletes) {
+                db.executeUpdate(SQL_DELETE, record.getPlayerUUID().toString(), record.getSlotKey());
+            }
+            for (CooldownRecord record : upserts) {
+                db.executeUpdate(SQL_UPSERT, record.getPlayerUUID().toString(), record.getSlotKey(),
+                        record.getExpireAtMillis());
+            }
+            db.executeUpdate(SQL_PURGE_EXPIRED, System.currentTimeMillis());
+        });
+    }
+    
+    @Override
+    public List<CooldownRecord> loadActive(UUID playerUUID, long nowMillis) throws Exception {
+        return database.queryList(SQL_LOAD_PLAYER,
+                rs -> new CooldownRecord(playerUUID, rs.getString("rule_key"), rs.getLong("expire_at")),
+                playerUUID.toString(), nowMillis);
+    }
+    
+    @Override
+    public String claim(UUID playerUUID, String serverId, boolean force) throws Exception {
+        String[] holder = new String[1];
+        database.transaction(db -> {
+            String current = db.queryOne(SQL_SELECT_HOLDER, rs -> rs.getString("server_id"), playerUUID.toString());
+            if (!force && current != null && !current.equals(serverId)) {
+                holder[0] = current;
+                return;
+            }
+            db.executeUpdate(SQL_UPSERT_HOLDER, playerUUID.toString(), serverId, System.currentTimeMillis());
+        });
+        return holder[0];
+    }
+    
+    @Override
+    public void release(UUID playerUUID, String serverId) throws Exception {
+        database.executeUpdate(SQL_RELEASE_HOLDER, playerUUID.toString(), serverId);
+    }
+    
+    @Override
+    public void releaseAll(String serverId) throws Exception {
+        database.executeUpdate(SQL_RELEASE_SERVER, serverId);
+    }
+    
+    @Override
+    public void close() {
+        database.disconnect();
+    }
+    
+    @Override
+    public String getName() {
+        return "sqlite:" + databaseFile;
+    }
+}
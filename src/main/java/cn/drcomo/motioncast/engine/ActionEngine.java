@@ -4,18 +4,24 @@ import cn.drcomo.corelib.util.DebugUtil;
 import cn.drcomo.motioncast.config.ModelRuleLoader;
 import cn.drcomo.motioncast.state.PlayerStateManager;
 import cn.drcomo.motioncast.state.PlayerStateSession;
+import cn.drcomo.motioncast.state.DurationFiredSet;
 import cn.drcomo.motioncast.cooldown.CooldownService;
 import cn.drcomo.motioncast.targetfunction.TargeterRegistry;
 import cn.drcomo.motioncast.targetfunction.TargetContext;
+import cn.drcomo.motioncast.targetfunction.CompiledTargetSelector;
 import cn.drcomo.motioncast.integration.MythicMobsIntegration;
 import cn.drcomo.motioncast.integration.ModelEngineIntegration;
+import cn.drcomo.motioncast.integration.MythicSkillResolver;
 import cn.drcomo.motioncast.rules.ActionRule;
 import cn.drcomo.motioncast.rules.ActionType;
 import cn.drcomo.motioncast.rules.TriggerWhen;
+import cn.drcomo.motioncast.rules.RuleGeneration;
 
 import cn.drcomo.corelib.hook.placeholder.PlaceholderAPIUtil;
-import cn.drcomo.corelib.hook.placeholder.parse.PlaceholderConditionEvaluator;
-import cn.drcomo.corelib.hook.placeholder.parse.ParseException;
+import cn.drcomo.motioncast.condition.CompiledCondition;
+import cn.drcomo.motioncast.condition.ConditionResultCache;
+import cn.drcomo.motioncast.condition.PlaceholderCache;
+import cn.drcomo.motioncast.tick.TickClock;
 
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -32,6 +38,9 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ActionEngine {
     
+    // damaged 触发实体：仅采用该时间窗口内记录的攻击者（毫秒）
+    private static final long TRIGGER_CONTEXT_WINDOW_MS = 1000L;
+    
     private final JavaPlugin plugin;
     private final DebugUtil logger;
     private final ModelRuleLoader ruleLoader;
@@ -40,10 +49,26 @@ public class ActionEngine {
     private final TargeterRegistry targeterRegistry;
     private final MythicMobsIntegration mythicMobsIntegration;
     private final cn.drcomo.motioncast.integration.MythicAttackBridge mythicAttackBridge;
+    private final cn.drcomo.motioncast.integration.MythicSkillExecutor mythicSkillExecutor;
     private final ModelEngineIntegration modelEngineIntegration;
     // 条件解析相关
     private final PlaceholderAPIUtil placeholderAPIUtil;
-    private final PlaceholderConditionEvaluator conditionEvaluator;
+    private final PlaceholderCache placeholderCache;
+    // 条件结果缓存（仅缓存全部依赖慢变占位符的条件）
+    private boolean conditionCacheEnabled = true;
+    private long conditionCacheMaxAgeTicks = 200L;
+    private final AtomicLong conditionCacheHits = new AtomicLong(0);
+    private final AtomicLong conditionCacheMisses = new AtomicLong(0);
+    // 技能执行路径：direct 直接构造 SkillMetadata 执行，api 经 BukkitAPIHelper#castSkill
+    private boolean directCastEnabled = true;
+    private final AtomicLong directCasts = new AtomicLong(0);
+    private final AtomicLong directCastNanos = new AtomicLong(0);
+    private final AtomicLong directCastFallbacks = new AtomicLong(0);
+    private final AtomicLong apiCasts = new AtomicLong(0);
+    private final AtomicLong apiCastNanos = new AtomicLong(0);
+    // 技能执行队列：可延后的规则在本tick预算不足时入队，下个tick开始时出队执行
+    private final SkillExecutionQueue executionQueue;
+    private boolean executionQueueEnabled = true;
     
     // 统计信息
     private final AtomicLong totalRuleFires = new AtomicLong(0);
@@ -56,7 +81,9 @@ public class ActionEngine {
                        PlayerStateManager stateManager, CooldownService cooldownService,
                        TargeterRegistry targeterRegistry, MythicMobsIntegration mythicMobsIntegration,
                        ModelEngineIntegration modelEngineIntegration,
-                       cn.drcomo.motioncast.integration.MythicAttackBridge mythicAttackBridge) {
+                       cn.drcomo.motioncast.integration.MythicAttackBridge mythicAttackBridge,
+                       cn.drcomo.motioncast.integration.MythicSkillExecutor mythicSkillExecutor,
+                       TickClock tickClock) {
         this.plugin = plugin;
         this.logger = logger;
         this.ruleLoader = ruleLoader;
@@ -66,14 +93,62 @@ public class ActionEngine {
         this.mythicMobsIntegration = mythicMobsIntegration;
         this.modelEngineIntegration = modelEngineIntegration;
         this.mythicAttackBridge = mythicAttackBridge;
-        // 初始化占位符工具与条件解析引擎（均为中文日志、无反射实现）
+        this.mythicSkillExecutor = mythicSkillExecutor;
+        // 初始化占位符工具；条件表达式已在规则加载时编译，此处只提供占位符取值
         // 占位符标识符使用插件名小写，保证唯一性与可读性
         this.placeholderAPIUtil = new PlaceholderAPIUtil(plugin, plugin.getName().toLowerCase());
-        this.conditionEvaluator = new PlaceholderConditionEvaluator(plugin, logger, this.placeholderAPIUtil);
+        // 同一玩家同一tick内的占位符只解析一次，跨规则共享
+        this.placeholderCache = new PlaceholderCache(this.placeholderAPIUtil::parse, tickClock,
+                ruleLoader.getCostModel());
+        this.executionQueue = new SkillExecutionQueue(tickClock, 2_000_000L, 40L, 5000);
         
+        loadConfiguration();
         logger.debug("动作引擎已初始化");
     }
     
+    /**
+     * 从配置加载参数
+     */
+    private void loadConfiguration() {
+        try {
+            boolean cfgCacheEnabled = this.conditionCacheEnabled;
+            int cfgCacheMaxAge = (int) this.conditionCacheMaxAgeTicks;
+            String cfgCastMode = this.directCastEnabled ? "direct" : "api";
+            boolean cfgQueueEnabled = this.executionQueueEnabled;
+            int cfgQueueBudgetMicros = 2000;
+            int cfgQueueMaxDelay = 40;
+            int cfgQueueMaxSize = 5000;
+            
+            if (plugin instanceof cn.drcomo.motioncast.DrcomoMotionCast) {
+                cn.drcomo.corelib.config.YamlUtil yaml = ((cn.drcomo.motioncast.DrcomoMotionCast) plugin).getYamlUtil();
+                if (yaml != null) {
+                    cfgCacheEnabled = yaml.getBoolean("settings", "condition_cache.enabled", cfgCacheEnabled);
+                    cfgCacheMaxAge = yaml.getInt("settings", "condition_cache.max_age_ticks", cfgCacheMaxAge);
+                    cfgCastMode = yaml.getString("settings", "mythic.cast_mode", cfgCastMode);
+                    cfgQueueEnabled = yaml.getBoolean("settings", "execution_queue.enabled", cfgQueueEnabled);
+                    cfgQueueBudgetMicros = yaml.getInt("settings", "execution_queue.budget_us", cfgQueueBudgetMicros);
+                    cfgQueueMaxDelay = yaml.getInt("settings", "execution_queue.max_delay_ticks", cfgQueueMaxDelay);
+                    cfgQueueMaxSize = yaml.getInt("settings", "execution_queue.max_size", cfgQueueMaxSize);
+                }
+            }
+            
+            this.conditionCacheEnabled = cfgCacheEnabled;
+            this.conditionCacheMaxAgeTicks = Math.max(1L, cfgCacheMaxAge);
+            // 未知取值按 direct 处理
+            this.directCastEnabled = cfgCastMode == null || !"api".equalsIgnoreCase(cfgCastMode.trim());
+            this.executionQueueEnabled = cfgQueueEnabled;
+            this.executionQueue.configure(Math.max(100, cfgQueueBudgetMicros) * 1000L,
+                    Math.max(1, cfgQueueMaxDelay), Math.max(1, cfgQueueMaxSize));
+            
+            logger.debug("动作引擎配置已加载: conditionCacheEnabled=" + conditionCacheEnabled +
+                    ", conditionCacheMaxAgeTicks=" + conditionCacheMaxAgeTicks +
+                    ", castMode=" + (directCastEnabled ? "direct" : "api") +
+                    ", executionQueueEnabled=" + executionQueueEnabled);
+        } catch (Exception e) {
+            logger.error("加载动作引擎配置时出现错误，将使用默认值: " + e.getMessage());
+        }
+    }
+    
     /**
      * 触发规则执行
      * 这是引擎的核心入口方法
@@ -103,8 +178,8 @@ public class ActionEngine {
                 return;
             }
             
-            // 创建目标解析上下文
-            TargetContext targetContext = TargetContext.fromPlayer(player, session);
+            // 仅当存在指定目标的规则时创建目标解析上下文（惰性读取，规则间共享）
+            TargetContext targetContext = createTargetContext(player, session, modelId, action, when);
             
             // 处理每个规则
             for (ActionRule rule : rules) {
@@ -132,40 +207,73 @@ public class ActionEngine {
         return null;
     }
     
+    /**
+     * 创建目标解析上下文；对应规则均未指定目标时返回 null
+     */
+    private TargetContext createTargetContext(Player player, PlayerStateSession session,
+                                              String modelId, ActionType action, TriggerWhen when) {
+        if (!ruleLoader.hasTargetedRules(modelId, action, when)) {
+            return null;
+        }
+        return TargetContext.fromPlayer(player, session);
+    }
+    
     /**
      * 处理单个规则
+     *
+     * @return 技能是否执行成功或已入队延后执行
      */
-    private void processRule(Player player, PlayerStateSession session, ActionRule rule, TargetContext targetContext) {
+    private boolean processRule(Player player, PlayerStateSession session, ActionRule rule, TargetContext targetContext) {
+        long nowTick = cooldownService.currentTick();
+        boolean acquired = false;
         try {
-            // 1. 检查冷却
-            if (cooldownService.isOnCooldown(player, rule)) {
+            // 1. 检查并预占冷却（单次查找完成检查与设置）
+            long remainingTicks = cooldownService.tryAcquire(player, rule, nowTick);
+            if (remainingTicks != CooldownService.ACQUIRED) {
                 cooldownBlocked.incrementAndGet();
-                int remainingTicks = cooldownService.getRemainingCooldown(player, rule);
                 logger.debug("规则 " + rule.getId() + " 被冷却阻止，剩余 " + remainingTicks + " tick");
-                return;
+                return false;
             }
+            acquired = true;
             
             // 2. 检查条件（如果有）
-            if (!checkRuleCondition(player, rule)) {
+            if (!checkRuleCondition(player, session, rule, nowTick)) {
                 logger.debug("规则 " + rule.getId() + " 条件检查失败");
-                return;
+                return false;
             }
             
-            // 3. 解析目标
+            // 3. 解析目标（调用方未创建上下文时按需补建，如规则在本次触发期间被重载）
+            if (targetContext == null && rule.hasTarget()) {
+                targetContext = TargetContext.fromPlayer(player, session);
+            }
             Collection<Entity> targets = resolveTargets(player, rule, targetContext);
             
-            // 4. 执行技能
+            // 4. 执行技能：可延后的规则在本tick预算不足时入队；
+            //    冷却预占与 duration 触发标记保留到出队，最终未执行时由完成回调撤销
+            boolean deferrable = executionQueueEnabled && rule.getPriority().isDeferrable();
+            if (deferrable && !executionQueue.canRunInline()) {
+                RuleGeneration generation = ruleLoader.getCurrentGeneration();
+                if (executionQueue.enqueue(player, rule, targets,
+                        executed -> completeDeferred(player, rule, nowTick, generation, executed))) {
+                    acquired = false;
+                    logger.debug("规则 " + rule.getId() + " 已入队延后执行 -> 技能: " + rule.getSkill());
+                    return true;
+                }
+                skillExecutionFailed.incrementAndGet();
+                logger.debug("执行队列已满，丢弃规则: " + rule.getId());
+                return false;
+            }
+            long start = System.nanoTime();
             boolean success = executeSkill(player, session, rule, targets);
+            executionQueue.charge(System.nanoTime() - start, deferrable);
             
             if (success) {
                 successfulExecutions.incrementAndGet();
-                
-                // 设置冷却
-                if (rule.getCooldown() > 0) {
-                    cooldownService.setCooldown(player, rule);
-                }
+                // 冷却已在预占时写入，成功即提交
+                acquired = false;
                 
                 logger.debug("成功执行规则: " + rule.getId() + " -> 技能: " + rule.getSkill());
+                return true;
             } else {
                 skillExecutionFailed.incrementAndGet();
                 logger.debug("技能执行失败: " + rule.getSkill() + " (规则: " + rule.getId() + ")");
@@ -173,29 +281,46 @@ public class ActionEngine {
             
         } catch (Exception e) {
             logger.error("处理规则 " + rule.getId() + " 时发生异常: " + e.getMessage());
+        } finally {
+            // 未成功执行则撤销冷却预占
+            if (acquired) {
+                cooldownService.rollback(player, rule, nowTick);
+            }
         }
+        return false;
     }
     
     /**
      * 检查规则条件
+     * 仅依赖慢变占位符的条件复用会话中缓存的结果，直到相关事件使其失效或超过最长保留时间
      */
-    private boolean checkRuleCondition(Player player, ActionRule rule) {
-        String condition = rule.getRequire();
-        if (condition == null || condition.trim().isEmpty()) {
+    private boolean checkRuleCondition(Player player, PlayerStateSession session, ActionRule rule, long nowTick) {
+        CompiledCondition condition = rule.getCondition();
+        if (condition == null) {
             return true; // 没有条件，直接通过
         }
         try {
-            // 使用 DrcomoCoreLib 的条件引擎进行同步解析与求值
-            // 该引擎内部会解析所有 PAPI 占位符并按优先级计算逻辑/比较运算
-            boolean result = conditionEvaluator.parse(player, condition);
+            boolean cacheable = conditionCacheEnabled && condition.isCacheable();
+            if (cacheable) {
+                int cached = session.getConditionResultCache().lookup(ruleLoader.getCurrentGeneration(),
+                        rule.getOrdinal(), condition.getDependencyMask(), nowTick, conditionCacheMaxAgeTicks);
+                if (cached != ConditionResultCache.MISS) {
+                    conditionCacheHits.incrementAndGet();
+                    return cached == 1;
+                }
+                conditionCacheMisses.incrementAndGet();
+            }
+            
+            // 表达式树已在加载时编译：这里只解析占位符取值并遍历求值
+            boolean result = condition.evaluate(player, placeholderCache);
+            if (cacheable) {
+                session.getConditionResultCache().store(ruleLoader.getCurrentGeneration(),
+                        rule.getOrdinal(), condition.getDependencyMask(), nowTick, result);
+            }
             if (!result) {
-                logger.debug("规则 " + rule.getId() + " 的条件未通过: " + condition);
+                logger.debug("规则 " + rule.getId() + " 的条件未通过: " + condition.getSource());
             }
             return result;
-        } catch (ParseException e) {
-            // 解析失败：记录中文错误并返回 false，防止错误条件导致未定义行为
-            logger.error("解析规则条件时发生错误 (规则: " + rule.getId() + ")，表达式: " + condition + "，原因: " + e.getMessage());
-            return false;
         } catch (Exception e) {
             // 其他异常保护
             logger.error("校验规则条件时发生异常 (规则: " + rule.getId() + ")，原因: " + e.getMessage());
@@ -207,10 +332,10 @@ public class ActionEngine {
      * 解析规则目标
      */
     private Collection<Entity> resolveTargets(Player player, ActionRule rule, TargetContext targetContext) {
-        String targetSelector = rule.getTarget();
+        CompiledTargetSelector targetSelector = rule.getTargetSelector();
         
         // 如果没有指定目标，返回空集合（让MythicMobs技能内部处理）
-        if (targetSelector == null || targetSelector.trim().isEmpty()) {
+        if (targetSelector == null) {
             return List.of();
         }
         
@@ -234,23 +359,122 @@ public class ActionEngine {
         }
         
         String skillName = rule.getSkill();
+        // 技能在规则加载或 MythicMobs 重载时已确认不存在，直接跳过
+        if (rule.isSkillMissing()) {
+            logger.debug("规则 " + rule.getId() + " 引用的技能不存在，跳过执行: " + skillName);
+            return false;
+        }
 
         // ATTACK 动作：若存在绑定的 Bukkit 原始事件，则优先通过近战桥接执行，确保 CancelEvent 生效
         if (rule.getAction() == ActionType.ATTACK && mythicAttackBridge != null && mythicAttackBridge.isAvailable()) {
             EntityDamageByEntityEvent attackEvent = session.getCustomData("last_attack_event", EntityDamageByEntityEvent.class);
             if (attackEvent != null) {
-                boolean ok = mythicAttackBridge.castSkillWithEvent(player, skillName, attackEvent, targets);
+                boolean ok = mythicAttackBridge.castSkillWithEvent(player, session, skillName,
+                        MythicSkillResolver.skillOf(rule), attackEvent, targets);
                 if (ok) return true; // 桥接成功即返回
                 // 桥接失败则继续回退到常规 API
                 logger.warn("近战桥接执行失败，回退至常规API: " + skillName);
             }
         }
 
+        // 直接执行：使用缓存的技能句柄构造元数据，失败时回退到 API 助手
+        if (directCastEnabled && mythicSkillExecutor != null && mythicSkillExecutor.isAvailable()) {
+            long start = System.nanoTime();
+            boolean ok = mythicSkillExecutor.cast(player, session, rule,
+                    resolveTriggerEntity(player, session, rule.getAction()), targets);
+            if (ok) {
+                directCasts.incrementAndGet();
+                directCastNanos.addAndGet(System.nanoTime() - start);
+                return true;
+            }
+            directCastFallbacks.incrementAndGet();
+            logger.debug("直接执行失败，回退至常规API: " + skillName);
+        }
+
         // 常规执行：根据目标数量选择合适的 API Helper 调用
-        if (targets.isEmpty()) {
-            return mythicMobsIntegration.castSkill(player, skillName);
+        long start = System.nanoTime();
+        boolean result = targets.isEmpty()
+                ? mythicMobsIntegration.castSkill(player, skillName)
+                : mythicMobsIntegration.castSkill(player, skillName, targets);
+        apiCasts.incrementAndGet();
+        apiCastNanos.addAndGet(System.nanoTime() - start);
+        return result;
+    }
+    
+    /**
+     * 在本tick预算内执行排队中的施法（由 TickScheduler 在每个tick开始时调用）
+     */
+    public void drainExecutionQueue() {
+        if (executionQueue.size() > 0) {
+            executionQueue.drain(this::executeDeferred);
         }
-        return mythicMobsIntegration.castSkill(player, skillName, targets);
+    }
+    
+    /**
+     * 关闭引擎：撤销所有排队中的施法（须在冷却服务关闭前调用，使冷却预占得以回滚）
+     */
+    public void shutdown() {
+        int cleared = executionQueue.clear();
+        if (cleared > 0) {
+            logger.info("已撤销 " + cleared + " 个排队中的施法");
+        }
+    }
+    
+    /**
+     * 执行出队的施法；排队期间会话已移除（如玩家离服）时跳过
+     */
+    private boolean executeDeferred(Player player, ActionRule rule, Collection<Entity> targets) {
+        PlayerStateSession session = stateManager.getSession(player);
+        if (session == null) {
+            return false;
+        }
+        return executeSkill(player, session, rule, targets);
+    }
+    
+    /**
+     * 排队施法结束：执行成功才计为成功；丢弃或失败时撤销冷却预占，duration 规则清除触发标记以便本次激活内重试
+     */
+    private void completeDeferred(Player player, ActionRule rule, long acquireTick,
+                                  RuleGeneration generation, boolean executed) {
+        if (executed) {
+            successfulExecutions.incrementAndGet();
+            return;
+        }
+        skillExecutionFailed.incrementAndGet();
+        cooldownService.rollback(player, rule, acquireTick);
+        if (rule.getWhen() == TriggerWhen.DURATION) {
+            PlayerStateSession session = stateManager.getSession(player);
+            if (session != null) {
+                session.getDurationFiredSet().clearFired(generation, rule.getAction(), rule.getOrdinal());
+            }
+        }
+        logger.debug("延后执行的规则未执行，已撤销冷却: " + rule.getId());
+    }
+    
+    /**
+     * 按动作类型选择技能的触发实体
+     * attack 为本次受害者，damaged 为最近的攻击者，骑乘类为当前载具，其余为玩家自身
+     */
+    private Entity resolveTriggerEntity(Player player, PlayerStateSession session, ActionType action) {
+        Entity trigger = null;
+        switch (action) {
+            case ATTACK:
+                trigger = session.getLastVictim();
+                break;
+            case DAMAGED:
+                // 仅采用刚刚记录的攻击者，非实体伤害时不沿用旧的攻击者
+                if (System.currentTimeMillis() - session.getLastAttackerTime() <= TRIGGER_CONTEXT_WINDOW_MS) {
+                    trigger = session.getLastAttacker();
+                }
+                break;
+            case RIDE:
+            case INBOAT:
+                trigger = player.getVehicle();
+                break;
+            default:
+                break;
+        }
+        return trigger != null && trigger.isValid() ? trigger : player;
     }
     
     /**
@@ -266,12 +490,18 @@ public class ActionEngine {
             PlayerStateSession session = stateManager.getSession(player);
             if (session == null) return;
             
-            TargetContext targetContext = TargetContext.fromPlayer(player, session);
+            TargetContext targetContext = createTargetContext(player, session, modelId, action, TriggerWhen.DURATION);
+            
+            // 每次激活只触发一次；已触发记录按规则序号存储，随规则代数迁移
+            DurationFiredSet fired = session.getDurationFiredSet();
+            fired.ensure(ruleLoader.getCurrentGeneration());
             
             for (ActionRule rule : rules) {
                 // 检查是否达到触发时间
-                if (currentTicks >= rule.getAfter()) {
-                    processRule(player, session, rule, targetContext);
+                if (currentTicks >= rule.getAfter() && !fired.isFired(action, rule.getOrdinal())) {
+                    if (processRule(player, session, rule, targetContext)) {
+                        fired.markFired(action, rule.getOrdinal());
+                    }
                 }
             }
             
@@ -293,7 +523,7 @@ public class ActionEngine {
             PlayerStateSession session = stateManager.getSession(player);
             if (session == null) return;
             
-            TargetContext targetContext = TargetContext.fromPlayer(player, session);
+            TargetContext targetContext = createTargetContext(player, session, modelId, action, TriggerWhen.TICK);
             
             for (ActionRule rule : rules) {
                 // 检查是否到了触发周期
@@ -307,6 +537,55 @@ public class ActionEngine {
         }
     }
     
+    /**
+     * 获取占位符逐tick缓存
+     */
+    public PlaceholderCache getPlaceholderCache() {
+        return placeholderCache;
+    }
+    
+    /**
+     * 获取技能执行路径统计（direct 与 api 路径的次数与平均耗时，用于对比）
+     */
+    public java.util.Map<String, Object> getCastPathStatistics() {
+        long direct = directCasts.get();
+        long api = apiCasts.get();
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("执行路径", directCastEnabled ? "direct" : "api");
+        stats.put("直接执行次数", direct);
+        stats.put("直接执行平均耗时(μs)", direct > 0 ? String.format("%.1f", directCastNanos.get() / 1000.0 / direct) : "0.0");
+        stats.put("直接执行回退次数", directCastFallbacks.get());
+        stats.put("API执行次数", api);
+        stats.put("API执行平均耗时(μs)", api > 0 ? String.format("%.1f", apiCastNanos.get() / 1000.0 / api) : "0.0");
+        return stats;
+    }
+    
+    /**
+     * 获取技能执行队列统计（队列深度与延后执行的延迟）
+     */
+    public java.util.Map<String, Object> getExecutionQueueStatistics() {
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("启用", executionQueueEnabled);
+        stats.putAll(executionQueue.getStatistics());
+        return stats;
+    }
+    
+    /**
+     * 获取条件结果缓存统计
+     */
+    public java.util.Map<String, Object> getConditionCacheStatistics() {
+        long hits = conditionCacheHits.get();
+        long misses = conditionCacheMisses.get();
+        long total = hits + misses;
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("启用", conditionCacheEnabled);
+        stats.put("最长保留tick", conditionCacheMaxAgeTicks);
+        stats.put("命中", hits);
+        stats.put("未命中", misses);
+        stats.put("命中率", total > 0 ? String.format("%.1f%%", hits * 100.0 / total) : "0.0%");
+        return stats;
+    }
+    
     /**
      * 获取引擎统计信息
      */
@@ -329,6 +608,14 @@ public class ActionEngine {
         cooldownBlocked.set(0);
         targetResolutionFailed.set(0);
         skillExecutionFailed.set(0);
+        conditionCacheHits.set(0);
+        conditionCacheMisses.set(0);
+        directCasts.set(0);
+        directCastNanos.set(0);
+        directCastFallbacks.set(0);
+        apiCasts.set(0);
+        apiCastNanos.set(0);
+        executionQueue.resetStatistics();
         
         logger.info("动作引擎统计信息已重置");
     }
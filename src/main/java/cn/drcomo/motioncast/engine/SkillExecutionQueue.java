@@ -0,0 +1,299 @@
+package cn.drcomo.motioncast.engine;
+
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.rules.CastPriority;
+import cn.drcomo.motioncast.tick.TickClock;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 主线程技能执行队列
+ * 每个tick有固定的技能执行时间预算，立即执行与出队执行的耗时都计入预算；
+ * 可延后的规则在队列为空且预算尚有剩余时直接执行，否则按优先级入队，于后续tick开始时在预算内出队执行。
+ * 等待超过最长延迟的条目直接丢弃。每个条目结束（执行、失败或丢弃）时调用其完成回调，由调用方提交或撤销入队时的预占。仅在主线程访问
+ */
+public class SkillExecutionQueue {
+    
+    /**
+     * 出队时的技能执行回调
+     */
+    @FunctionalInterface
+    public interface CastExecutor {
+        boolean execute(Player player, ActionRule rule, Collection<Entity> targets);
+    }
+    
+    /**
+     * 排队施法的完成回调
+     */
+    @FunctionalInterface
+    public interface Completion {
+        /**
+         * @param executed 技能是否已成功执行；超时丢弃、玩家离线或执行失败时为 false
+         */
+        void complete(boolean executed);
+    }
+    
+    private final TickClock tickClock;
+    // 按优先级分队列：HIGH、NORMAL、LOW（IMMEDIATE 不入队）
+    private final ArrayDeque<Pending>[] queues;
+    
+    private long budgetNanos;
+    private long maxDelayTicks;
+    private int maxSize;
+    
+    // 当前tick已消耗的执行时间
+    private long budgetTick = -1L;
+    private long spentNanos = 0L;
+    private int size = 0;
+    
+    // 统计
+    private long inlineCasts = 0;
+    private long deferredCasts = 0;
+    private long deferredFailures = 0;
+    private long expiredDrops = 0;
+    private long offlineDrops = 0;
+    private long overflowDrops = 0;
+    private long clearedDrops = 0;
+    private long latencyTicksTotal = 0;
+    private long maxLatencyTicks = 0;
+    private int maxDepth = 0;
+    private long exhaustedTicks = 0;
+    
+    @SuppressWarnings("unchecked")
+    public SkillExecutionQueue(TickClock tickClock, long budgetNanos, long maxDelayTicks, int maxSize) {
+        this.tickClock = tickClock;
+        this.queues = new ArrayDeque[] {new ArrayDeque<Pending>(), new ArrayDeque<Pending>(), new ArrayDeque<Pending>()};
+        configure(budgetNanos, maxDelayTicks, maxSize);
+    }
+    
+    /**
+     * 更新预算参数
+     */
+    public void configure(long budgetNanos, long maxDelayTicks, int maxSize) {
+        this.budgetNanos = Math.max(1L, budgetNanos);
+        this.maxDelayTicks = Math.max(0L, maxDelayTicks);
+        this.maxSize = Math.max(1, maxSize);
+    }
+    
+    /**
+     * 可延后的规则能否立即执行：队列为空（保证先入先出）且本tick预算尚有剩余
+     */
+    public boolean canRunInline() {
+        rollTick();
+        return size == 0 && spentNanos < budgetNanos;
+    }
+    
+    /**
+     * 记录一次立即执行的耗时
+     */
+    public void charge(long nanos, boolean deferrable) {
+        rollTick();
+        spentNanos += nanos;
+        if (deferrable) {
+            inlineCasts++;
+        }
+    }
+    
+    /**
+     * 入队一次施法
+     *
+     * @param completion 条目结束时的回调；入队失败时不调用
+     * @return 是否已入队；队列已满时返回 false
+     */
+    public boolean enqueue(Player player, ActionRule rule, Collection<Entity> targets, Completion completion) {
+        if (size >= maxSize) {
+            overflowDrops++;
+            return false;
+        }
+        queues[queueIndex(rule.getPriority())].addLast(new Pending(player, rule, targets, tickClock.now(), completion));
+        size++;
+        if (size > maxDepth) {
+            maxDepth = size;
+        }
+        return true;
+    }
+    
+    /**
+     * 在本tick剩余预算内按优先级出队执行（每tick开始时调用一次）
+     */
+    public void drain(CastExecutor executor) {
+        if (size == 0) {
+            return;
+        }
+        rollTick();
+        long now = tickClock.now();
+        for (ArrayDeque<Pending> queue : queues) {
+            while (!queue.isEmpty()) {
+                if (spentNanos >= budgetNanos) {
+                    exhaustedTicks++;
+                    return;
+                }
+                Pending pending = queue.pollFirst();
+                size--;
+                long latency = now - pending.submitTick;
+                if (latency > maxDelayTicks) {
+                    expiredDrops++;
+                    complete(pending, false);
+                    continue;
+                }
+                if (!pending.player.isOnline()) {
+                    offlineDrops++;
+                    complete(pending, false);
+                    continue;
+                }
+                long start = System.nanoTime();
+                boolean success;
+                try {
+                    success = executor.execute(pending.player, pending.rule, validTargets(pending.targets));
+                } catch (Exception e) {
+                    success = false;
+                }
+                spentNanos += System.nanoTime() - start;
+                deferredCasts++;
+                if (!success) {
+                    deferredFailures++;
+                }
+                latencyTicksTotal += latency;
+                if (latency > maxLatencyTicks) {
+                    maxLatencyTicks = latency;
+                }
+                complete(pending, success);
+            }
+        }
+    }
+    
+    /**
+     * 清空队列，所有排队中的条目以未执行结束（插件卸载时调用，使调用方撤销预占）
+     *
+     * @return 被清空的条目数
+     */
+    public int clear() {
+        int cleared = 0;
+        for (ArrayDeque<Pending> queue : queues) {
+            Pending pending;
+            while ((pending = queue.pollFirst()) != null) {
+                size--;
+                cleared++;
+                complete(pending, false);
+            }
+        }
+        clearedDrops += cleared;
+        return cleared;
+    }
+    
+    private static void complete(Pending pending, boolean executed) {
+        if (pending.completion == null) {
+            return;
+        }
+        try {
+            pending.completion.complete(executed);
+        } catch (Exception ignored) {
+            // 回调异常不影响后续条目
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("当前深度", size);
+        stats.put("最大深度", maxDepth);
+        stats.put("每tick预算(ms)", String.format("%.2f", budgetNanos / 1_000_000.0));
+        stats.put("立即执行", inlineCasts);
+        stats.put("延后执行", deferredCasts);
+        stats.put("延后执行失败", deferredFailures);
+        stats.put("平均延迟(tick)", deferredCasts > 0 ? String.format("%.2f", latencyTicksTotal / (double) deferredCasts) : "0.00");
+        stats.put("最大延迟(tick)", maxLatencyTicks);
+        stats.put("超时丢弃", expiredDrops);
+        stats.put("离线丢弃", offlineDrops);
+        stats.put("队列满丢弃", overflowDrops);
+        stats.put("清空丢弃", clearedDrops);
+        stats.put("预算耗尽tick数", exhaustedTicks);
+        return stats;
+    }
+    
+    /**
+     * 重置统计信息
+     */
+    public void resetStatistics() {
+        inlineCasts = 0;
+        deferredCasts = 0;
+        deferredFailures = 0;
+        expiredDrops = 0;
+        offlineDrops = 0;
+        overflowDrops = 0;
+        clearedDrops = 0;
+        latencyTicksTotal = 0;
+        maxLatencyTicks = 0;
+        maxDepth = size;
+        exhaustedTicks = 0;
+    }
+    
+    private void rollTick() {
+        long now = tickClock.now();
+        if (budgetTick != now) {
+            budgetTick = now;
+            spentNanos = 0L;
+        }
+    }
+    
+    private static int queueIndex(CastPriority priority) {
+        switch (priority) {
+            case HIGH:
+                return 0;
+            case LOW:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+    
+    /**
+     * 过滤排队期间失效的目标；全部有效时原样返回
+     */
+    private static Collection<Entity> validTargets(Collection<Entity> targets) {
+        for (Entity entity : targets) {
+            if (!entity.isValid()) {
+                List<Entity> valid = new ArrayList<>(targets.size());
+                for (Entity candidate : targets) {
+                    if (candidate.isValid()) {
+                        valid.add(candidate);
+                    }
+                }
+                return valid;
+            }
+        }
+        return targets;
+    }
+    
+    /**
+     * 排队中的施法
+     */
+    private static final class Pending {
+        final Player player;
+        final ActionRule rule;
+        final Collection<Entity> targets;
+        final long submitTick;
+        final Completion completion;
+        
+        Pending(Player player, ActionRule rule, Collection<Entity> targets, long submitTick, Completion completion) {
+            this.player = player;
+            this.rule = rule;
+            this.targets = targets;
+            this.submitTick = submitTick;
+            this.completion = completion;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package cn.drcomo.motioncast.integration;
 
 import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.state.PlayerStateSession;
 import io.lumine.mythic.api.adapters.AbstractEntity;
 import io.lumine.mythic.api.adapters.AbstractLocation;
 import io.lumine.mythic.api.skills.Skill;
@@ -18,7 +19,6 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -33,11 +33,13 @@ public class MythicAttackBridge {
 
     private final DebugUtil logger;
     private final SkillManager skillManager;
+    private final MythicCasterCache casterCache;
     private static final SkillTrigger<?> ATTACK_TRIGGER = SkillTriggers.ATTACK;
     // 线程级再入阀：防止同一tick内技能回流导致重复触发
     private static final ThreadLocal<Boolean> IN_BRIDGE = ThreadLocal.withInitial(() -> false);
-    public MythicAttackBridge(DebugUtil logger) {
+    public MythicAttackBridge(DebugUtil logger, MythicCasterCache casterCache) {
         this.logger = logger;
+        this.casterCache = casterCache;
         SkillManager sm = null;
         try {
             if (Bukkit.getPluginManager().isPluginEnabled("MythicMobs")) {
@@ -67,28 +69,37 @@ public class MythicAttackBridge {
                                       EntityDamageByEntityEvent originalEvent,
                                       Collection<Entity> targets) {
         if (!isAvailable()) return false;
+        return castSkillWithEvent(caster, null, skillName, null, originalEvent, targets);
+    }
+
+    /**
+     * 使用原始近战事件上下文执行技能，优先使用规则上已解析的技能句柄，为 null 时按名称查找；
+     * 施法者适配对象从会话中复用，session 为 null 时临时创建。
+     */
+    public boolean castSkillWithEvent(Player caster,
+                                      PlayerStateSession session,
+                                      String skillName,
+                                      Skill resolvedSkill,
+                                      EntityDamageByEntityEvent originalEvent,
+                                      Collection<Entity> targets) {
+        if (!isAvailable()) return false;
         try {
-            Skill skill = skillManager.getSkill(skillName).orElse(null);
+            Skill skill = resolvedSkill != null ? resolvedSkill : skillManager.getSkill(skillName).orElse(null);
             if (skill == null) {
                 logger.debug("未找到技能: " + skillName);
                 return false;
             }
 
-            // 适配 Mythic 抽象对象
-            final AbstractEntity mCaster = BukkitAdapter.adapt(caster);
-            final SkillCaster mSkillCaster = skillManager.getCaster(mCaster);
+            // 适配 Mythic 抽象对象（施法者与目标复用会话缓存，原点随玩家移动每次适配）
+            final MythicCasterCache.CasterAdapters adapters = casterCache.adapters(caster, session);
+            final SkillCaster mSkillCaster = adapters.getSkillCaster();
             final AbstractLocation mOrigin = BukkitAdapter.adapt(caster.getLocation());
 
             // 触发器实体：使用本次受害者（若存在）
-            final AbstractEntity mTrigger = BukkitAdapter.adapt(originalEvent.getEntity());
+            final AbstractEntity mTrigger = adapters.adapt(originalEvent.getEntity());
 
             // 目标集合（可为空，留给技能 targeter 决定）
-            final List<AbstractEntity> mTargets = new ArrayList<>();
-            if (targets != null) {
-                for (Entity e : targets) {
-                    try { mTargets.add(BukkitAdapter.adapt(e)); } catch (Throwable ignore) {}
-                }
-            }
+            final List<AbstractEntity> mTargets = adapters.adaptTargets(targets);
 
             // 构造元数据（5.x：SkillMetadataImpl 由 core 包提供实现）
             SkillMetadata meta = new io.lumine.mythic.core.skills.SkillMetadataImpl(
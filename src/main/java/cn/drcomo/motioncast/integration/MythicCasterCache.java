@@ -0,0 +1,183 @@
+package cn.drcomo.motioncast.integration;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.state.PlayerStateManager;
+import cn.drcomo.motioncast.state.PlayerStateSession;
+import io.lumine.mythic.api.adapters.AbstractEntity;
+import io.lumine.mythic.api.skills.SkillCaster;
+import io.lumine.mythic.api.skills.SkillManager;
+import io.lumine.mythic.bukkit.BukkitAdapter;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MythicMobs 施法者适配缓存
+ * 将玩家的 AbstractEntity 与 SkillCaster 保存在会话上，同一玩家连续施法时复用，不再每次适配；
+ * 目标实体的适配对象同样按会话复用。
+ * 离服时随会话重置清空，切换世界与死亡时由本监听器清空。仅在主线程访问。
+ */
+public class MythicCasterCache implements Listener {
+
+    // 每个会话最多保留的目标适配对象数，超出时先剔除失效实体，仍超出则清空
+    private static final int MAX_TARGET_ADAPTERS = 32;
+
+    private final DebugUtil logger;
+    private final PlayerStateManager stateManager;
+    private final SkillManager skillManager;
+
+    // 统计
+    private long hits = 0;
+    private long builds = 0;
+    private long invalidations = 0;
+
+    public MythicCasterCache(DebugUtil logger, PlayerStateManager stateManager) {
+        this.logger = logger;
+        this.stateManager = stateManager;
+        SkillManager sm = null;
+        try {
+            if (Bukkit.getPluginManager().isPluginEnabled("MythicMobs")) {
+                sm = MythicBukkit.inst().getSkillManager();
+            }
+        } catch (Throwable t) {
+            logger.warn("获取 MythicMobs SkillManager 失败: " + t.getMessage());
+        }
+        this.skillManager = sm;
+    }
+
+    public boolean isAvailable() {
+        return skillManager != null;
+    }
+
+    /**
+     * 获取玩家的施法者适配对象，会话中没有或属于旧的玩家实例时重新创建
+     */
+    public CasterAdapters adapters(Player player, PlayerStateSession session) {
+        if (session != null) {
+            Object cached = session.getMythicCasterAdapters();
+            if (cached instanceof CasterAdapters && ((CasterAdapters) cached).player == player) {
+                hits++;
+                return (CasterAdapters) cached;
+            }
+        }
+        AbstractEntity caster = BukkitAdapter.adapt(player);
+        CasterAdapters adapters = new CasterAdapters(player, caster, skillManager.getCaster(caster));
+        if (session != null) {
+            session.setMythicCasterAdapters(adapters);
+        }
+        builds++;
+        return adapters;
+    }
+
+    /**
+     * 清空玩家会话上的适配对象
+     */
+    public void invalidate(Player player) {
+        PlayerStateSession session = stateManager.getSession(player.getUniqueId());
+        if (session != null && session.getMythicCasterAdapters() != null) {
+            session.setMythicCasterAdapters(null);
+            invalidations++;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerDeath(PlayerDeathEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        long total = hits + builds;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("复用次数", hits);
+        stats.put("创建次数", builds);
+        stats.put("失效次数", invalidations);
+        stats.put("复用率", total > 0 ? String.format("%.1f%%", hits * 100.0 / total) : "0.0%");
+        return stats;
+    }
+
+    /**
+     * 单个玩家的适配对象
+     */
+    public static final class CasterAdapters {
+        private final Player player;
+        private final AbstractEntity caster;
+        private final SkillCaster skillCaster;
+        private final Map<Entity, AbstractEntity> targetAdapters = new IdentityHashMap<>();
+
+        private CasterAdapters(Player player, AbstractEntity caster, SkillCaster skillCaster) {
+            this.player = player;
+            this.caster = caster;
+            this.skillCaster = skillCaster;
+        }
+
+        public AbstractEntity getCaster() {
+            return caster;
+        }
+
+        public SkillCaster getSkillCaster() {
+            return skillCaster;
+        }
+
+        /**
+         * 获取实体的适配对象，施法者自身直接返回缓存的施法者
+         */
+        public AbstractEntity adapt(Entity entity) {
+            if (entity == player) {
+                return caster;
+            }
+            AbstractEntity adapted = targetAdapters.get(entity);
+            if (adapted == null) {
+                if (targetAdapters.size() >= MAX_TARGET_ADAPTERS) {
+                    targetAdapters.keySet().removeIf(e -> !e.isValid());
+                    if (targetAdapters.size() >= MAX_TARGET_ADAPTERS) {
+                        targetAdapters.clear();
+                    }
+                }
+                adapted = BukkitAdapter.adapt(entity);
+                targetAdapters.put(entity, adapted);
+            }
+            return adapted;
+        }
+
+        /**
+         * 适配目标集合
+         * 返回的列表会交给 SkillMetadata 持有（延迟执行的技能在调用返回后仍会读取），因此不跨施法复用；
+         * 单目标时使用不可变单元素列表
+         */
+        public List<AbstractEntity> adaptTargets(Collection<Entity> targets) {
+            if (targets == null || targets.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (targets.size() == 1) {
+                return Collections.singletonList(adapt(targets.iterator().next()));
+            }
+            List<AbstractEntity> adapted = new ArrayList<>(targets.size());
+            for (Entity entity : targets) {
+                adapted.add(adapt(entity));
+            }
+            return adapted;
+        }
+    }
+}
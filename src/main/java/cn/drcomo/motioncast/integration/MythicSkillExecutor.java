@@ -0,0 +1,106 @@
+package cn.drcomo.motioncast.integration;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.rules.ActionType;
+import cn.drcomo.motioncast.state.PlayerStateSession;
+import io.lumine.mythic.api.adapters.AbstractEntity;
+import io.lumine.mythic.api.skills.Skill;
+import io.lumine.mythic.api.skills.SkillManager;
+import io.lumine.mythic.api.skills.SkillMetadata;
+import io.lumine.mythic.api.skills.SkillTrigger;
+import io.lumine.mythic.bukkit.BukkitAdapter;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.core.skills.SkillMetadataImpl;
+import io.lumine.mythic.core.skills.SkillTriggers;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * MythicMobs 技能直接执行器
+ * 使用规则上已解析的技能句柄，直接构造 SkillMetadata 并调用 Skill#execute，
+ * 绕过 BukkitAPIHelper#castSkill 内部的按名查找、对象适配与集合包装。
+ * 触发器按动作类型选择：attack 为 ATTACK，damaged 为 DAMAGED，其余为 API。
+ */
+public class MythicSkillExecutor {
+
+    private final DebugUtil logger;
+    private final SkillManager skillManager;
+    private final MythicCasterCache casterCache;
+
+    public MythicSkillExecutor(DebugUtil logger, MythicCasterCache casterCache) {
+        this.logger = logger;
+        this.casterCache = casterCache;
+        SkillManager sm = null;
+        try {
+            if (Bukkit.getPluginManager().isPluginEnabled("MythicMobs")) {
+                sm = MythicBukkit.inst().getSkillManager();
+            }
+        } catch (Throwable t) {
+            logger.warn("获取 MythicMobs SkillManager 失败: " + t.getMessage());
+        }
+        this.skillManager = sm;
+    }
+
+    public boolean isAvailable() {
+        return skillManager != null;
+    }
+
+    /**
+     * 直接执行规则技能
+     *
+     * @param session 施法者会话，用于复用施法者适配对象
+     * @param trigger 触发实体（受害者、攻击者、载具等），为 null 时使用施法者
+     * @param targets 实体目标，为空时由技能自身的 targeter 决定
+     * @return 是否已调用执行；技能不可用或发生异常时返回 false，由调用方回退到 API 助手
+     */
+    public boolean cast(Player caster, PlayerStateSession session, ActionRule rule,
+                        Entity trigger, Collection<Entity> targets) {
+        if (!isAvailable()) {
+            return false;
+        }
+        try {
+            Skill skill = MythicSkillResolver.skillOf(rule);
+            if (skill == null) {
+                skill = skillManager.getSkill(rule.getSkill()).orElse(null);
+                if (skill == null) {
+                    logger.debug("未找到技能: " + rule.getSkill());
+                    return false;
+                }
+            }
+
+            MythicCasterCache.CasterAdapters adapters = casterCache.adapters(caster, session);
+            AbstractEntity mTrigger = trigger != null ? adapters.adapt(trigger) : adapters.getCaster();
+
+            // 原点随玩家移动，每次施法重新适配
+            SkillMetadata meta = new SkillMetadataImpl(
+                    triggerOf(rule.getAction()),
+                    adapters.getSkillCaster(),
+                    mTrigger,
+                    BukkitAdapter.adapt(caster.getLocation()),
+                    adapters.adaptTargets(targets),
+                    Collections.emptyList(),
+                    1.0f
+            );
+            skill.execute(meta);
+            return true;
+        } catch (Throwable t) {
+            logger.error("直接执行技能失败: " + rule.getSkill() + "，原因: " + t.getMessage());
+            return false;
+        }
+    }
+
+    private static SkillTrigger<?> triggerOf(ActionType action) {
+        if (action == ActionType.ATTACK) {
+            return SkillTriggers.ATTACK;
+        }
+        if (action == ActionType.DAMAGED) {
+            return SkillTriggers.DAMAGED;
+        }
+        return SkillTriggers.API;
+    }
+}
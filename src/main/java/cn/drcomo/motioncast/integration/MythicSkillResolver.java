@@ -0,0 +1,119 @@
+package cn.drcomo.motioncast.integration;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.config.ModelRuleLoader;
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.rules.RuleGeneration;
+import io.lumine.mythic.api.skills.Skill;
+import io.lumine.mythic.api.skills.SkillManager;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.bukkit.events.MythicReloadedEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MythicMobs 技能句柄解析器
+ * 规则加载（含热重载）后为每条规则按技能名解析 Skill 并保存到规则上，触发时不再按名称查找；
+ * MythicMobs 重载技能后旧句柄失效，收到 MythicReloadedEvent 时全部重新解析。
+ * 不存在的技能在解析时报告，规则被标记为技能缺失。
+ */
+public class MythicSkillResolver implements Listener {
+
+    private final DebugUtil logger;
+    private final ModelRuleLoader ruleLoader;
+    private final SkillManager skillManager;
+
+    // 统计
+    private int resolvedSkills = 0;
+    private int missingSkills = 0;
+    private long resolveRuns = 0;
+
+    public MythicSkillResolver(DebugUtil logger, ModelRuleLoader ruleLoader) {
+        this.logger = logger;
+        this.ruleLoader = ruleLoader;
+        SkillManager sm = null;
+        try {
+            if (Bukkit.getPluginManager().isPluginEnabled("MythicMobs")) {
+                sm = MythicBukkit.inst().getSkillManager();
+            }
+        } catch (Throwable t) {
+            logger.warn("获取 MythicMobs SkillManager 失败: " + t.getMessage());
+        }
+        this.skillManager = sm;
+    }
+
+    public boolean isAvailable() {
+        return skillManager != null;
+    }
+
+    /**
+     * 规则代数变更（规则加载或热重载）后解析技能句柄
+     */
+    public void onRuleGeneration(RuleGeneration generation) {
+        resolveAll();
+    }
+
+    /**
+     * MythicMobs 重载后旧的 Skill 实例不再有效，重新解析
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onMythicReload(MythicReloadedEvent event) {
+        logger.debug("检测到 MythicMobs 重载，重新解析规则技能");
+        resolveAll();
+    }
+
+    /**
+     * 为所有已加载的规则解析技能句柄
+     */
+    public void resolveAll() {
+        if (!isAvailable()) {
+            return;
+        }
+        int resolved = 0;
+        int missing = 0;
+        for (ActionRule rule : ruleLoader.getAllRules()) {
+            Skill skill = null;
+            try {
+                skill = skillManager.getSkill(rule.getSkill()).orElse(null);
+            } catch (Throwable t) {
+                logger.debug("解析技能 " + rule.getSkill() + " 时发生异常: " + t.getMessage());
+            }
+            rule.setSkillHandle(skill);
+            rule.setSkillMissing(skill == null);
+            if (skill != null) {
+                resolved++;
+            } else {
+                missing++;
+                logger.warn("规则 " + rule.getUniqueKey() + " 引用的 MythicMobs 技能不存在: " + rule.getSkill());
+            }
+        }
+        resolvedSkills = resolved;
+        missingSkills = missing;
+        resolveRuns++;
+        logger.debug("规则技能解析完成: 成功 " + resolved + "，缺失 " + missing);
+    }
+
+    /**
+     * 获取规则上缓存的技能句柄，未解析时返回 null
+     */
+    public static Skill skillOf(ActionRule rule) {
+        Object handle = rule.getSkillHandle();
+        return handle instanceof Skill ? (Skill) handle : null;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("已解析技能", resolvedSkills);
+        stats.put("缺失技能", missingSkills);
+        stats.put("解析次数", resolveRuns);
+        return stats;
+    }
+}
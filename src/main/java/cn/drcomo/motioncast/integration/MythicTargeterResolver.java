@@ -0,0 +1,156 @@
+package cn.drcomo.motioncast.integration;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.targetfunction.BoundTarget;
+import cn.drcomo.motioncast.targetfunction.TargetContext;
+import cn.drcomo.motioncast.targetfunction.TargetResolver;
+import io.lumine.mythic.api.adapters.AbstractEntity;
+import io.lumine.mythic.api.skills.SkillCaster;
+import io.lumine.mythic.api.skills.SkillMetadata;
+import io.lumine.mythic.bukkit.BukkitAdapter;
+import io.lumine.mythic.bukkit.MythicBukkit;
+import io.lumine.mythic.core.skills.SkillExecutor;
+import io.lumine.mythic.core.skills.SkillMetadataImpl;
+import io.lumine.mythic.core.skills.SkillTargeter;
+import io.lumine.mythic.core.skills.SkillTriggers;
+import io.lumine.mythic.core.skills.targeters.IEntityTargeter;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * MythicMobs 原生目标选择器解析器
+ * 规则加载时通过 SkillExecutor#getTargeter 将 @PlayersInRadius{r=6} 等字符串解析为 targeter 实例，
+ * 绑定后随规则缓存；触发时以玩家为施法者构造元数据直接求值，不再重复解析。
+ * 仅支持返回实体的 targeter，位置类 targeter 在加载时报告为不支持。
+ */
+public class MythicTargeterResolver implements TargetResolver {
+
+    private final DebugUtil logger;
+    private final SkillExecutor skillExecutor;
+
+    public MythicTargeterResolver(DebugUtil logger) {
+        this.logger = logger;
+        SkillExecutor executor = null;
+        try {
+            if (Bukkit.getPluginManager().isPluginEnabled("MythicMobs")) {
+                executor = MythicBukkit.inst().getSkillManager();
+            }
+        } catch (Throwable t) {
+            logger.warn("获取 MythicMobs SkillExecutor 失败: " + t.getMessage());
+        }
+        this.skillExecutor = executor;
+    }
+
+    @Override
+    public String getName() {
+        return "mythic";
+    }
+
+    @Override
+    public boolean supports(String targetSelector) {
+        return parse(targetSelector, false) != null;
+    }
+
+    @Override
+    public Collection<Entity> resolve(String targetSelector, TargetContext context) {
+        IEntityTargeter targeter = parse(targetSelector, false);
+        return targeter != null ? evaluate(targeter, context) : Collections.emptyList();
+    }
+
+    @Override
+    public BoundTarget bind(String targetSelector) {
+        IEntityTargeter targeter = parse(targetSelector, true);
+        if (targeter == null) {
+            return null;
+        }
+        return context -> evaluate(targeter, context);
+    }
+
+    /**
+     * 解析 targeter 字符串，失败或非实体 targeter 返回 null
+     *
+     * @param report 是否在日志中报告失败原因（规则加载时）
+     */
+    private IEntityTargeter parse(String targetSelector, boolean report) {
+        if (skillExecutor == null || targetSelector == null || !targetSelector.startsWith("@")) {
+            return null;
+        }
+        try {
+            SkillTargeter targeter = skillExecutor.getTargeter(targetSelector).orElse(null);
+            if (targeter == null) {
+                if (report) {
+                    logger.warn("MythicMobs 无法解析目标选择器: " + targetSelector);
+                }
+                return null;
+            }
+            if (!(targeter instanceof IEntityTargeter)) {
+                if (report) {
+                    logger.warn("MythicMobs 目标选择器不返回实体，不能用于 target: " + targetSelector);
+                }
+                return null;
+            }
+            return (IEntityTargeter) targeter;
+        } catch (Throwable t) {
+            if (report) {
+                logger.warn("解析 MythicMobs 目标选择器时发生异常: " + targetSelector + "，原因: " + t.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 以玩家为施法者求值 targeter
+     */
+    private Collection<Entity> evaluate(IEntityTargeter targeter, TargetContext context) {
+        Player player = context.getPlayer();
+        if (player == null) {
+            return Collections.emptyList();
+        }
+        AbstractEntity caster = BukkitAdapter.adapt(player);
+        SkillCaster skillCaster = skillExecutor.getCaster(caster);
+        SkillMetadata meta = new SkillMetadataImpl(
+                SkillTriggers.API,
+                skillCaster,
+                caster,
+                BukkitAdapter.adapt(context.getTriggerLocation()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                1.0f
+        );
+
+        Collection<AbstractEntity> entities = targeter.getEntities(meta);
+        if (entities == null || entities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Entity> result = new ArrayList<>(entities.size());
+        for (AbstractEntity entity : entities) {
+            Entity bukkitEntity = entity.getBukkitEntity();
+            if (bukkitEntity != null) {
+                result.add(bukkitEntity);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getDescription() {
+        return "MythicMobs 原生目标选择器解析器";
+    }
+
+    @Override
+    public int getPriority() {
+        // 最低优先级：内置与区域选择器优先匹配
+        return 1000;
+    }
+
+    @Override
+    public boolean isHealthy() {
+        return skillExecutor != null;
+    }
+}
@@ -0,0 +1,71 @@
+package cn.drcomo.motioncast.listener;
+
+import cn.drcomo.motioncast.condition.ConditionDependency;
+import cn.drcomo.motioncast.state.PlayerStateManager;
+import cn.drcomo.motioncast.state.PlayerStateSession;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLevelChangeEvent;
+
+/**
+ * 条件缓存失效监听器
+ * 将 Bukkit 事件映射为 ConditionDependency，使对应玩家依赖该来源的条件结果失效
+ */
+public class ConditionInvalidationListener implements Listener {
+    
+    private final PlayerStateManager stateManager;
+    
+    public ConditionInvalidationListener(PlayerStateManager stateManager) {
+        this.stateManager = stateManager;
+    }
+    
+    /**
+     * 使玩家依赖指定来源的条件结果失效（供其他集成在感知到变化时调用）
+     */
+    public void invalidate(Player player, ConditionDependency dependency) {
+        PlayerStateSession session = stateManager.getSession(player.getUniqueId());
+        if (session != null) {
+            session.getConditionResultCache().invalidate(dependency);
+        }
+    }
+    
+    /**
+     * 入服：离线期间的变化无法感知，宽限期内复用的会话全部失效
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        PlayerStateSession session = stateManager.getSession(event.getPlayer().getUniqueId());
+        if (session != null) {
+            session.getConditionResultCache().invalidateAll();
+        }
+    }
+    
+    /**
+     * 切换世界：世界名变化，按世界区分的权限与权限组也可能变化
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer(), ConditionDependency.WORLD);
+        invalidate(event.getPlayer(), ConditionDependency.PERMISSION);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLevelChange(PlayerLevelChangeEvent event) {
+        invalidate(event.getPlayer(), ConditionDependency.LEVEL);
+    }
+    
+    /**
+     * 游戏模式变化：部分权限插件按游戏模式授予权限
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        invalidate(event.getPlayer(), ConditionDependency.GAMEMODE);
+        invalidate(event.getPlayer(), ConditionDependency.PERMISSION);
+    }
+}
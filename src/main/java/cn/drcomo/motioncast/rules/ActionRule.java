@@ -1,5 +1,8 @@
 package cn.drcomo.motioncast.rules;
 
+import cn.drcomo.motioncast.condition.CompiledCondition;
+import cn.drcomo.motioncast.targetfunction.CompiledTargetSelector;
+
 /**
  * 动作规则实体类
  * 表示一个完整的动作到技能的映射规则
@@ -46,6 +49,27 @@ public class ActionRule {
      */
     private String target;
     
+    /**
+     * 编译后的目标选择器（由加载器绑定到解析器，未指定目标时为 null）
+     */
+    private CompiledTargetSelector targetSelector;
+    
+    /**
+     * MythicMobs 技能句柄（io.lumine.mythic.api.skills.Skill，由 MythicSkillResolver 在加载时解析；
+     * 以 Object 保存，避免未安装 MythicMobs 时加载规则类失败）
+     */
+    private volatile Object skillHandle;
+    
+    /**
+     * 技能名在 MythicMobs 中不存在（解析后标记）
+     */
+    private volatile boolean skillMissing;
+    
+    /**
+     * 技能执行优先级（attack、damaged 与取消事件的规则固定为立即执行）
+     */
+    private CastPriority priority = CastPriority.IMMEDIATE;
+    
     /**
      * 冷却时间（tick）
      */
@@ -56,11 +80,41 @@ public class ActionRule {
      */
     private String require;
     
+    /**
+     * 编译后的条件表达式（由加载器在编译时生成，无条件时为 null）
+     */
+    private CompiledCondition condition;
+    
+    /**
+     * 冷却组名（同模型内同组规则共享一个冷却槽），为空表示使用规则自身的冷却槽
+     */
+    private String cooldownGroup;
+    
+    /**
+     * 全局冷却（tick）：触发后占用玩家的全局冷却通道，期间所有设置了 gcd 的规则均被阻止
+     */
+    private int globalCooldown = 0;
+    
     /**
      * 规则元数据
      */
     private RuleMeta meta;
     
+    /**
+     * 规则序号（由加载器在编译时分配的稠密下标，用于冷却表等数组索引）
+     */
+    private int ordinal = -1;
+    
+    /**
+     * 冷却槽下标（由加载器编译：无冷却组时等于 ordinal，否则为组槽下标）
+     */
+    private int cooldownSlot = -1;
+    
+    /**
+     * 唯一键缓存（id 或 modelId 变更时失效）
+     */
+    private String uniqueKey;
+    
     public ActionRule() {
         this.meta = new RuleMeta();
     }
@@ -73,6 +127,7 @@ public class ActionRule {
     
     public void setId(String id) {
         this.id = id;
+        this.uniqueKey = null;
     }
     
     public String getModelId() {
@@ -81,6 +136,7 @@ public class ActionRule {
     
     public void setModelId(String modelId) {
         this.modelId = modelId;
+        this.uniqueKey = null;
     }
     
     public ActionType getAction() {
@@ -123,6 +179,30 @@ public class ActionRule {
         this.skill = skill;
     }
     
+    public CastPriority getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(CastPriority priority) {
+        this.priority = priority;
+    }
+    
+    public Object getSkillHandle() {
+        return skillHandle;
+    }
+    
+    public void setSkillHandle(Object skillHandle) {
+        this.skillHandle = skillHandle;
+    }
+    
+    public boolean isSkillMissing() {
+        return skillMissing;
+    }
+    
+    public void setSkillMissing(boolean skillMissing) {
+        this.skillMissing = skillMissing;
+    }
+    
     public String getTarget() {
         return target;
     }
@@ -131,6 +211,21 @@ public class ActionRule {
         this.target = target;
     }
     
+    public CompiledTargetSelector getTargetSelector() {
+        return targetSelector;
+    }
+    
+    public void setTargetSelector(CompiledTargetSelector targetSelector) {
+        this.targetSelector = targetSelector;
+    }
+    
+    /**
+     * 是否指定了目标选择器
+     */
+    public boolean hasTarget() {
+        return targetSelector != null;
+    }
+    
     public int getCooldown() {
         return cooldown;
     }
@@ -147,6 +242,14 @@ public class ActionRule {
         this.require = require;
     }
     
+    public CompiledCondition getCondition() {
+        return condition;
+    }
+    
+    public void setCondition(CompiledCondition condition) {
+        this.condition = condition;
+    }
+    
     public RuleMeta getMeta() {
         return meta;
     }
@@ -155,6 +258,50 @@ public class ActionRule {
         this.meta = meta != null ? meta : new RuleMeta();
     }
     
+    public int getOrdinal() {
+        return ordinal;
+    }
+    
+    public void setOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+    
+    public String getCooldownGroup() {
+        return cooldownGroup;
+    }
+    
+    public void setCooldownGroup(String cooldownGroup) {
+        this.cooldownGroup = cooldownGroup != null && !cooldownGroup.trim().isEmpty()
+                ? cooldownGroup.trim() : null;
+    }
+    
+    public boolean hasCooldownGroup() {
+        return cooldownGroup != null;
+    }
+    
+    public int getGlobalCooldown() {
+        return globalCooldown;
+    }
+    
+    public void setGlobalCooldown(int globalCooldown) {
+        this.globalCooldown = Math.max(0, globalCooldown);
+    }
+    
+    public int getCooldownSlot() {
+        return cooldownSlot;
+    }
+    
+    public void setCooldownSlot(int cooldownSlot) {
+        this.cooldownSlot = cooldownSlot;
+    }
+    
+    /**
+     * 是否需要访问冷却表（自身冷却、冷却组或全局冷却任一存在）
+     */
+    public boolean usesCooldownTable() {
+        return cooldown > 0 || cooldownGroup != null || globalCooldown > 0;
+    }
+    
     /**
      * 验证规则是否有效
      */
@@ -190,7 +337,12 @@ public class ActionRule {
      * 用于冷却和缓存
      */
     public String getUniqueKey() {
-        return modelId + ":" + id;
+        String key = uniqueKey;
+        if (key == null) {
+            key = modelId + ":" + id;
+            uniqueKey = key;
+        }
+        return key;
     }
     
     /**
@@ -210,6 +362,8 @@ public class ActionRule {
                 ", skill='" + skill + '\'' +
                 (target != null ? ", target='" + target + '\'' : "") +
                 (cooldown > 0 ? ", cooldown=" + cooldown : "") +
+                (cooldownGroup != null ? ", cooldownGroup='" + cooldownGroup + '\'' : "") +
+                (globalCooldown > 0 ? ", gcd=" + globalCooldown : "") +
                 (when == TriggerWhen.TICK ? ", every=" + every : "") +
                 (when == TriggerWhen.DURATION ? ", after=" + after : "") +
                 (require != null ? ", require='" + require + '\'' : "") +
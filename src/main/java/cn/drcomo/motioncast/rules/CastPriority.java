@@ -0,0 +1,63 @@
+package cn.drcomo.motioncast.rules;
+
+/**
+ * 技能执行优先级枚举
+ * 决定规则命中后技能是立即执行，还是在tick时间预算不足时进入执行队列延后执行
+ */
+public enum CastPriority {
+    /**
+     * 立即执行 - 在触发的事件或tick回调中同步执行，不进入队列；未配置时的默认值
+     */
+    IMMEDIATE("immediate"),
+    
+    /**
+     * 高优先级 - 预算不足时入队，出队时最先执行
+     */
+    HIGH("high"),
+    
+    /**
+     * 普通优先级 - 预算不足时入队，在高优先级之后执行
+     */
+    NORMAL("normal"),
+    
+    /**
+     * 低优先级 - 表现类技能，最后执行，延迟过久时丢弃
+     */
+    LOW("low");
+    
+    private final String configName;
+    
+    CastPriority(String configName) {
+        this.configName = configName;
+    }
+    
+    public String getConfigName() {
+        return configName;
+    }
+    
+    /**
+     * 是否可以延后执行
+     */
+    public boolean isDeferrable() {
+        return this != IMMEDIATE;
+    }
+    
+    /**
+     * 从配置字符串获取优先级
+     */
+    public static CastPriority fromString(String str) {
+        if (str == null) return null;
+        
+        for (CastPriority priority : values()) {
+            if (priority.configName.equalsIgnoreCase(str)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return configName;
+    }
+}
@@ -0,0 +1,113 @@
+package cn.drcomo.motioncast.rules;
+
+import java.util.Arrays;
+
+/**
+ * 规则代数
+ * 每次重建规则索引产生一个新代数，携带上一代槽位到本代槽位的映射表
+ * 槽位布局：[0, 规则数) 为规则自身冷却，其后为冷却组槽，最后一个为全局冷却通道
+ * 各代通过 next 单向串联，持有旧代数的冷却表、定时任务可沿链迁移到最新序号
+ * 旧代数不被当前代引用，无人持有后即可回收
+ */
+public final class RuleGeneration {
+    
+    private static final int[] EMPTY_REMAP = new int[0];
+    
+    private final int id;
+    private final int capacity;
+    private final int globalSlot;
+    // 上一代序号 -> 本代序号，-1 表示规则已删除
+    private final int[] remapFromPrevious;
+    private volatile RuleGeneration next;
+    
+    private RuleGeneration(int id, int capacity, int globalSlot, int[] remapFromPrevious) {
+        this.id = id;
+        this.capacity = capacity;
+        this.globalSlot = globalSlot;
+        this.remapFromPrevious = remapFromPrevious;
+    }
+    
+    /**
+     * 创建初始代数（无规则）
+     */
+    public static RuleGeneration initial() {
+        return new RuleGeneration(0, 0, -1, EMPTY_REMAP);
+    }
+    
+    /**
+     * 派生下一代并链接到本代之后
+     *
+     * @param capacity 新一代的槽位容量
+     * @param globalSlot 新一代的全局冷却通道槽位
+     * @param remap 本代槽位到新一代槽位的映射，长度为本代容量
+     */
+    public RuleGeneration advance(int capacity, int globalSlot, int[] remap) {
+        RuleGeneration generation = new RuleGeneration(id + 1, capacity, globalSlot, remap);
+        this.next = generation;
+        return generation;
+    }
+    
+    /**
+     * 将某一代的序号迁移到目标代
+     *
+     * @return 目标代中的序号；规则已删除或目标代不在链上时返回 -1
+     */
+    public static int translate(RuleGeneration from, RuleGeneration to, int ordinal) {
+        RuleGeneration generation = from;
+        while (generation != to && ordinal >= 0) {
+            RuleGeneration following = generation.next;
+            if (following == null) {
+                return -1;
+            }
+            ordinal = following.remapPrevious(ordinal);
+            generation = following;
+        }
+        return ordinal;
+    }
+    
+    /**
+     * 将上一代序号映射为本代序号，规则已删除时返回 -1
+     */
+    public int remapPrevious(int previousOrdinal) {
+        return previousOrdinal >= 0 && previousOrdinal < remapFromPrevious.length
+                ? remapFromPrevious[previousOrdinal] : -1;
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * 获取全局冷却通道槽位，初始代数为 -1
+     */
+    public int getGlobalSlot() {
+        return globalSlot;
+    }
+    
+    /**
+     * 获取下一代，当前为最新代时返回 null
+     */
+    public RuleGeneration getNext() {
+        return next;
+    }
+    
+    /**
+     * 统计上一代中保留到本代的规则数
+     */
+    public int countRetained() {
+        return (int) Arrays.stream(remapFromPrevious).filter(o -> o >= 0).count();
+    }
+    
+    @Override
+    public String toString() {
+        return "RuleGeneration{" +
+                "id=" + id +
+                ", capacity=" + capacity +
+                ", retained=" + countRetained() + "/" + remapFromPrevious.length +
+                '}';
+    }
+}
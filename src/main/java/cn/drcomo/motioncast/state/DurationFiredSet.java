@@ -0,0 +1,98 @@
+package cn.drcomo.motioncast.state;
+
+import cn.drcomo.motioncast.rules.ActionType;
+import cn.drcomo.motioncast.rules.RuleGeneration;
+
+import java.util.BitSet;
+
+/**
+ * 本次状态激活期间已触发的 duration 规则集合
+ * 按动作类型分组，以规则序号为位下标；状态开始或结束时清空对应动作
+ * 与规则代数绑定，规则重载后沿代数链迁移到新序号，保证重载不会让同一次激活重复触发
+ * 仅在主线程访问
+ */
+public class DurationFiredSet {
+    
+    private final BitSet[] firedByAction = new BitSet[ActionType.values().length];
+    private RuleGeneration generation;
+    
+    /**
+     * 确保与当前规则代数一致，代数落后时迁移已触发的序号
+     */
+    public void ensure(RuleGeneration current) {
+        if (generation == current) {
+            return;
+        }
+        if (generation != null) {
+            for (int a = 0; a < firedByAction.length; a++) {
+                BitSet fired = firedByAction[a];
+                if (fired == null || fired.isEmpty()) continue;
+                BitSet migrated = new BitSet(current.getCapacity());
+                for (int i = fired.nextSetBit(0); i >= 0; i = fired.nextSetBit(i + 1)) {
+                    int ordinal = RuleGeneration.translate(generation, current, i);
+                    if (ordinal >= 0) {
+                        migrated.set(ordinal);
+                    }
+                }
+                firedByAction[a] = migrated;
+            }
+        }
+        generation = current;
+    }
+    
+    /**
+     * 本次激活中该规则是否已触发
+     */
+    public boolean isFired(ActionType action, int ordinal) {
+        BitSet fired = firedByAction[action.ordinal()];
+        return fired != null && ordinal >= 0 && fired.get(ordinal);
+    }
+    
+    /**
+     * 标记该规则在本次激活中已触发
+     */
+    public void markFired(ActionType action, int ordinal) {
+        if (ordinal < 0) return;
+        BitSet fired = firedByAction[action.ordinal()];
+        if (fired == null) {
+            fired = new BitSet();
+            firedByAction[action.ordinal()] = fired;
+        }
+        fired.set(ordinal);
+    }
+    
+    /**
+     * 撤销该规则的触发标记（延后执行的施法最终未执行时调用）
+     *
+     * @param from 序号所属的规则代数，与当前代数不同时沿代数链迁移
+     */
+    public void clearFired(RuleGeneration from, ActionType action, int ordinal) {
+        BitSet fired = firedByAction[action.ordinal()];
+        if (fired == null || generation == null) return;
+        int current = from != null && from != generation ? RuleGeneration.translate(from, generation, ordinal) : ordinal;
+        if (current >= 0) {
+            fired.clear(current);
+        }
+    }
+    
+    /**
+     * 状态开始或结束时清空该动作的触发记录
+     */
+    public void reset(ActionType action) {
+        BitSet fired = firedByAction[action.ordinal()];
+        if (fired != null) {
+            fired.clear();
+        }
+    }
+    
+    /**
+     * 清空全部触发记录
+     */
+    public void clearAll() {
+        for (BitSet fired : firedByAction) {
+            if (fired != null) {
+                fired.clear();
+            }
+        }
+    }
+}
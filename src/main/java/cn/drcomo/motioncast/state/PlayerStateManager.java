@@ -1,6 +1,9 @@
 package cn.drcomo.motioncast.state;
 
 import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.cooldown.CooldownTable;
+import cn.drcomo.motioncast.rules.RuleGeneration;
+import cn.drcomo.motioncast.tick.TickClock;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -8,10 +11,10 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
 
 /**
  * 玩家状态管理器
@@ -22,6 +25,7 @@ public class PlayerStateManager implements Listener {
     // 插件实例（用于在主线程执行Bukkit相关API调用）
     private final Plugin plugin;
     private final DebugUtil logger;
+    private final TickClock tickClock;
     
     // 存储所有玩家的状态会话
     private final Map<UUID, PlayerStateSession> sessions = new ConcurrentHashMap<>();
@@ -30,30 +34,65 @@ public class PlayerStateManager implements Listener {
     private final Set<PlayerStateSession> activeSessions = ConcurrentHashMap.newKeySet();
     private volatile List<PlayerStateSession> activeSnapshot = Collections.emptyList();
     
-    // 定时清理任务
-    private final ScheduledExecutorService cleanupExecutor;
+    // 离线驱逐：playerUUID -> 待执行的驱逐任务（重新加入时取消）
+    private final Map<UUID, BukkitTask> pendingEvictions = new ConcurrentHashMap<>();
+    private long quitGraceTicks = 600L;
+    
+    // 驱逐时仍未到期的冷却快照：playerUUID -> 快照（重新加入时恢复，到期后由清理任务移除）
+    private final Map<UUID, CooldownTable.Snapshot> parkedCooldowns = new ConcurrentHashMap<>();
+    
+    // 会话对象池（复用已驱逐的会话实例）
+    private final SessionPool sessionPool;
+    private int sessionPoolSize = 64;
+    
+    // 上下文清理任务（主线程定时执行）
+    private BukkitTask contextCleanupTask;
     private final long contextMaxAge;
-    private final long sessionMaxAge;
     
     // 统计信息
     private volatile long totalSessionsCreated = 0;
     private volatile long totalSessionsCleaned = 0;
     
-    public PlayerStateManager(Plugin plugin, DebugUtil logger) {
+    public PlayerStateManager(Plugin plugin, DebugUtil logger, TickClock tickClock) {
         this.plugin = plugin;
         this.logger = logger;
+        this.tickClock = tickClock;
         this.contextMaxAge = TimeUnit.MINUTES.toMillis(5); // 上下文数据保存5分钟
-        this.sessionMaxAge = TimeUnit.HOURS.toMillis(1); // 会话最多保存1小时（离线玩家）
         
-        // 创建清理任务执行器
-        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread thread = new Thread(r, "PlayerStateManager-Cleanup");
-            thread.setDaemon(true);
-            return thread;
-        });
+        // 从配置加载参数
+        loadConfiguration();
+        this.sessionPool = new SessionPool(sessionPoolSize);
         
         startCleanupTask();
     }
+    
+    /**
+     * 从配置加载参数
+     */
+    private void loadConfiguration() {
+        try {
+            long cfgQuitGraceTicks = this.quitGraceTicks;
+            int cfgSessionPoolSize = this.sessionPoolSize;
+            
+            // 仅当主插件提供 YamlUtil 时读取；否则维持默认值
+            if (plugin instanceof cn.drcomo.motioncast.DrcomoMotionCast) {
+                cn.drcomo.corelib.config.YamlUtil yaml = ((cn.drcomo.motioncast.DrcomoMotionCast) plugin).getYamlUtil();
+                if (yaml != null) {
+                    cfgQuitGraceTicks = yaml.getInt("settings", "session.quit_grace_ticks", (int) this.quitGraceTicks);
+                    cfgSessionPoolSize = yaml.getInt("settings", "session.pool_size", this.sessionPoolSize);
+                }
+            }
+            
+            // 负值视为立即驱逐
+            this.quitGraceTicks = Math.max(0L, cfgQuitGraceTicks);
+            this.sessionPoolSize = Math.max(0, cfgSessionPoolSize);
+            
+            logger.debug("玩家状态管理器配置已加载: quitGraceTicks=" + quitGraceTicks +
+                    ", sessionPoolSize=" + sessionPoolSize);
+        } catch (Exception e) {
+            logger.error("加载玩家状态管理器配置时出现错误，将使用默认值: " + e.getMessage());
+        }
+    }
 
     /**
      * 重建活跃会话快照
@@ -83,16 +122,17 @@ public class PlayerStateManager implements Listener {
     
     /**
      * 启动定时清理任务
+     * 说明：会话驱逐已改为由离服事件驱动，这里仅保留上下文与冷却快照的过期清理，且在主线程执行
      */
     private void startCleanupTask() {
-        cleanupExecutor.scheduleAtFixedRate(() -> {
+        contextCleanupTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
             try {
-                cleanupExpiredSessions();
                 cleanupExpiredContext();
+                cleanupParkedCooldowns();
             } catch (Exception e) {
                 logger.error("清理任务执行失败: " + e.getMessage());
             }
-        }, 1, 1, TimeUnit.MINUTES);
+        }, 1200L, 1200L);
     }
     
     /**
@@ -101,7 +141,7 @@ public class PlayerStateManager implements Listener {
     public PlayerStateSession getOrCreateSession(UUID playerUUID) {
         return sessions.computeIfAbsent(playerUUID, uuid -> {
             totalSessionsCreated++;
-            PlayerStateSession session = new PlayerStateSession(uuid);
+            PlayerStateSession session = sessionPool.acquire(uuid);
             logger.debug("为玩家 " + uuid + " 创建新的状态会话");
             return session;
         });
@@ -172,6 +212,22 @@ public class PlayerStateManager implements Listener {
         return new ArrayList<>(sessions.values());
     }
     
+    /**
+     * 规则重载后一次性迁移所有会话中按规则序号存储的数据（冷却表、duration 触发记录）
+     * 由 ModelRuleLoader 在重建索引后于主线程调用
+     */
+    public void migrateRuleGeneration(RuleGeneration generation) {
+        int migrated = 0;
+        for (PlayerStateSession session : sessions.values()) {
+            session.getCooldownTable().ensure(generation);
+            session.getDurationFiredSet().ensure(generation);
+            migrated++;
+        }
+        if (migrated > 0) {
+            logger.debug("已将 " + migrated + " 个会话迁移到规则代数 " + generation.getId());
+        }
+    }
+    
     /**
      * 获取在线玩家会话数量
      */
@@ -179,6 +235,13 @@ public class PlayerStateManager implements Listener {
         return sessions.size();
     }
     
+    /**
+     * 获取会话对象池
+     */
+    public SessionPool getSessionPool() {
+        return sessionPool;
+    }
+    
     /**
      * 获取有激活状态的玩家数量
      */
@@ -195,55 +258,94 @@ public class PlayerStateManager implements Listener {
     }
     
     /**
-     * 清理过期的会话
+     * 安排离线会话驱逐
+     * 在宽限期（tick）结束后移除会话；期间玩家重新加入则取消
      */
-    private void cleanupExpiredSessions() {
-        long now = System.currentTimeMillis();
-
-        // 先筛选出超过最大会话时长的候选UUID
-        List<UUID> candidates = new ArrayList<>();
-        for (Map.Entry<UUID, PlayerStateSession> entry : sessions.entrySet()) {
-            PlayerStateSession session = entry.getValue();
-            if (now - session.getCreatedTime() > sessionMaxAge) {
-                candidates.add(entry.getKey());
-            }
+    private void scheduleEviction(UUID playerUUID) {
+        scheduleEviction(playerUUID, quitGraceTicks);
+    }
+    
+    /**
+     * 在指定tick后执行会话驱逐
+     */
+    private void scheduleEviction(UUID playerUUID, long delayTicks) {
+        if (delayTicks <= 0) {
+            evictSession(playerUUID);
+            return;
         }
-
-        if (candidates.isEmpty()) {
+        BukkitTask task = Bukkit.getScheduler().runTaskLater(plugin, () -> evictSession(playerUUID), delayTicks);
+        BukkitTask previous = pendingEvictions.put(playerUUID, task);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+    
+    /**
+     * 取消待执行的会话驱逐
+     */
+    private void cancelEviction(UUID playerUUID) {
+        BukkitTask task = pendingEvictions.remove(playerUUID);
+        if (task != null) {
+            task.cancel();
+            logger.debug("玩家 " + playerUUID + " 在宽限期内重新加入，已取消会话驱逐");
+        }
+    }
+    
+    /**
+     * 执行会话驱逐（主线程）
+     */
+    private void evictSession(UUID playerUUID) {
+        pendingEvictions.remove(playerUUID);
+        
+        // 兜底：玩家已在线则保留会话
+        Player player = Bukkit.getPlayer(playerUUID);
+        if (player != null && player.isOnline()) {
             return;
         }
-
-        try {
-            // 使用Bukkit调度器在主线程同步执行在线状态检查
-            Future<List<UUID>> future = Bukkit.getScheduler().callSyncMethod(plugin, () -> {
-                List<UUID> offline = new ArrayList<>();
-                for (UUID uuid : candidates) {
-                    Player player = Bukkit.getPlayer(uuid);
-                    boolean online = (player != null) && player.isOnline();
-                    if (!online) {
-                        offline.add(uuid);
-                    }
-                }
-                return offline;
-            });
-
-            // 限时等待结果，避免潜在阻塞
-            List<UUID> toRemove = future.get(2, TimeUnit.SECONDS);
-
-            if (toRemove != null && !toRemove.isEmpty()) {
-                for (UUID uuid : toRemove) {
-                    PlayerStateSession removed = removeSession(uuid);
-                    if (removed != null) totalSessionsCleaned++;
-                }
-                logger.debug("清理了 " + toRemove.size() + " 个过期且离线的会话");
+        
+        PlayerStateSession removed = removeSession(playerUUID);
+        if (removed != null) {
+            // 保存仍未到期的冷却，玩家重新加入时恢复，避免借离线重进绕过冷却
+            CooldownTable.Snapshot snapshot = removed.getCooldownTable().snapshot(tickClock.now());
+            if (snapshot != null) {
+                parkedCooldowns.put(playerUUID, snapshot);
             }
-        } catch (TimeoutException te) {
-            logger.warn("在线状态检查超时，跳过本轮过期会话清理");
-        } catch (Exception e) {
-            logger.error("在线状态检查失败: " + e.getMessage());
+            totalSessionsCleaned++;
+            // 驱逐后会话不再被引用，归还对象池以便复用
+            sessionPool.release(removed);
+            logger.debug("离线宽限期结束，已驱逐玩家 " + playerUUID + " 的状态会话");
+        }
+    }
+    
+    /**
+     * 玩家重新加入时恢复驱逐前保存的冷却
+     */
+    private void restoreParkedCooldowns(UUID playerUUID, PlayerStateSession session) {
+        CooldownTable.Snapshot snapshot = parkedCooldowns.remove(playerUUID);
+        if (snapshot == null) {
+            return;
+        }
+        int restored = session.getCooldownTable().restore(snapshot, tickClock.now(), tickClock.getTimingWheel());
+        if (restored > 0) {
+            logger.debug("已为玩家 " + playerUUID + " 恢复 " + restored + " 个离线期间未到期的冷却");
         }
     }
     
+    /**
+     * 丢弃玩家驱逐时保存的冷却（如管理员清除离线玩家的冷却）
+     */
+    public void discardParkedCooldowns(UUID playerUUID) {
+        parkedCooldowns.remove(playerUUID);
+    }
+    
+    /**
+     * 移除已全部到期的冷却快照
+     */
+    private void cleanupParkedCooldowns() {
+        long now = tickClock.now();
+        parkedCooldowns.values().removeIf(snapshot -> snapshot.getLatestExpiry() <= now);
+    }
+    
     /**
      * 清理过期的上下文数据
      */
@@ -257,6 +359,11 @@ public class PlayerStateManager implements Listener {
      * 清空所有会话
      */
     public void clearAllSessions() {
+        // 取消所有待执行的驱逐任务
+        pendingEvictions.values().forEach(BukkitTask::cancel);
+        pendingEvictions.clear();
+        parkedCooldowns.clear();
+        
         int count = sessions.size();
         sessions.clear();
         // 清空活跃集合与快照
@@ -295,6 +402,10 @@ public class PlayerStateManager implements Listener {
         stats.put("激活状态玩家数", getActiveStateCount());
         stats.put("累计创建会话数", totalSessionsCreated);
         stats.put("累计清理会话数", totalSessionsCleaned);
+        stats.put("待驱逐会话数", pendingEvictions.size());
+        stats.put("离线冷却快照数", parkedCooldowns.size());
+        stats.put("会话池大小", sessionPool.size() + "/" + sessionPool.getMaxSize());
+        stats.put("会话池命中率", String.format("%.1f%%", sessionPool.getHitRate()));
         
         // 状态分布统计
         Map<String, Integer> stateStats = new HashMap<>();
@@ -316,7 +427,9 @@ public class PlayerStateManager implements Listener {
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        getOrCreateSession(player);
+        cancelEviction(player.getUniqueId());
+        PlayerStateSession session = getOrCreateSession(player);
+        restoreParkedCooldowns(player.getUniqueId(), session);
         logger.debug("玩家 " + player.getName() + " 加入，初始化状态会话");
     }
     
@@ -325,10 +438,11 @@ public class PlayerStateManager implements Listener {
         Player player = event.getPlayer();
         PlayerStateSession session = getSession(player);
         if (session != null) {
-            // 清理状态但不立即删除会话，让清理任务处理
+            // 清理状态但不立即删除会话，宽限期结束后再驱逐
             session.reset();
             logger.debug("玩家 " + player.getName() + " 离开，重置状态会话");
             updateActiveStatus(session);
+            scheduleEviction(player.getUniqueId());
         }
     }
     
@@ -339,18 +453,14 @@ public class PlayerStateManager implements Listener {
         logger.info("正在关闭玩家状态管理器...");
         
         // 停止清理任务
-        cleanupExecutor.shutdown();
-        try {
-            if (!cleanupExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
-                cleanupExecutor.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            cleanupExecutor.shutdownNow();
-            Thread.currentThread().interrupt();
+        if (contextCleanupTask != null) {
+            contextCleanupTask.cancel();
+            contextCleanupTask = null;
         }
         
         // 清空所有会话
         clearAllSessions();
+        sessionPool.clear();
         
         logger.info("玩家状态管理器已关闭");
     }
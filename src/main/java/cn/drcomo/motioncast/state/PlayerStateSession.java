@@ -1,5 +1,8 @@
 package cn.drcomo.motioncast.state;
 
+import cn.drcomo.motioncast.condition.ConditionResultCache;
+import cn.drcomo.motioncast.cooldown.CooldownTable;
+import cn.drcomo.motioncast.rules.ActionType;
 import org.bukkit.entity.Entity;
 import org.bukkit.util.Vector;
 
@@ -14,8 +17,8 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class PlayerStateSession {
     
-    private final UUID playerUUID;
-    private final long createdTime;
+    private volatile UUID playerUUID;
+    private volatile long createdTime;
     
     // 状态标志位
     private volatile boolean flying = false;
@@ -60,11 +63,31 @@ public class PlayerStateSession {
     // 自定义数据存储
     private final ConcurrentHashMap<String, Object> customData = new ConcurrentHashMap<>();
     
+    // 规则冷却表（按规则序号索引，不随 reset 清空，离服宽限期内保留）
+    private final CooldownTable cooldownTable = new CooldownTable();
+    
+    // 本次激活已触发的 duration 规则，状态切换时清空对应动作
+    private final DurationFiredSet durationFired = new DurationFiredSet();
+    
+    // 慢变条件的求值结果，由相关事件使之失效
+    private final ConditionResultCache conditionResults = new ConditionResultCache();
+    
+    // MythicMobs 施法者适配对象（由集成模块创建；以 Object 保存，未安装 MythicMobs 时不加载其类）
+    private volatile Object mythicCasterAdapters;
+    
     public PlayerStateSession(UUID playerUUID) {
         this.playerUUID = playerUUID;
         this.createdTime = System.currentTimeMillis();
     }
     
+    /**
+     * 将池化会话重新绑定到指定玩家（仅供会话池调用，调用前须已 reset）
+     */
+    void rebind(UUID playerUUID) {
+        this.playerUUID = playerUUID;
+        this.createdTime = System.currentTimeMillis();
+    }
+    
     // 基础信息
     public UUID getPlayerUUID() {
         return playerUUID;
@@ -82,6 +105,7 @@ public class PlayerStateSession {
     public void setFlying(boolean flying) {
         if (this.flying != flying) {
             this.flying = flying;
+            durationFired.reset(ActionType.FLY);
             if (flying) {
                 flyingStartTime.set(System.currentTimeMillis());
                 flyingTicks.set(0);
@@ -97,6 +121,7 @@ public class PlayerStateSession {
     public void setGliding(boolean gliding) {
         if (this.gliding != gliding) {
             this.gliding = gliding;
+            durationFired.reset(ActionType.GLIDE);
             if (gliding) {
                 glidingStartTime.set(System.currentTimeMillis());
                 glidingTicks.set(0);
@@ -112,6 +137,7 @@ public class PlayerStateSession {
     public void setSwimming(boolean swimming) {
         if (this.swimming != swimming) {
             this.swimming = swimming;
+            durationFired.reset(ActionType.SWIM);
             if (swimming) {
                 swimmingStartTime.set(System.currentTimeMillis());
                 swimmingTicks.set(0);
@@ -127,6 +153,7 @@ public class PlayerStateSession {
     public void setInBoat(boolean inBoat) {
         if (this.inBoat != inBoat) {
             this.inBoat = inBoat;
+            durationFired.reset(ActionType.INBOAT);
             if (inBoat) {
                 inBoatStartTime.set(System.currentTimeMillis());
                 inBoatTicks.set(0);
@@ -142,6 +169,7 @@ public class PlayerStateSession {
     public void setRiding(boolean riding) {
         if (this.riding != riding) {
             this.riding = riding;
+            durationFired.reset(ActionType.RIDE);
             if (riding) {
                 ridingStartTime.set(System.currentTimeMillis());
                 ridingTicks.set(0);
@@ -157,6 +185,7 @@ public class PlayerStateSession {
     public void setHovering(boolean hovering) {
         if (this.hovering != hovering) {
             this.hovering = hovering;
+            durationFired.reset(ActionType.HOVER);
             if (hovering) {
                 hoveringStartTime.set(System.currentTimeMillis());
                 hoveringTicks.set(0);
@@ -334,6 +363,38 @@ public class PlayerStateSession {
         return value != null ? value : defaultValue;
     }
     
+    /**
+     * 获取规则冷却表
+     */
+    public CooldownTable getCooldownTable() {
+        return cooldownTable;
+    }
+    
+    /**
+     * 获取本次激活已触发的 duration 规则集合
+     */
+    public DurationFiredSet getDurationFiredSet() {
+        return durationFired;
+    }
+    
+    /**
+     * 获取条件结果缓存
+     */
+    public ConditionResultCache getConditionResultCache() {
+        return conditionResults;
+    }
+    
+    /**
+     * 获取 MythicMobs 施法者适配对象（离服、切换世界、死亡时清空）
+     */
+    public Object getMythicCasterAdapters() {
+        return mythicCasterAdapters;
+    }
+    
+    public void setMythicCasterAdapters(Object mythicCasterAdapters) {
+        this.mythicCasterAdapters = mythicCasterAdapters;
+    }
+    
     /**
      * 检查是否有任何激活的状态
      */
@@ -406,6 +467,9 @@ public class PlayerStateSession {
         currentMount = null;
         
         customData.clear();
+        durationFired.clearAll();
+        conditionResults.clear();
+        mythicCasterAdapters = null;
     }
     
     @Override
@@ -0,0 +1,104 @@
+package cn.drcomo.motioncast.state;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * 玩家会话对象池
+ * 复用已驱逐的会话实例，降低频繁进出服场景下的分配与GC压力
+ */
+public class SessionPool {
+    
+    // 空闲会话（均已 reset）
+    private final ArrayDeque<PlayerStateSession> free = new ArrayDeque<>();
+    private final int maxSize;
+    
+    // 统计信息
+    private long totalAcquires = 0;
+    private long totalHits = 0;
+    private long totalReleases = 0;
+    private long totalDropped = 0;
+    
+    public SessionPool(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+    }
+    
+    /**
+     * 获取一个绑定到指定玩家的会话
+     * 优先复用池中实例，池为空时新建
+     */
+    public synchronized PlayerStateSession acquire(UUID playerUUID) {
+        totalAcquires++;
+        PlayerStateSession session = free.pollFirst();
+        if (session == null) {
+            return new PlayerStateSession(playerUUID);
+        }
+        totalHits++;
+        session.rebind(playerUUID);
+        return session;
+    }
+    
+    /**
+     * 归还会话：重置全部状态后放回池中，池满则丢弃
+     * 调用方须保证该会话已不再被任何地方引用
+     */
+    public synchronized void release(PlayerStateSession session) {
+        if (session == null) return;
+        totalReleases++;
+        if (free.size() >= maxSize) {
+            totalDropped++;
+            return;
+        }
+        session.reset();
+        session.getCooldownTable().clearAll();
+        free.addFirst(session);
+    }
+    
+    /**
+     * 清空池
+     */
+    public synchronized void clear() {
+        free.clear();
+    }
+    
+    public synchronized int size() {
+        return free.size();
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public synchronized long getTotalAcquires() {
+        return totalAcquires;
+    }
+    
+    public synchronized long getTotalHits() {
+        return totalHits;
+    }
+    
+    public synchronized long getTotalReleases() {
+        return totalReleases;
+    }
+    
+    public synchronized long getTotalDropped() {
+        return totalDropped;
+    }
+    
+    /**
+     * 获取命中率（百分比）
+     */
+    public synchronized double getHitRate() {
+        return totalAcquires > 0 ? (double) totalHits / totalAcquires * 100 : 0.0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "SessionPool{" +
+                "size=" + free.size() +
+                ", maxSize=" + maxSize +
+                ", acquires=" + totalAcquires +
+                ", hits=" + totalHits +
+                '}';
+    }
+}
@@ -0,0 +1,269 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 区域目标解析器
+ * 基于 EntitySpatialIndex 的缓存网格回答范围查询，支持：
+ * - @nearby{r=6}：以触发位置为球心的球形范围
+ * - @cone{r=8,angle=60}：以触发位置为顶点、沿视线方向的圆锥（angle 为全角）
+ * - @box{x=4,y=2,z=4}：以触发位置为中心的长方体（x/y/z 为半边长）
+ * 通用参数：type=living|monster|animal|player|实体类型名，limit=最近的N个，self=true 包含玩家自身
+ * 坐标均以实体脚下位置计算；参数在绑定时解析一次
+ */
+public class AreaTargetResolver implements TargetResolver {
+    
+    private static final double DEFAULT_RADIUS = 5.0;
+    private static final double DEFAULT_CONE_ANGLE = 60.0;
+    static final double MAX_RANGE = 64.0;
+    
+    private static final Set<String> KEYWORDS = Set.of("@nearby", "@cone", "@box");
+    
+    private final EntitySpatialIndex index;
+    
+    public AreaTargetResolver(EntitySpatialIndex index) {
+        this.index = index;
+    }
+    
+    @Override
+    public String getName() {
+        return "area";
+    }
+    
+    @Override
+    public Set<String> getKeywords() {
+        return KEYWORDS;
+    }
+    
+    @Override
+    public boolean supports(String targetSelector) {
+        return bind(targetSelector) != null;
+    }
+    
+    @Override
+    public Collection<Entity> resolve(String targetSelector, TargetContext context) {
+        BoundTarget bound = bind(targetSelector);
+        return bound != null ? bound.resolve(context) : Collections.emptyList();
+    }
+    
+    @Override
+    public BoundTarget bind(String targetSelector) {
+        SelectorArguments args = SelectorArguments.parse(targetSelector);
+        if (args == null) {
+            return null;
+        }
+        
+        try {
+            Query query;
+            switch (args.name) {
+                case "@nearby":
+                    query = new Sphere(args.range("r", DEFAULT_RADIUS, MAX_RANGE));
+                    break;
+                case "@cone": {
+                    double r = args.range("r", DEFAULT_RADIUS, MAX_RANGE);
+                    double angle = args.getDouble("angle", DEFAULT_CONE_ANGLE);
+                    if (angle <= 0 || angle > 360) {
+                        return null;
+                    }
+                    query = new Cone(r, angle);
+                    break;
+                }
+                case "@box":
+                    query = new Box(args.range("x", DEFAULT_RADIUS, MAX_RANGE),
+                            args.range("y", DEFAULT_RADIUS, MAX_RANGE),
+                            args.range("z", DEFAULT_RADIUS, MAX_RANGE));
+                    break;
+                default:
+                    return null;
+            }
+            Predicate<LivingEntity> filter = args.typeFilter();
+            if (filter == null) {
+                return null;
+            }
+            int limit = Math.max(0, args.getInt("limit", 0));
+            boolean includeSelf = args.getBoolean("self", false);
+            return context -> query(context, query, filter, limit, includeSelf);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 执行范围查询：网格粗筛后按形状与过滤条件精确判断，limit>0 时只保留最近的若干个
+     */
+    private Collection<Entity> query(TargetContext context, Query shape, Predicate<LivingEntity> filter,
+                                     int limit, boolean includeSelf) {
+        Player player = context.getPlayer();
+        Location origin = shape.origin(context);
+        if (origin == null || origin.getWorld() == null) {
+            return Collections.emptyList();
+        }
+        shape.prepare(origin);
+        
+        List<EntitySpatialIndex.Entry> matched = new ArrayList<>();
+        double reach = shape.horizontalReach();
+        index.forEachCandidate(origin.getWorld(),
+                origin.getX() - reach, origin.getZ() - reach,
+                origin.getX() + reach, origin.getZ() + reach,
+                entry -> {
+                    if (!includeSelf && entry.entity == player) {
+                        return;
+                    }
+                    if (shape.contains(entry.x, entry.y, entry.z)
+                            && entry.entity.isValid() && filter.test(entry.entity)) {
+                        matched.add(entry);
+                    }
+                });
+        if (matched.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        if (limit > 0 && matched.size() > limit) {
+            double ox = origin.getX();
+            double oy = origin.getY();
+            double oz = origin.getZ();
+            matched.sort((a, b) -> Double.compare(distanceSquared(a, ox, oy, oz), distanceSquared(b, ox, oy, oz)));
+            matched.subList(limit, matched.size()).clear();
+        }
+        List<Entity> result = new ArrayList<>(matched.size());
+        for (EntitySpatialIndex.Entry entry : matched) {
+            result.add(entry.entity);
+        }
+        return result;
+    }
+    
+    private static double distanceSquared(EntitySpatialIndex.Entry entry, double x, double y, double z) {
+        double dx = entry.x - x;
+        double dy = entry.y - y;
+        double dz = entry.z - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+    
+    @Override
+    public String getDescription() {
+        return "区域目标解析器 - 支持: @nearby{r=}, @cone{r=,angle=}, @box{x=,y=,z=}";
+    }
+    
+    @Override
+    public int getPriority() {
+        return 20;
+    }
+    
+    // ========== 查询形状 ==========
+    
+    /**
+     * 查询形状：prepare 在每次查询时以原点初始化，contains 只使用缓存坐标判断（仅主线程）
+     */
+    abstract static class Query {
+        double ox;
+        double oy;
+        double oz;
+        
+        Location origin(TargetContext context) {
+            return context.getTriggerLocation();
+        }
+        
+        void prepare(Location origin) {
+            ox = origin.getX();
+            oy = origin.getY();
+            oz = origin.getZ();
+        }
+        
+        abstract double horizontalReach();
+        
+        abstract boolean contains(double x, double y, double z);
+    }
+    
+    static class Sphere extends Query {
+        private final double radius;
+        private final double radiusSquared;
+        
+        Sphere(double radius) {
+            this.radius = radius;
+            this.radiusSquared = radius * radius;
+        }
+        
+        @Override
+        double horizontalReach() {
+            return radius;
+        }
+        
+        @Override
+        boolean contains(double x, double y, double z) {
+            double dx = x - ox;
+            double dy = y - oy;
+            double dz = z - oz;
+            return dx * dx + dy * dy + dz * dz <= radiusSquared;
+        }
+    }
+    
+    static class Cone extends Sphere {
+        private final double cosHalfAngle;
+        private double dirX;
+        private double dirY;
+        private double dirZ;
+        
+        Cone(double radius, double angle) {
+            super(radius);
+            this.cosHalfAngle = Math.cos(Math.toRadians(angle / 2.0));
+        }
+        
+        @Override
+        void prepare(Location origin) {
+            super.prepare(origin);
+            double yaw = Math.toRadians(origin.getYaw());
+            double pitch = Math.toRadians(origin.getPitch());
+            double xz = Math.cos(pitch);
+            dirX = -xz * Math.sin(yaw);
+            dirY = -Math.sin(pitch);
+            dirZ = xz * Math.cos(yaw);
+        }
+        
+        @Override
+        boolean contains(double x, double y, double z) {
+            if (!super.contains(x, y, z)) {
+                return false;
+            }
+            double dx = x - ox;
+            double dy = y - oy;
+            double dz = z - oz;
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length < 1.0E-6) {
+                return true;
+            }
+            return (dx * dirX + dy * dirY + dz * dirZ) / length >= cosHalfAngle;
+        }
+    }
+    
+    static class Box extends Query {
+        private final double halfX;
+        private final double halfY;
+        private final double halfZ;
+        
+        Box(double halfX, double halfY, double halfZ) {
+            this.halfX = halfX;
+            this.halfY = halfY;
+            this.halfZ = halfZ;
+        }
+        
+        @Override
+        double horizontalReach() {
+            return Math.max(halfX, halfZ);
+        }
+        
+        @Override
+        boolean contains(double x, double y, double z) {
+            return Math.abs(x - ox) <= halfX && Math.abs(y - oy) <= halfY && Math.abs(z - oz) <= halfZ;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import org.bukkit.entity.Entity;
+
+import java.util.Collection;
+
+/**
+ * 已绑定的目标选择器
+ * 由解析器在规则加载时预解析选择器及其参数后生成，触发时直接调用
+ */
+@FunctionalInterface
+public interface BoundTarget {
+    
+    /**
+     * 解析目标
+     *
+     * @param context 解析上下文
+     * @return 解析出的实体集合，没有目标时返回空集合
+     */
+    Collection<Entity> resolve(TargetContext context);
+}
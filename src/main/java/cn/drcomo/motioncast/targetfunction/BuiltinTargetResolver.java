@@ -23,6 +23,11 @@ public class BuiltinTargetResolver implements TargetResolver {
         return "builtin";
     }
     
+    @Override
+    public Set<String> getKeywords() {
+        return SUPPORTED_SELECTORS;
+    }
+    
     @Override
     public boolean supports(String targetSelector) {
         if (targetSelector == null) return false;
@@ -55,6 +60,27 @@ public class BuiltinTargetResolver implements TargetResolver {
         }
     }
     
+    @Override
+    public BoundTarget bind(String targetSelector) {
+        if (targetSelector == null) {
+            return null;
+        }
+        switch (targetSelector.toLowerCase().trim()) {
+            case "@self":
+                return this::resolveSelf;
+            case "@victim":
+                return this::resolveVictim;
+            case "@attacker":
+                return this::resolveAttacker;
+            case "@vehicle":
+                return this::resolveVehicle;
+            case "@mount":
+                return this::resolveMount;
+            default:
+                return null;
+        }
+    }
+    
     /**
      * 解析 @self - 玩家自身
      */
@@ -0,0 +1,67 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import org.bukkit.entity.Entity;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 编译后的目标选择器
+ * 规则加载时由 TargeterRegistry 绑定到唯一的解析器，触发时不再查找解析器或重复解析选择器文本
+ * 注册表中的解析器变化后句柄过期，由注册表的变更监听统一重新绑定所有规则
+ */
+public final class CompiledTargetSelector {
+    
+    private final String source;
+    private final String resolverName;
+    private final BoundTarget target;
+    private final long registryVersion;
+    
+    CompiledTargetSelector(String source, String resolverName, BoundTarget target, long registryVersion) {
+        this.source = source;
+        this.resolverName = resolverName;
+        this.target = target;
+        this.registryVersion = registryVersion;
+    }
+    
+    /**
+     * 解析目标；不受支持的选择器返回空集合
+     */
+    public Collection<Entity> resolve(TargetContext context) {
+        if (target == null) {
+            return Collections.emptyList();
+        }
+        Collection<Entity> result = target.resolve(context);
+        return result != null ? result : Collections.emptyList();
+    }
+    
+    /**
+     * 是否有解析器支持该选择器
+     */
+    public boolean isSupported() {
+        return target != null;
+    }
+    
+    /**
+     * 获取原始选择器文本（已去除两侧空白）
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    /**
+     * 获取绑定的解析器名称，不受支持时为 null
+     */
+    public String getResolverName() {
+        return resolverName;
+    }
+    
+    long getRegistryVersion() {
+        return registryVersion;
+    }
+    
+    @Override
+    public String toString() {
+        return source;
+    }
+}
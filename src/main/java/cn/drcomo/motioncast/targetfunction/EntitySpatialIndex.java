@@ -0,0 +1,322 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import cn.drcomo.motioncast.tick.TickClock;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 按世界划分的生物空间哈希
+ * 以水平方向 CELL_SIZE 格的网格分桶缓存生物及其坐标，网格与区块对齐，每个区块包含若干完整网格。
+ * 查询只刷新覆盖查询范围的区块：区块在一个tick内首次被访问时经 Chunk#getEntities 增量更新其网格，
+ * 条目按实体ID在区块内复用、原地更新坐标，只移除已离开区块的实体；同一tick内的后续查询直接读取缓存的桶。
+ * 未加载的区块视为空。成本与查询范围成正比，与世界实体总数无关
+ * 仅在主线程访问
+ */
+public class EntitySpatialIndex {
+    
+    /** 网格边长（格） */
+    public static final int CELL_SIZE = 8;
+    
+    // 每个区块每边的网格数（区块边长 16 格）
+    private static final int CELLS_PER_CHUNK = 16 / CELL_SIZE;
+    
+    // 超过该tick数未被查询的世界索引与区块缓存会被丢弃（如世界或区块已卸载）
+    private static final long IDLE_EVICT_TICKS = 1200L;
+    
+    private final TickClock tickClock;
+    private final Map<UUID, WorldIndex> worlds = new HashMap<>();
+    private long lastEvictTick = 0L;
+    
+    // 统计
+    private long chunkRefreshes = 0;
+    private long queries = 0;
+    private long refreshedEntities = 0;
+    private long createdEntries = 0;
+    
+    public EntitySpatialIndex(TickClock tickClock) {
+        this.tickClock = tickClock;
+    }
+    
+    /**
+     * 遍历与指定包围盒所在网格相交的缓存条目
+     * 只按网格粗筛，精确的形状判断由调用方基于条目坐标完成
+     */
+    void forEachCandidate(World world, double minX, double minZ, double maxX, double maxZ, EntryVisitor visitor) {
+        if (world == null) {
+            return;
+        }
+        queries++;
+        long now = tickClock.now();
+        WorldIndex index = worldIndex(world, now);
+        
+        int minCellX = cell(minX);
+        int maxCellX = cell(maxX);
+        int minCellZ = cell(minZ);
+        int maxCellZ = cell(maxZ);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cz = minCellZ; cz <= maxCellZ; cz++) {
+                visitCell(world, index, cx, cz, now, visitor);
+            }
+        }
+    }
+    
+    /**
+     * 遍历射线经过的网格及其周围一圈网格中的缓存条目
+     * 沿射线的水平投影以半格步长采样网格，每个网格只访问一次，访问的网格数与射线长度成正比，与世界实体总数无关；
+     * 周围一圈用于覆盖脚下位置在相邻网格、包围盒跨越边界的实体
+     *
+     * @param dirX 单位方向向量的 x 分量
+     * @param dirZ 单位方向向量的 z 分量
+     */
+    void forEachCandidateAlongRay(World world, double originX, double originZ,
+                                  double dirX, double dirZ, double length, EntryVisitor visitor) {
+        if (world == null) {
+            return;
+        }
+        queries++;
+        long now = tickClock.now();
+        WorldIndex index = worldIndex(world, now);
+        
+        double horizontal = Math.sqrt(dirX * dirX + dirZ * dirZ) * length;
+        int steps = (int) Math.ceil(horizontal / (CELL_SIZE / 2.0));
+        // 采样网格沿射线在 x、z 上各自单调移动，之前访问过的网格必然也在上一个采样网格的周围一圈内，
+        // 因此只需与上一个采样网格比较即可去重，无需记录已访问集合
+        int lastX = 0;
+        int lastZ = 0;
+        boolean first = true;
+        for (int step = 0; step <= steps; step++) {
+            double t = steps == 0 ? 0.0 : length * step / steps;
+            int cx = cell(originX + dirX * t);
+            int cz = cell(originZ + dirZ * t);
+            if (!first && cx == lastX && cz == lastZ) {
+                continue;
+            }
+            for (int nx = cx - 1; nx <= cx + 1; nx++) {
+                for (int nz = cz - 1; nz <= cz + 1; nz++) {
+                    if (first || Math.abs(nx - lastX) > 1 || Math.abs(nz - lastZ) > 1) {
+                        visitCell(world, index, nx, nz, now, visitor);
+                    }
+                }
+            }
+            lastX = cx;
+            lastZ = cz;
+            first = false;
+        }
+    }
+    
+    /**
+     * 遍历单个网格的条目，所在区块本tick尚未刷新时先刷新
+     */
+    private void visitCell(World world, WorldIndex index, int cellX, int cellZ, long now, EntryVisitor visitor) {
+        int chunkX = Math.floorDiv(cellX, CELLS_PER_CHUNK);
+        int chunkZ = Math.floorDiv(cellZ, CELLS_PER_CHUNK);
+        ChunkCells chunk = refreshChunk(world, index, chunkX, chunkZ, now);
+        if (chunk == null) {
+            return;
+        }
+        List<Entry> bucket = chunk.cells[localIndex(cellX - chunkX * CELLS_PER_CHUNK, cellZ - chunkZ * CELLS_PER_CHUNK)];
+        for (int i = 0, size = bucket.size(); i < size; i++) {
+            visitor.visit(bucket.get(i));
+        }
+    }
+    
+    /**
+     * 增量刷新区块内的网格（同一tick只执行一次）
+     * 仍在区块内的实体复用其条目并原地更新坐标，新出现的实体创建条目，本次未出现的实体移除；
+     * 各网格的桶在刷新时清空后按当前坐标重新填入，列表容量保留复用
+     *
+     * @return 区块缓存；区块未加载时返回 null
+     */
+    private ChunkCells refreshChunk(World world, WorldIndex index, int chunkX, int chunkZ, long now) {
+        long chunkKey = key(chunkX, chunkZ);
+        ChunkCells chunk = index.chunks.get(chunkKey);
+        if (chunk != null && chunk.refreshedTick == now) {
+            return chunk.loaded ? chunk : null;
+        }
+        if (chunk == null) {
+            chunk = new ChunkCells();
+            index.chunks.put(chunkKey, chunk);
+        }
+        chunk.refreshedTick = now;
+        for (List<Entry> cell : chunk.cells) {
+            cell.clear();
+        }
+        // 未加载的区块没有实体，且不能为此触发加载
+        chunk.loaded = world.isChunkLoaded(chunkX, chunkZ);
+        if (!chunk.loaded) {
+            chunk.entries.clear();
+            return null;
+        }
+        chunkRefreshes++;
+        
+        int baseCellX = chunkX * CELLS_PER_CHUNK;
+        int baseCellZ = chunkZ * CELLS_PER_CHUNK;
+        Chunk bukkitChunk = world.getChunkAt(chunkX, chunkZ);
+        for (Entity entity : bukkitChunk.getEntities()) {
+            if (!(entity instanceof LivingEntity)) {
+                continue;
+            }
+            Entry entry = chunk.entries.get(entity.getEntityId());
+            if (entry == null || entry.entity != entity) {
+                entry = new Entry((LivingEntity) entity);
+                chunk.entries.put(entity.getEntityId(), entry);
+                createdEntries++;
+            }
+            Location location = entity.getLocation(entry.location);
+            entry.x = location.getX();
+            entry.y = location.getY();
+            entry.z = location.getZ();
+            entry.seenTick = now;
+            // 实体跨越区块边界而区块列表尚未更新时，归入本区块最近的网格，保证每个实体只在一个区块出现
+            int localX = clamp(cell(entry.x) - baseCellX);
+            int localZ = clamp(cell(entry.z) - baseCellZ);
+            chunk.cells[localIndex(localX, localZ)].add(entry);
+            refreshedEntities++;
+        }
+        // 本次未出现的实体已离开区块、死亡或被移除
+        if (chunk.entries.size() > chunk.cellEntryCount()) {
+            chunk.entries.values().removeIf(entry -> entry.seenTick != now);
+        }
+        return chunk;
+    }
+    
+    /**
+     * 获取世界索引，并定期丢弃长期未访问的世界与区块缓存
+     */
+    private WorldIndex worldIndex(World world, long now) {
+        WorldIndex index = worlds.get(world.getUID());
+        if (index == null) {
+            index = new WorldIndex();
+            worlds.put(world.getUID(), index);
+        }
+        index.lastQueryTick = now;
+        if (now - lastEvictTick >= IDLE_EVICT_TICKS) {
+            lastEvictTick = now;
+            evictIdle(now);
+        }
+        return index;
+    }
+    
+    private void evictIdle(long now) {
+        worlds.values().removeIf(index -> now - index.lastQueryTick > IDLE_EVICT_TICKS);
+        for (WorldIndex index : worlds.values()) {
+            index.chunks.values().removeIf(chunk -> now - chunk.refreshedTick > IDLE_EVICT_TICKS);
+        }
+    }
+    
+    /**
+     * 清空所有索引
+     */
+    public void clear() {
+        worlds.clear();
+    }
+    
+    /**
+     * 获取统计信息
+     */
+    public Map<String, Object> getStatistics() {
+        int entries = 0;
+        int chunks = 0;
+        for (WorldIndex index : worlds.values()) {
+            chunks += index.chunks.size();
+            for (ChunkCells chunk : index.chunks.values()) {
+                entries += chunk.entries.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("世界数", worlds.size());
+        stats.put("缓存区块数", chunks);
+        stats.put("缓存实体数", entries);
+        stats.put("查询次数", queries);
+        stats.put("区块刷新次数", chunkRefreshes);
+        stats.put("刷新实体数", refreshedEntities);
+        stats.put("新建条目数", createdEntries);
+        return stats;
+    }
+    
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate / CELL_SIZE);
+    }
+    
+    private static int clamp(int local) {
+        return Math.max(0, Math.min(CELLS_PER_CHUNK - 1, local));
+    }
+    
+    private static int localIndex(int localX, int localZ) {
+        return localZ * CELLS_PER_CHUNK + localX;
+    }
+    
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * 条目访问回调
+     */
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(Entry entry);
+    }
+    
+    /**
+     * 缓存的生物及其在所在区块最近一次刷新时的坐标
+     * 条目在实体留在区块内期间跨tick复用
+     */
+    static final class Entry {
+        final LivingEntity entity;
+        // 读取坐标时复用的位置对象
+        private final Location location = new Location(null, 0, 0, 0);
+        private long seenTick;
+        double x;
+        double y;
+        double z;
+        
+        Entry(LivingEntity entity) {
+            this.entity = entity;
+        }
+    }
+    
+    /**
+     * 单个区块的网格缓存
+     */
+    private static final class ChunkCells {
+        @SuppressWarnings("unchecked")
+        private final List<Entry>[] cells = new List[CELLS_PER_CHUNK * CELLS_PER_CHUNK];
+        // 实体ID -> 条目
+        private final Map<Integer, Entry> entries = new HashMap<>();
+        private long refreshedTick = -1L;
+        private boolean loaded;
+        
+        ChunkCells() {
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = new ArrayList<>();
+            }
+        }
+        
+        int cellEntryCount() {
+            int count = 0;
+            for (List<Entry> cell : cells) {
+                count += cell.size();
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * 单个世界的索引
+     */
+    private static final class WorldIndex {
+        private final Map<Long, ChunkCells> chunks = new HashMap<>();
+        private long lastQueryTick;
+    }
+}
@@ -0,0 +1,214 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import cn.drcomo.motioncast.tick.TickClock;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * 视线目标解析器
+ * @looking{range=20}：返回玩家视线射线上最近的生物（不检测方块遮挡）
+ * 可选参数：type 过滤类型，radius 为射线加粗半径（默认0，即精确命中包围盒）
+ * 分三步：沿射线遍历 EntitySpatialIndex 的网格取候选；按缓存坐标剔除视线圆柱外的实体；
+ * 仅对剩余实体读取包围盒做射线-包围盒精确检测。结果按玩家在同一tick内复用
+ */
+public class LineOfSightTargetResolver implements TargetResolver {
+    
+    private static final double DEFAULT_RANGE = 20.0;
+    private static final double MAX_RADIUS = 4.0;
+    // 宽相剔除时的容差：脚下坐标到包围盒最远点的距离上限（覆盖常见大型生物）
+    private static final double BROADPHASE_MARGIN = 4.0;
+    
+    private final EntitySpatialIndex index;
+    private final TickClock tickClock;
+    
+    public LineOfSightTargetResolver(EntitySpatialIndex index, TickClock tickClock) {
+        this.index = index;
+        this.tickClock = tickClock;
+    }
+    
+    @Override
+    public String getName() {
+        return "looking";
+    }
+    
+    @Override
+    public Set<String> getKeywords() {
+        return Collections.singleton("@looking");
+    }
+    
+    @Override
+    public boolean supports(String targetSelector) {
+        return bind(targetSelector) != null;
+    }
+    
+    @Override
+    public Collection<Entity> resolve(String targetSelector, TargetContext context) {
+        BoundTarget bound = bind(targetSelector);
+        return bound != null ? bound.resolve(context) : Collections.emptyList();
+    }
+    
+    @Override
+    public BoundTarget bind(String targetSelector) {
+        SelectorArguments args = SelectorArguments.parse(targetSelector);
+        if (args == null || !"@looking".equals(args.name)) {
+            return null;
+        }
+        try {
+            double range = args.range("range", DEFAULT_RANGE, AreaTargetResolver.MAX_RANGE);
+            double radius = args.getDouble("radius", 0.0);
+            if (radius < 0 || radius > MAX_RADIUS) {
+                return null;
+            }
+            Predicate<LivingEntity> filter = args.typeFilter();
+            if (filter == null) {
+                return null;
+            }
+            return new Query(range, radius, filter);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    @Override
+    public String getDescription() {
+        return "视线目标解析器 - 支持: @looking{range=,radius=,type=}";
+    }
+    
+    @Override
+    public int getPriority() {
+        return 20;
+    }
+    
+    /**
+     * 射线与向外扩展 radius 的轴对齐包围盒求交（slab 法）
+     *
+     * @return 射线进入包围盒的距离；起点在盒内时为0；不相交返回 -1
+     */
+    static double intersect(BoundingBox box, double radius, double ox, double oy, double oz,
+                            double dx, double dy, double dz) {
+        double near = Math.max(0.0, Math.max(
+                slabEnter(box.getMinX() - radius, box.getMaxX() + radius, ox, dx),
+                Math.max(slabEnter(box.getMinY() - radius, box.getMaxY() + radius, oy, dy),
+                        slabEnter(box.getMinZ() - radius, box.getMaxZ() + radius, oz, dz))));
+        double far = Math.min(
+                slabExit(box.getMinX() - radius, box.getMaxX() + radius, ox, dx),
+                Math.min(slabExit(box.getMinY() - radius, box.getMaxY() + radius, oy, dy),
+                        slabExit(box.getMinZ() - radius, box.getMaxZ() + radius, oz, dz)));
+        return near <= far ? near : -1;
+    }
+    
+    /**
+     * 射线进入单个轴向区间的距离；方向与该轴平行时，起点在区间内为负无穷，否则为正无穷
+     */
+    private static double slabEnter(double min, double max, double origin, double direction) {
+        if (Math.abs(direction) < 1.0E-9) {
+            return origin >= min && origin <= max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return Math.min((min - origin) / direction, (max - origin) / direction);
+    }
+    
+    /**
+     * 射线离开单个轴向区间的距离；方向与该轴平行时，起点在区间内为正无穷，否则为负无穷
+     */
+    private static double slabExit(double min, double max, double origin, double direction) {
+        if (Math.abs(direction) < 1.0E-9) {
+            return origin >= min && origin <= max ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        return Math.max((min - origin) / direction, (max - origin) / direction);
+    }
+    
+    /**
+     * 绑定后的视线查询，持有本tick内各玩家的结果
+     */
+    private final class Query implements BoundTarget {
+        private final double range;
+        private final double radius;
+        private final Predicate<LivingEntity> filter;
+        
+        private final Map<UUID, Collection<Entity>> results = new HashMap<>();
+        private long resultsTick = -1L;
+        
+        Query(double range, double radius, Predicate<LivingEntity> filter) {
+            this.range = range;
+            this.radius = radius;
+            this.filter = filter;
+        }
+        
+        @Override
+        public Collection<Entity> resolve(TargetContext context) {
+            Player player = context.getPlayer();
+            if (player == null) {
+                return Collections.emptyList();
+            }
+            long now = tickClock.now();
+            if (resultsTick != now) {
+                results.clear();
+                resultsTick = now;
+            }
+            Collection<Entity> cached = results.get(player.getUniqueId());
+            if (cached != null && (cached.isEmpty() || cached.iterator().next().isValid())) {
+                return cached;
+            }
+            Collection<Entity> result = trace(player);
+            results.put(player.getUniqueId(), result);
+            return result;
+        }
+        
+        private Collection<Entity> trace(Player player) {
+            Location eye = player.getEyeLocation();
+            double ox = eye.getX();
+            double oy = eye.getY();
+            double oz = eye.getZ();
+            double yaw = Math.toRadians(eye.getYaw());
+            double pitch = Math.toRadians(eye.getPitch());
+            double xz = Math.cos(pitch);
+            double dx = -xz * Math.sin(yaw);
+            double dy = -Math.sin(pitch);
+            double dz = xz * Math.cos(yaw);
+            
+            double cull = BROADPHASE_MARGIN + radius;
+            double cullSquared = cull * cull;
+            LivingEntity[] best = new LivingEntity[1];
+            double[] bestDistance = {Double.MAX_VALUE};
+            
+            index.forEachCandidateAlongRay(eye.getWorld(), ox, oz, dx, dz, range, entry -> {
+                if (entry.entity == player) {
+                    return;
+                }
+                // 视线圆柱剔除：只用缓存坐标，不读取包围盒
+                double px = entry.x - ox;
+                double py = entry.y - oy;
+                double pz = entry.z - oz;
+                double along = px * dx + py * dy + pz * dz;
+                if (along < -cull || along > range + cull) {
+                    return;
+                }
+                double perpendicularSquared = px * px + py * py + pz * pz - along * along;
+                if (perpendicularSquared > cullSquared) {
+                    return;
+                }
+                if (!entry.entity.isValid() || !filter.test(entry.entity)) {
+                    return;
+                }
+                // 精确检测：射线与（加粗后的）包围盒求交
+                double hit = intersect(entry.entity.getBoundingBox(), radius, ox, oy, oz, dx, dy, dz);
+                if (hit >= 0 && hit <= range && hit < bestDistance[0]) {
+                    bestDistance[0] = hit;
+                    best[0] = entry.entity;
+                }
+            });
+            return best[0] != null ? Collections.singletonList(best[0]) : Collections.emptyList();
+        }
+    }
+}
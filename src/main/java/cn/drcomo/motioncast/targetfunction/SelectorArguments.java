@@ -0,0 +1,113 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import org.bukkit.entity.Animals;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Monster;
+import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 带参数的选择器文本解析结果
+ * 格式为 @name 或 @name{key=value,...}，名称与参数键统一小写；供空间类解析器在绑定时使用
+ */
+final class SelectorArguments {
+    
+    final String name;
+    private final Map<String, String> values;
+    
+    private SelectorArguments(String name, Map<String, String> values) {
+        this.name = name;
+        this.values = values;
+    }
+    
+    /**
+     * 解析选择器文本，格式错误返回 null
+     */
+    static SelectorArguments parse(String targetSelector) {
+        if (targetSelector == null) {
+            return null;
+        }
+        String selector = targetSelector.trim();
+        int brace = selector.indexOf('{');
+        if (brace < 0) {
+            return new SelectorArguments(selector.toLowerCase(Locale.ROOT), Collections.emptyMap());
+        }
+        if (!selector.endsWith("}")) {
+            return null;
+        }
+        String body = selector.substring(brace + 1, selector.length() - 1);
+        Map<String, String> values = new HashMap<>();
+        if (!body.trim().isEmpty()) {
+            for (String part : body.split("[,;]")) {
+                int eq = part.indexOf('=');
+                if (eq <= 0) {
+                    return null;
+                }
+                values.put(part.substring(0, eq).trim().toLowerCase(Locale.ROOT), part.substring(eq + 1).trim());
+            }
+        }
+        return new SelectorArguments(selector.substring(0, brace).toLowerCase(Locale.ROOT), values);
+    }
+    
+    /**
+     * 读取 (0, max] 范围内的距离参数
+     *
+     * @throws NumberFormatException 非数字或超出范围
+     */
+    double range(String key, double defaultValue, double max) {
+        String value = values.get(key);
+        double parsed = value != null ? Double.parseDouble(value) : defaultValue;
+        if (parsed <= 0 || parsed > max) {
+            throw new NumberFormatException(key + " 超出范围: " + parsed);
+        }
+        return parsed;
+    }
+    
+    double getDouble(String key, double defaultValue) {
+        String value = values.get(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+    
+    int getInt(String key, int defaultValue) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+    
+    boolean getBoolean(String key, boolean defaultValue) {
+        String value = values.get(key);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+    
+    /**
+     * type 参数对应的过滤器：living（默认）、monster、animal、player 或实体类型名；未知类型返回 null
+     */
+    Predicate<LivingEntity> typeFilter() {
+        String type = values.get("type");
+        if (type == null) {
+            return entity -> true;
+        }
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "living":
+                return entity -> true;
+            case "monster":
+                return entity -> entity instanceof Monster;
+            case "animal":
+                return entity -> entity instanceof Animals;
+            case "player":
+                return entity -> entity instanceof Player;
+            default:
+                try {
+                    EntityType entityType = EntityType.valueOf(type.toUpperCase(Locale.ROOT));
+                    return entity -> entity.getType() == entityType;
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+        }
+    }
+}
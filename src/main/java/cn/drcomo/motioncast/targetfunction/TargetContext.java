@@ -5,17 +5,23 @@ import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 /**
  * 目标解析上下文
  * 提供目标选择器解析时需要的上下文信息
+ * 触发位置与会话中的实体信息在首次访问时才读取，同一次触发内的多条规则共享同一实例
  */
 public class TargetContext {
     
     private final Player player;
     private final PlayerStateSession session;
-    private final Location triggerLocation;
+    private Location triggerLocation;
     
-    // 事件上下文
+    // 事件上下文（首次访问时从会话读取）
+    private boolean entitiesLoaded;
     private Entity lastAttacker;
     private Entity lastVictim;
     private Entity currentVehicle;
@@ -24,12 +30,23 @@ public class TargetContext {
     // 额外的上下文数据
     private Object eventData;
     
+    // 本次触发内已解析的目标，按编译后的选择器实例区分（首次写入时创建，上下文被修改时清空）
+    private Map<CompiledTargetSelector, Collection<Entity>> resolvedTargets;
+    
     public TargetContext(Player player, PlayerStateSession session, Location triggerLocation) {
         this.player = player;
         this.session = session;
         this.triggerLocation = triggerLocation;
-        
-        // 从会话中获取上下文信息
+    }
+    
+    /**
+     * 从会话中读取实体上下文（仅首次访问时执行）
+     */
+    private void loadEntities() {
+        if (entitiesLoaded) {
+            return;
+        }
+        entitiesLoaded = true;
         if (session != null) {
             this.lastAttacker = session.getLastAttacker();
             this.lastVictim = session.getLastVictim();
@@ -49,41 +66,56 @@ public class TargetContext {
     }
     
     public Location getTriggerLocation() {
-        return triggerLocation != null ? triggerLocation : player.getLocation();
+        if (triggerLocation == null) {
+            triggerLocation = player.getLocation();
+        }
+        return triggerLocation;
     }
     
     // 上下文实体获取
     
     public Entity getLastAttacker() {
+        loadEntities();
         return lastAttacker;
     }
     
     public void setLastAttacker(Entity lastAttacker) {
+        loadEntities();
         this.lastAttacker = lastAttacker;
+        resolvedTargets = null;
     }
     
     public Entity getLastVictim() {
+        loadEntities();
         return lastVictim;
     }
     
     public void setLastVictim(Entity lastVictim) {
+        loadEntities();
         this.lastVictim = lastVictim;
+        resolvedTargets = null;
     }
     
     public Entity getCurrentVehicle() {
+        loadEntities();
         return currentVehicle;
     }
     
     public void setCurrentVehicle(Entity currentVehicle) {
+        loadEntities();
         this.currentVehicle = currentVehicle;
+        resolvedTargets = null;
     }
     
     public Entity getCurrentMount() {
+        loadEntities();
         return currentMount;
     }
     
     public void setCurrentMount(Entity currentMount) {
+        loadEntities();
         this.currentMount = currentMount;
+        resolvedTargets = null;
     }
     
     // 事件数据
@@ -94,6 +126,7 @@ public class TargetContext {
     
     public void setEventData(Object eventData) {
         this.eventData = eventData;
+        resolvedTargets = null;
     }
     
     /**
@@ -107,6 +140,35 @@ public class TargetContext {
         return null;
     }
     
+    // 目标备忘
+    
+    /**
+     * 获取本次触发内已解析的目标；其中有实体已失效（如被前一条规则的技能击杀）时视为未备忘
+     */
+    Collection<Entity> getMemoizedTargets(CompiledTargetSelector selector) {
+        if (resolvedTargets == null) {
+            return null;
+        }
+        Collection<Entity> targets = resolvedTargets.get(selector);
+        if (targets == null) {
+            return null;
+        }
+        for (Entity entity : targets) {
+            if (!entity.isValid()) {
+                resolvedTargets.remove(selector);
+                return null;
+            }
+        }
+        return targets;
+    }
+    
+    void memoizeTargets(CompiledTargetSelector selector, Collection<Entity> targets) {
+        if (resolvedTargets == null) {
+            resolvedTargets = new IdentityHashMap<>(4);
+        }
+        resolvedTargets.put(selector, targets);
+    }
+    
     // 便捷方法
     
     /**
@@ -120,6 +182,7 @@ public class TargetContext {
      * 检查最近的攻击者是否有效
      */
     public boolean hasValidAttacker() {
+        loadEntities();
         return lastAttacker != null && lastAttacker.isValid();
     }
     
@@ -127,6 +190,7 @@ public class TargetContext {
      * 检查最近的受害者是否有效
      */
     public boolean hasValidVictim() {
+        loadEntities();
         return lastVictim != null && lastVictim.isValid();
     }
     
@@ -134,6 +198,7 @@ public class TargetContext {
      * 检查当前载具是否有效
      */
     public boolean hasValidVehicle() {
+        loadEntities();
         return currentVehicle != null && currentVehicle.isValid();
     }
     
@@ -141,14 +206,15 @@ public class TargetContext {
      * 检查当前坐骑是否有效
      */
     public boolean hasValidMount() {
+        loadEntities();
         return currentMount != null && currentMount.isValid();
     }
     
     /**
-     * 创建玩家位置的上下文
+     * 创建玩家位置的上下文（位置在首次访问时读取）
      */
     public static TargetContext fromPlayer(Player player, PlayerStateSession session) {
-        return new TargetContext(player, session, player.getLocation());
+        return new TargetContext(player, session, null);
     }
     
     /**
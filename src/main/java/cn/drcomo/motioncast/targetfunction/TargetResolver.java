@@ -3,6 +3,8 @@ package cn.drcomo.motioncast.targetfunction;
 import org.bukkit.entity.Entity;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * 目标解析器接口
@@ -33,6 +35,28 @@ public interface TargetResolver {
      */
     Collection<Entity> resolve(String targetSelector, TargetContext context);
     
+    /**
+     * 预解析目标选择器并绑定为可直接调用的句柄
+     * 在规则加载时调用一次；解析器可在此解析选择器参数，避免每次触发重复处理文本
+     * 
+     * @param targetSelector 目标选择器字符串（已去除两侧空白）
+     * @return 绑定后的句柄，不支持该选择器时返回 null
+     */
+    default BoundTarget bind(String targetSelector) {
+        if (!supports(targetSelector)) {
+            return null;
+        }
+        return context -> resolve(targetSelector, context);
+    }
+    
+    /**
+     * 声明支持的选择器关键词（'{' 或 ':' 之前的部分，如 "@self"、"myplugin"）
+     * 声明后注册表只对以这些关键词开头的选择器调用 supports/bind；返回空集合表示未声明，此时对任意选择器都会尝试
+     */
+    default Set<String> getKeywords() {
+        return Collections.emptySet();
+    }
+    
     /**
      * 获取解析器的描述信息
      */
@@ -1,6 +1,7 @@
 package cn.drcomo.motioncast.targetfunction;
 
 import cn.drcomo.corelib.util.DebugUtil;
+import cn.drcomo.motioncast.tick.TickClock;
 import org.bukkit.entity.Entity;
 
 import java.util.*;
@@ -15,23 +16,42 @@ public class TargeterRegistry {
     
     private final DebugUtil logger;
     
+    // 区域解析器共享的生物空间索引
+    private final EntitySpatialIndex spatialIndex;
+    
     // 按优先级排序的解析器列表
     private final List<TargetResolver> resolvers = new CopyOnWriteArrayList<>();
     
     // 按名称索引的解析器映射
     private final Map<String, TargetResolver> resolversByName = new ConcurrentHashMap<>();
     
+    // 分派索引：关键词 -> 声明该关键词的解析器（按优先级）；未声明关键词的解析器按优先级逐个尝试
+    // 注册或注销时整体重建后替换
+    private volatile Map<String, List<TargetResolver>> keywordIndex = Collections.emptyMap();
+    private volatile List<TargetResolver> fallbackResolvers = Collections.emptyList();
+    
+    // 解析器集合版本：注册或注销解析器时递增，使已编译的选择器过期
+    private volatile long version = 0;
+    
+    // 按选择器文本复用的编译结果：相同选择器的规则共享同一实例，使单次触发内的目标备忘可跨规则命中
+    private final Map<String, CompiledTargetSelector> compiledSelectors = new ConcurrentHashMap<>();
+    
+    // 解析器集合变更监听：注册或注销解析器后调用，由规则加载器重新绑定已加载规则的选择器
+    private final List<Runnable> registryListeners = new CopyOnWriteArrayList<>();
+    
     // 解析统计
     private volatile long totalResolveAttempts = 0;
     private volatile long successfulResolves = 0;
     private volatile long failedResolves = 0;
+    private volatile long memoizedResolves = 0;
     private final Map<String, Long> resolverUsageStats = new ConcurrentHashMap<>();
     
-    public TargeterRegistry(DebugUtil logger) {
+    public TargeterRegistry(DebugUtil logger, TickClock tickClock) {
         this.logger = logger;
+        this.spatialIndex = new EntitySpatialIndex(tickClock);
         
         // 注册内置解析器
-        registerBuiltinResolvers();
+        registerBuiltinResolvers(tickClock);
         
         logger.debug("目标选择器注册表已初始化");
     }
@@ -39,9 +59,11 @@ public class TargeterRegistry {
     /**
      * 注册内置解析器
      */
-    private void registerBuiltinResolvers() {
+    private void registerBuiltinResolvers(TickClock tickClock) {
         // 注册内置目标解析器
         register(new BuiltinTargetResolver());
+        register(new AreaTargetResolver(spatialIndex));
+        register(new LineOfSightTargetResolver(spatialIndex, tickClock));
         
         logger.info("已注册内置目标解析器");
     }
@@ -64,30 +86,126 @@ public class TargeterRegistry {
         // 检查名称冲突
         if (resolversByName.containsKey(name)) {
             logger.warn("解析器名称 '" + name + "' 已存在，将被替换");
-            unregister(name);
+            removeResolver(name);
         }
         
-        // 添加到列表并按优先级排序
-        resolvers.add(resolver);
-        resolvers.sort(Comparator.comparing(TargetResolver::getPriority));
+        // 按优先级插入（同优先级排在已注册者之后）
+        int priority = resolver.getPriority();
+        int position = 0;
+        while (position < resolvers.size() && resolvers.get(position).getPriority() <= priority) {
+            position++;
+        }
+        resolvers.add(position, resolver);
         
         // 添加到名称映射
         resolversByName.put(name, resolver);
+        rebuildDispatchIndex();
+        version++;
         
         logger.info("已注册目标解析器: " + name + " (优先级: " + resolver.getPriority() + ")");
+        notifyRegistryListeners();
     }
     
     /**
      * 取消注册目标解析器
      */
     public void unregister(String name) {
+        if (removeResolver(name)) {
+            notifyRegistryListeners();
+        }
+    }
+    
+    private boolean removeResolver(String name) {
         TargetResolver resolver = resolversByName.remove(name);
-        if (resolver != null) {
-            resolvers.remove(resolver);
-            logger.info("已取消注册目标解析器: " + name);
+        if (resolver == null) {
+            return false;
+        }
+        resolvers.remove(resolver);
+        rebuildDispatchIndex();
+        version++;
+        logger.info("已取消注册目标解析器: " + name);
+        return true;
+    }
+    
+    /**
+     * 注册解析器集合变更监听，用于在注册或注销解析器后一次性重新绑定规则的目标选择器
+     */
+    public void addRegistryListener(Runnable listener) {
+        registryListeners.add(listener);
+    }
+    
+    private void notifyRegistryListeners() {
+        for (Runnable listener : registryListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("处理目标解析器变更时发生异常: " + e.getMessage());
+            }
         }
     }
     
+    /**
+     * 重建分派索引
+     */
+    private void rebuildDispatchIndex() {
+        Map<String, List<TargetResolver>> index = new HashMap<>();
+        List<TargetResolver> fallback = new ArrayList<>();
+        for (TargetResolver resolver : resolvers) {
+            Set<String> keywords = resolver.getKeywords();
+            if (keywords == null || keywords.isEmpty()) {
+                fallback.add(resolver);
+                continue;
+            }
+            for (String keyword : keywords) {
+                index.computeIfAbsent(keyword.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(resolver);
+            }
+        }
+        keywordIndex = index;
+        fallbackResolvers = fallback;
+    }
+    
+    /**
+     * 提取选择器的关键词：'{' 或 ':' 之前的部分，小写
+     */
+    static String selectorKeyword(String trimmedSelector) {
+        int end = trimmedSelector.length();
+        for (int i = 0; i < end; i++) {
+            char c = trimmedSelector.charAt(i);
+            if (c == '{' || c == ':') {
+                end = i;
+                break;
+            }
+        }
+        return trimmedSelector.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * 获取可能支持该选择器的解析器（按优先级）：声明了其关键词的解析器与未声明关键词的解析器
+     */
+    private List<TargetResolver> candidatesFor(String trimmedSelector) {
+        List<TargetResolver> keyed = keywordIndex.get(selectorKeyword(trimmedSelector));
+        List<TargetResolver> fallback = fallbackResolvers;
+        if (keyed == null) {
+            return fallback;
+        }
+        if (fallback.isEmpty()) {
+            return keyed;
+        }
+        // 两个有序列表按优先级归并
+        List<TargetResolver> merged = new ArrayList<>(keyed.size() + fallback.size());
+        int i = 0;
+        int j = 0;
+        while (i < keyed.size() || j < fallback.size()) {
+            if (j >= fallback.size()
+                    || (i < keyed.size() && keyed.get(i).getPriority() <= fallback.get(j).getPriority())) {
+                merged.add(keyed.get(i++));
+            } else {
+                merged.add(fallback.get(j++));
+            }
+        }
+        return merged;
+    }
+    
     /**
      * 获取指定名称的解析器
      */
@@ -95,6 +213,13 @@ public class TargeterRegistry {
         return resolversByName.get(name);
     }
     
+    /**
+     * 获取区域解析器使用的生物空间索引
+     */
+    public EntitySpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+    
     /**
      * 获取所有注册的解析器名称
      */
@@ -109,9 +234,98 @@ public class TargeterRegistry {
         return new ArrayList<>(resolvers);
     }
     
+    /**
+     * 编译目标选择器
+     * 按优先级找到第一个支持该选择器的解析器并绑定；没有解析器支持时返回未绑定的句柄（isSupported 为 false）
+     *
+     * @return 编译结果，选择器为空时返回 null
+     */
+    public CompiledTargetSelector compile(String targetSelector) {
+        if (targetSelector == null || targetSelector.trim().isEmpty()) {
+            return null;
+        }
+        
+        String trimmedSelector = targetSelector.trim();
+        long currentVersion = version;
+        
+        CompiledTargetSelector cached = compiledSelectors.get(trimmedSelector);
+        if (cached != null && cached.getRegistryVersion() == currentVersion) {
+            return cached;
+        }
+        
+        CompiledTargetSelector compiled = new CompiledTargetSelector(trimmedSelector, null, null, currentVersion);
+        for (TargetResolver resolver : candidatesFor(trimmedSelector)) {
+            try {
+                BoundTarget bound = resolver.bind(trimmedSelector);
+                if (bound != null) {
+                    compiled = new CompiledTargetSelector(trimmedSelector, resolver.getName(), bound, currentVersion);
+                    break;
+                }
+            } catch (Exception e) {
+                logger.error("解析器 " + resolver.getName() + " 绑定选择器 '" +
+                           trimmedSelector + "' 时发生异常: " + e.getMessage());
+            }
+        }
+        
+        compiledSelectors.put(trimmedSelector, compiled);
+        return compiled;
+    }
+    
+    /**
+     * 清空复用的编译结果，下次编译时重新绑定（规则重载时调用，使外部插件重载后的变化生效）
+     */
+    public void clearCompiledSelectors() {
+        compiledSelectors.clear();
+    }
+    
+    /**
+     * 解析已编译的目标选择器
+     * 直接调用绑定的解析器，不再逐个检查解析器是否支持；
+     * 结果在本次触发的上下文内备忘，同一次触发中使用相同选择器的后续规则直接复用
+     */
+    public Collection<Entity> resolve(CompiledTargetSelector selector, TargetContext context) {
+        totalResolveAttempts++;
+        
+        if (selector == null || !selector.isSupported()) {
+            failedResolves++;
+            return Collections.emptyList();
+        }
+        
+        Collection<Entity> memoized = context.getMemoizedTargets(selector);
+        if (memoized != null) {
+            memoizedResolves++;
+            if (memoized.isEmpty()) {
+                failedResolves++;
+            } else {
+                successfulResolves++;
+            }
+            return memoized;
+        }
+        
+        try {
+            Collection<Entity> result = selector.resolve(context);
+            resolverUsageStats.merge(selector.getResolverName(), 1L, Long::sum);
+            context.memoizeTargets(selector, result);
+            
+            if (!result.isEmpty()) {
+                successfulResolves++;
+                return result;
+            }
+            failedResolves++;
+            logger.debug("解析器 " + selector.getResolverName() + " 未为选择器 '" +
+                       selector.getSource() + "' 返回有效目标");
+        } catch (Exception e) {
+            failedResolves++;
+            logger.error("解析器 " + selector.getResolverName() + " 处理选择器 '" +
+                       selector.getSource() + "' 时发生异常: " + e.getMessage());
+        }
+        
+        return Collections.emptyList();
+    }
+    
     /**
      * 解析目标选择器
-     * 按优先级尝试所有解析器，直到找到支持的解析器
+     * 按优先级尝试可能支持该选择器的解析器，直到找到支持的解析器
      */
     public Collection<Entity> resolve(String targetSelector, TargetContext context) {
         totalResolveAttempts++;
@@ -124,8 +338,8 @@ public class TargeterRegistry {
         String trimmedSelector = targetSelector.trim();
         
         try {
-            // 按优先级尝试解析器
-            for (TargetResolver resolver : resolvers) {
+            // 按优先级尝试可能支持该选择器的解析器
+            for (TargetResolver resolver : candidatesFor(trimmedSelector)) {
                 if (resolver.supports(trimmedSelector)) {
                     try {
                         Collection<Entity> result = resolver.resolve(trimmedSelector, context);
@@ -171,7 +385,7 @@ public class TargeterRegistry {
         
         String trimmedSelector = targetSelector.trim();
         
-        for (TargetResolver resolver : resolvers) {
+        for (TargetResolver resolver : candidatesFor(trimmedSelector)) {
             if (resolver.supports(trimmedSelector)) {
                 return true;
             }
@@ -190,7 +404,7 @@ public class TargeterRegistry {
         
         String trimmedSelector = targetSelector.trim();
         
-        for (TargetResolver resolver : resolvers) {
+        for (TargetResolver resolver : candidatesFor(trimmedSelector)) {
             if (resolver.supports(trimmedSelector)) {
                 return resolver;
             }
@@ -228,9 +442,12 @@ public class TargeterRegistry {
     public Map<String, Object> getStatistics() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("注册的解析器数量", resolvers.size());
+        stats.put("索引关键词数", keywordIndex.size());
+        stats.put("未声明关键词的解析器数", fallbackResolvers.size());
         stats.put("总解析尝试次数", totalResolveAttempts);
         stats.put("成功解析次数", successfulResolves);
         stats.put("失败解析次数", failedResolves);
+        stats.put("备忘复用次数", memoizedResolves);
         
         if (totalResolveAttempts > 0) {
             double successRate = (double) successfulResolves / totalResolveAttempts * 100;
@@ -256,6 +473,7 @@ public class TargeterRegistry {
         totalResolveAttempts = 0;
         successfulResolves = 0;
         failedResolves = 0;
+        memoizedResolves = 0;
         resolverUsageStats.clear();
         logger.info("已重置目标解析统计信息");
     }
@@ -277,7 +495,10 @@ public class TargeterRegistry {
         int count = resolvers.size();
         resolvers.clear();
         resolversByName.clear();
+        rebuildDispatchIndex();
         resolverUsageStats.clear();
+        compiledSelectors.clear();
+        version++;
         
         if (count > 0) {
             logger.info("已清空所有 " + count + " 个目标解析器");
@@ -290,6 +511,7 @@ public class TargeterRegistry {
     public void shutdown() {
         logger.info("正在关闭目标选择器注册表...");
         clear();
+        spatialIndex.clear();
         resetStatistics();
         logger.info("目标选择器注册表已关闭");
     }
@@ -0,0 +1,41 @@
+package cn.drcomo.motioncast.tick;
+
+/**
+ * 插件Tick时钟
+ * 由 TickScheduler 每个服务器tick推进一次，作为冷却、缓存等基于tick的时间基准
+ * 同时驱动共享的时间轮，使到期任务在对应tick被触发
+ */
+public class TickClock {
+    
+    private static final int WHEEL_SLOTS = 512;
+    
+    private volatile long currentTick = 0;
+    private final TimingWheel timingWheel = new TimingWheel(WHEEL_SLOTS, 0L);
+    
+    /**
+     * 获取当前tick
+     */
+    public long now() {
+        return currentTick;
+    }
+    
+    /**
+     * 推进一个tick（仅由 TickScheduler 在主线程调用）
+     */
+    void advance() {
+        currentTick++;
+        timingWheel.advance(currentTick);
+    }
+    
+    /**
+     * 获取共享时间轮（仅主线程使用）
+     */
+    public TimingWheel getTimingWheel() {
+        return timingWheel;
+    }
+    
+    @Override
+    public String toString() {
+        return "TickClock{currentTick=" + currentTick + '}';
+    }
+}
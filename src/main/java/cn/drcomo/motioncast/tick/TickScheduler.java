@@ -27,6 +27,7 @@ public class TickScheduler {
     private final DebugUtil logger;
     private final PlayerStateManager stateManager;
     private final ActionEngine actionEngine;
+    private final TickClock tickClock;
     
     // Bukkit调度任务
     private BukkitTask tickTask;
@@ -47,11 +48,13 @@ public class TickScheduler {
     private final AtomicLong totalHoverChecks = new AtomicLong(0);
     private final AtomicLong totalRulesTrigger = new AtomicLong(0);
     
-    public TickScheduler(JavaPlugin plugin, DebugUtil logger, PlayerStateManager stateManager, ActionEngine actionEngine) {
+    public TickScheduler(JavaPlugin plugin, DebugUtil logger, PlayerStateManager stateManager,
+                         ActionEngine actionEngine, TickClock tickClock) {
         this.plugin = plugin;
         this.logger = logger;
         this.stateManager = stateManager;
         this.actionEngine = actionEngine;
+        this.tickClock = tickClock;
         
         // 从配置加载参数
         loadConfiguration();
@@ -183,6 +186,10 @@ public class TickScheduler {
      */
     private void processTick() {
         totalTicks.incrementAndGet();
+        tickClock.advance();
+        
+        // 先执行上个tick因预算不足延后的技能
+        actionEngine.drainExecutionQueue();
         
         // 使用活跃会话快照，避免每Tick全量筛选与分配
         List<PlayerStateSession> activeSessions = stateManager.getActiveSessionSnapshot();
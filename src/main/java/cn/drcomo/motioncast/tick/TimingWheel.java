@@ -0,0 +1,138 @@
+package cn.drcomo.motioncast.tick;
+
+import java.util.Arrays;
+
+/**
+ * 哈希时间轮
+ * 由 TickClock 每tick推进一格，只访问当前槽位，到期任务在到期tick被触发，无需全量扫描
+ * 槽位数为2的幂，超过一圈的任务按到期tick比较跳过，等待下一圈
+ * 仅在主线程使用，不做同步
+ */
+public class TimingWheel {
+    
+    /**
+     * 到期回调
+     */
+    public interface Timeout {
+        /**
+         * 任务到期时在主线程调用
+         *
+         * @param tick 当前tick
+         */
+        void expire(long tick);
+    }
+    
+    private static final class Entry {
+        final long deadline;
+        final Timeout task;
+        Entry next;
+        
+        Entry(long deadline, Timeout task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+    
+    private final Entry[] slots;
+    private final int mask;
+    private long cursor;
+    private int pending = 0;
+    
+    // 统计信息
+    private long totalScheduled = 0;
+    private long totalExpired = 0;
+    
+    public TimingWheel(int slotCount, long startTick) {
+        int size = Integer.highestOneBit(Math.max(16, slotCount - 1) << 1);
+        this.slots = new Entry[size];
+        this.mask = size - 1;
+        this.cursor = startTick;
+    }
+    
+    /**
+     * 注册到期任务
+     * 已过期或当前tick到期的任务会在下一tick触发
+     *
+     * @param deadlineTick 到期tick
+     */
+    public void schedule(long deadlineTick, Timeout task) {
+        long deadline = Math.max(deadlineTick, cursor + 1);
+        int index = (int) (deadline & mask);
+        Entry entry = new Entry(deadline, task);
+        entry.next = slots[index];
+        slots[index] = entry;
+        pending++;
+        totalScheduled++;
+    }
+    
+    /**
+     * 推进到指定tick，触发途经槽位中所有已到期的任务
+     */
+    void advance(long tick) {
+        while (cursor < tick) {
+            cursor++;
+            expireSlot((int) (cursor & mask));
+        }
+    }
+    
+    private void expireSlot(int index) {
+        // 先将到期任务摘链，再统一回调，回调中可安全地重新注册
+        Entry expired = null;
+        Entry previous = null;
+        Entry entry = slots[index];
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.deadline <= cursor) {
+                if (previous == null) {
+                    slots[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                entry.next = expired;
+                expired = entry;
+                pending--;
+            } else {
+                previous = entry;
+            }
+            entry = next;
+        }
+        
+        while (expired != null) {
+            totalExpired++;
+            expired.task.expire(cursor);
+            expired = expired.next;
+        }
+    }
+    
+    /**
+     * 清空所有待触发任务（不回调）
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+        pending = 0;
+    }
+    
+    /**
+     * 获取待触发任务数量
+     */
+    public int getPendingCount() {
+        return pending;
+    }
+    
+    public long getTotalScheduled() {
+        return totalScheduled;
+    }
+    
+    public long getTotalExpired() {
+        return totalExpired;
+    }
+    
+    @Override
+    public String toString() {
+        return "TimingWheel{" +
+                "slots=" + slots.length +
+                ", pending=" + pending +
+                ", cursor=" + cursor +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+package cn.drcomo.motioncast;
+
+import cn.drcomo.corelib.util.DebugUtil;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Proxy;
+import java.util.logging.Logger;
+
+/**
+ * 测试用日志：以仅提供名称与 JUL 日志器的插件代理创建 DebugUtil，只输出错误
+ */
+public final class TestLoggers {
+    
+    private TestLoggers() {
+    }
+    
+    public static DebugUtil quiet() {
+        Logger julLogger = Logger.getLogger("DrcomoMotionCast-Test");
+        Plugin plugin = (Plugin) Proxy.newProxyInstance(TestLoggers.class.getClassLoader(), new Class<?>[] {Plugin.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getName":
+                            return "DrcomoMotionCast";
+                        case "getLogger":
+                            return julLogger;
+                        case "toString":
+                            return "TestPlugin";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            Class<?> type = method.getReturnType();
+                            if (type == boolean.class) {
+                                return false;
+                            }
+                            if (type == long.class) {
+                                return 0L;
+                            }
+                            if (type == int.class) {
+                                return 0;
+                            }
+                            return null;
+                    }
+                });
+        return new DebugUtil(plugin, DebugUtil.LogLevel.ERROR);
+    }
+}
@@ -0,0 +1,154 @@
+package cn.drcomo.motioncast.condition;
+
+import cn.drcomo.corelib.hook.placeholder.parse.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 条件编译器测试：逐个运算符、别名与函数编译后求值
+ */
+class ConditionCompilerTest {
+    
+    private static final Map<String, String> VALUES = new HashMap<>();
+    
+    static {
+        VALUES.put("%t_name%", "DragonBai");
+        VALUES.put("%t_world%", "world_nether");
+        VALUES.put("%t_level%", "12");
+        VALUES.put("%t_hp%", "7.5");
+        VALUES.put("%t_flag%", "true");
+    }
+    
+    private static final PlaceholderSource SOURCE = (player, placeholder) -> VALUES.getOrDefault(placeholder, placeholder);
+    
+    private static boolean eval(String expression) throws ParseException {
+        return ConditionCompiler.compile(expression).evaluate(null, SOURCE);
+    }
+    
+    @Test
+    void numericComparison() throws ParseException {
+        assertTrue(eval("%t_level% == 12"));
+        assertTrue(eval("%t_level% != 11"));
+        assertTrue(eval("%t_level% > 11"));
+        assertFalse(eval("%t_level% > 12"));
+        assertTrue(eval("%t_level% >= 12"));
+        assertTrue(eval("%t_level% < 13"));
+        assertFalse(eval("%t_level% < 12"));
+        assertTrue(eval("%t_level% <= 12"));
+        assertTrue(eval("%t_hp% < %t_level%"));
+    }
+    
+    @Test
+    void comparisonAliases() throws ParseException {
+        assertTrue(eval("%t_level% => 12"));
+        assertFalse(eval("%t_level% => 13"));
+        assertTrue(eval("%t_level% =< 12"));
+        assertFalse(eval("%t_level% =< 11"));
+        assertTrue(eval("%t_level% <> 11"));
+        assertFalse(eval("%t_level% <> 12"));
+        assertTrue(eval("%t_level% =! 11"));
+        assertFalse(eval("%t_level% =! 12"));
+    }
+    
+    @Test
+    void textComparison() throws ParseException {
+        assertTrue(eval("%t_name% == DragonBai"));
+        assertTrue(eval("%t_name% == 'DragonBai'"));
+        assertTrue(eval("%t_name% != Steve"));
+        assertTrue(eval("%t_flag% == true"));
+        assertFalse(eval("%t_flag% == false"));
+    }
+    
+    @Test
+    void lexicographicComparison() throws ParseException {
+        assertTrue(eval("apple < banana"));
+        assertFalse(eval("apple > banana"));
+        assertTrue(eval("%t_world% > world"));
+        assertTrue(eval("%t_world% >= world_nether"));
+        assertTrue(eval("%t_world% <= world_nether"));
+        assertFalse(eval("%t_world% < world"));
+    }
+    
+    @Test
+    void containment() throws ParseException {
+        assertTrue(eval("%t_world% >> nether"));
+        assertFalse(eval("%t_world% >> end"));
+        assertTrue(eval("%t_world% !>> end"));
+        assertFalse(eval("%t_world% !>> nether"));
+        assertTrue(eval("%t_world% >>! end"));
+        assertFalse(eval("%t_world% >>! nether"));
+        assertTrue(eval("nether << %t_world%"));
+        assertFalse(eval("end << %t_world%"));
+        assertTrue(eval("end !<< %t_world%"));
+        assertFalse(eval("nether !<< %t_world%"));
+        assertTrue(eval("end <<! %t_world%"));
+        assertFalse(eval("nether <<! %t_world%"));
+    }
+    
+    @Test
+    void logicAndArithmetic() throws ParseException {
+        assertTrue(eval("%t_level% > 10 && %t_name% == DragonBai"));
+        assertTrue(eval("%t_level% > 20 || %t_hp% < 10"));
+        assertFalse(eval("!(%t_level% > 10)"));
+        assertTrue(eval("%t_level% * 2 - 4 == 20"));
+        assertTrue(eval("%t_level% % 5 == 2"));
+        assertTrue(eval("-%t_level% + 12 == 0"));
+        assertTrue(eval("(%t_level% + 3) / 5 == 3"));
+    }
+    
+    @Test
+    void functions() throws ParseException {
+        assertTrue(eval("min(%t_level%, 10) == 10"));
+        assertTrue(eval("max(%t_level%, 10) == 12"));
+        assertTrue(eval("floor(%t_hp%) == 7"));
+        assertTrue(eval("ceil(%t_hp%) == 8"));
+        assertTrue(eval("round(%t_hp%) == 8"));
+        assertTrue(eval("abs(-%t_level%) == 12"));
+        assertTrue(eval("pow(2, 10) == 1024"));
+        assertTrue(eval("sqrt(16) == 4"));
+        assertTrue(eval("sin(0) == 0"));
+        assertTrue(eval("cos(0) == 1"));
+        assertTrue(eval("tan(0) == 0"));
+        assertTrue(eval("log(1000) == 3"));
+        assertTrue(eval("ln(1) == 0"));
+        assertTrue(eval("clamp(%t_level%, 0, 10) == 10"));
+        assertTrue(eval("lerp(0, 10, 0.5) == 5"));
+        assertTrue(eval("percentage(%t_hp%, 10) == 75"));
+        assertTrue(eval("max(min(%t_level%, 20), floor(%t_hp%)) + 1 > 12"));
+    }
+    
+    @Test
+    void constantFolding() throws ParseException {
+        assertTrue(ConditionCompiler.compile("max(1, 2) == 2").isConstant());
+        assertTrue(ConditionCompiler.compile("abc >> b").isConstant());
+        assertFalse(ConditionCompiler.compile("max(%t_level%, 2) == 2").isConstant());
+    }
+    
+    @Test
+    void invalidExpressions() {
+        assertThrows(ParseException.class, () -> ConditionCompiler.compile("%t_level% = 12"));
+        assertThrows(ParseException.class, () -> ConditionCompiler.compile("unknown(1) == 1"));
+        assertThrows(ParseException.class, () -> ConditionCompiler.compile("pow(2) == 4"));
+        assertThrows(ParseException.class, () -> ConditionCompiler.compile("max(1, 2 == 2"));
+        assertThrows(ParseException.class, () -> ConditionCompiler.compile("1 < 2 < 3"));
+    }
+    
+    @Test
+    void placeholdersResolvedOncePerEvaluation() throws ParseException {
+        CompiledCondition condition = ConditionCompiler.compile("%t_level% > 1 && min(%t_level%, 5) == 5");
+        assertEquals(1, condition.getPlaceholders().size());
+        int[] calls = {0};
+        assertTrue(condition.evaluate(null, (player, placeholder) -> {
+            calls[0]++;
+            return "12";
+        }));
+        assertEquals(1, calls[0]);
+    }
+}
@@ -0,0 +1,131 @@
+package cn.drcomo.motioncast.cooldown;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 进程内的冷却后端
+ * 多个 RemoteSyncCooldownStore 共用同一实例即模拟共享同一数据库的多个子服；
+ * 按调用顺序记录操作日志，便于断言提交、占用与预读的先后
+ */
+final class FakeCooldownBackend implements CooldownBackend {
+    
+    // 玩家 -> (冷却槽标识 -> 到期毫秒)
+    private final Map<UUID, Map<String, Long>> rows = new HashMap<>();
+    // 玩家 -> 占用者
+    private final Map<UUID, String> holders = new HashMap<>();
+    private final List<String> operations = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private boolean open = false;
+    
+    @Override
+    public void open() {
+        open = true;
+    }
+    
+    @Override
+    public void writeBatch(Collection<UUID> playerWipes, List<CooldownRecord> deletes, List<CooldownRecord> upserts) {
+        checkOpen();
+        for (UUID playerUUID : playerWipes) {
+            rows.remove(playerUUID);
+        }
+        for (CooldownRecord record : deletes) {
+            Map<String, Long> slots = rows.get(record.getPlayerUUID());
+            if (slots != null) {
+                slots.remove(record.getSlotKey());
+            }
+        }
+        for (CooldownRecord record : upserts) {
+            rows.computeIfAbsent(record.getPlayerUUID(), k -> new LinkedHashMap<>())
+                    .put(record.getSlotKey(), record.getExpireAtMillis());
+        }
+        batchSizes.add(playerWipes.size() + deletes.size() + upserts.size());
+        operations.add("write");
+    }
+    
+    @Override
+    public List<CooldownRecord> loadActive(UUID playerUUID, long nowMillis) {
+        checkOpen();
+        List<CooldownRecord> records = new ArrayList<>();
+        Map<String, Long> slots = rows.get(playerUUID);
+        if (slots != null) {
+            for (Map.Entry<String, Long> entry : slots.entrySet()) {
+                if (entry.getValue() > nowMillis) {
+                    records.add(new CooldownRecord(playerUUID, entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        operations.add("load");
+        return records;
+    }
+    
+    @Override
+    public String claim(UUID playerUUID, String serverId, boolean force) {
+        checkOpen();
+        String holder = holders.get(playerUUID);
+        if (holder != null && !holder.equals(serverId) && !force) {
+            operations.add("claim-wait:" + serverId);
+            return holder;
+        }
+        holders.put(playerUUID, serverId);
+        operations.add("claim:" + serverId);
+        return null;
+    }
+    
+    @Override
+    public void release(UUID playerUUID, String serverId) {
+        checkOpen();
+        if (serverId.equals(holders.get(playerUUID))) {
+            holders.remove(playerUUID);
+            operations.add("release:" + serverId);
+        }
+    }
+    
+    @Override
+    public void releaseAll(String serverId) {
+        checkOpen();
+        holders.values().removeIf(serverId::equals);
+    }
+    
+    @Override
+    public void close() {
+        open = false;
+    }
+    
+    @Override
+    public String getName() {
+        return "fake";
+    }
+    
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("backend is closed");
+        }
+    }
+    
+    void put(UUID playerUUID, String slotKey, long expireAtMillis) {
+        rows.computeIfAbsent(playerUUID, k -> new LinkedHashMap<>()).put(slotKey, expireAtMillis);
+    }
+    
+    Map<String, Long> rowsOf(UUID playerUUID) {
+        Map<String, Long> slots = rows.get(playerUUID);
+        return slots != null ? slots : new HashMap<>();
+    }
+    
+    String holderOf(UUID playerUUID) {
+        return holders.get(playerUUID);
+    }
+    
+    List<String> operations() {
+        return operations;
+    }
+    
+    List<Integer> batchSizes() {
+        return batchSizes;
+    }
+}
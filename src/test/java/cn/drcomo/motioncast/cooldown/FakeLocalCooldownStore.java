@@ -0,0 +1,104 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.tick.TickClock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 不依赖玩家会话的本地冷却存储：按 玩家 -> (槽位 -> 到期tick) 保存，预占与撤销语义与 LocalCooldownStore 一致
+ */
+final class FakeLocalCooldownStore extends LocalCooldownStore {
+    
+    static final int GLOBAL_SLOT = 1000;
+    
+    private final TickClock tickClock;
+    private final Map<UUID, Map<Integer, Long>> slots = new HashMap<>();
+    
+    FakeLocalCooldownStore(TickClock tickClock) {
+        super(null, null, tickClock);
+        this.tickClock = tickClock;
+    }
+    
+    @Override
+    public long tryAcquire(UUID playerUUID, ActionRule rule, long nowTick) {
+        Map<Integer, Long> table = slotsOf(playerUUID);
+        if (rule.getGlobalCooldown() > 0) {
+            long laneRemaining = table.getOrDefault(GLOBAL_SLOT, 0L) - nowTick;
+            if (laneRemaining > 0) {
+                return laneRemaining;
+            }
+        }
+        long remaining = table.getOrDefault(rule.getCooldownSlot(), 0L) - nowTick;
+        if (remaining > 0) {
+            return remaining;
+        }
+        if (rule.getCooldown() > 0) {
+            table.put(rule.getCooldownSlot(), nowTick + rule.getCooldown());
+        }
+        if (rule.getGlobalCooldown() > 0) {
+            table.put(GLOBAL_SLOT, nowTick + rule.getGlobalCooldown());
+        }
+        return 0L;
+    }
+    
+    @Override
+    public boolean rollback(UUID playerUUID, ActionRule rule, long nowTick) {
+        Map<Integer, Long> table = slotsOf(playerUUID);
+        boolean released = false;
+        if (rule.getGlobalCooldown() > 0) {
+            released = table.remove(GLOBAL_SLOT, nowTick + rule.getGlobalCooldown());
+        }
+        if (rule.getCooldown() > 0 && table.remove(rule.getCooldownSlot(), nowTick + rule.getCooldown())) {
+            released = true;
+        }
+        return released;
+    }
+    
+    @Override
+    public long getExpireTick(UUID playerUUID, ActionRule rule) {
+        return slotsOf(playerUUID).getOrDefault(rule.getCooldownSlot(), 0L);
+    }
+    
+    @Override
+    public long getGlobalExpireTick(UUID playerUUID) {
+        return slotsOf(playerUUID).getOrDefault(GLOBAL_SLOT, 0L);
+    }
+    
+    @Override
+    public boolean set(UUID playerUUID, ActionRule rule, long expireTick) {
+        slotsOf(playerUUID).put(rule.getCooldownSlot(), expireTick);
+        return true;
+    }
+    
+    @Override
+    public boolean restoreSlot(UUID playerUUID, int slot, long remainingTicks) {
+        if (slot < 0 || remainingTicks <= 0) {
+            return false;
+        }
+        long expireTick = tickClock.now() + remainingTicks;
+        Map<Integer, Long> table = slotsOf(playerUUID);
+        if (table.getOrDefault(slot, 0L) >= expireTick) {
+            return false;
+        }
+        table.put(slot, expireTick);
+        return true;
+    }
+    
+    @Override
+    public boolean clear(UUID playerUUID, ActionRule rule) {
+        return slotsOf(playerUUID).remove(rule.getCooldownSlot()) != null;
+    }
+    
+    @Override
+    public int clearAll(UUID playerUUID) {
+        Map<Integer, Long> removed = slots.remove(playerUUID);
+        return removed != null ? removed.size() : 0;
+    }
+    
+    Map<Integer, Long> slotsOf(UUID playerUUID) {
+        return slots.computeIfAbsent(playerUUID, k -> new HashMap<>());
+    }
+}
@@ -0,0 +1,189 @@
+package cn.drcomo.motioncast.cooldown;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 手动驱动的单线程调度执行器
+ * 任务只在调用 runDue 时于当前线程按到期时间与提交顺序执行；时间取自共享的虚拟毫秒时钟，可由多个执行器共用
+ */
+final class ManualScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+    
+    private final AtomicLong clock;
+    private final List<Task<?>> tasks = new ArrayList<>();
+    private long sequence = 0;
+    private boolean shutdown = false;
+    
+    ManualScheduledExecutor(AtomicLong clock) {
+        this.clock = clock;
+    }
+    
+    /**
+     * 执行所有已到期的任务（含执行期间新提交且已到期的任务）
+     *
+     * @return 执行的任务数
+     */
+    int runDue() {
+        int ran = 0;
+        while (true) {
+            Task<?> next = null;
+            for (Task<?> task : tasks) {
+                if (task.runAt <= clock.get() && (next == null || task.compareTo(next) < 0)) {
+                    next = task;
+                }
+            }
+            if (next == null) {
+                return ran;
+            }
+            tasks.remove(next);
+            next.run();
+            ran++;
+        }
+    }
+    
+    /**
+     * 尚未执行的任务数
+     */
+    int pending() {
+        return tasks.size();
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(() -> {
+            command.run();
+            return null;
+        }, delay, unit);
+    }
+    
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new IllegalStateException("executor is shut down");
+        }
+        Task<V> task = new Task<>(callable, clock.get() + unit.toMillis(Math.max(0L, delay)), sequence++);
+        tasks.add(task);
+        return task;
+    }
+    
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+    
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        tasks.clear();
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    @Override
+    public boolean isTerminated() {
+        return shutdown && tasks.isEmpty();
+    }
+    
+    /**
+     * 执行已到期的任务后返回是否已无剩余任务
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        runDue();
+        return tasks.isEmpty();
+    }
+    
+    private final class Task<V> implements ScheduledFuture<V> {
+        private final Callable<V> callable;
+        private final long runAt;
+        private final long seq;
+        private boolean done = false;
+        private boolean cancelled = false;
+        private V result;
+        
+        Task(Callable<V> callable, long runAt, long seq) {
+            this.callable = callable;
+            this.runAt = runAt;
+            this.seq = seq;
+        }
+        
+        void run() {
+            try {
+                result = callable.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                done = true;
+            }
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(runAt - clock.get(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            int byTime = Long.compare(runAt, task.runAt);
+            return byTime != 0 ? byTime : Long.compare(seq, task.seq);
+        }
+        
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done) {
+                return false;
+            }
+            cancelled = true;
+            done = true;
+            return tasks.remove(this);
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public boolean isDone() {
+            return done;
+        }
+        
+        @Override
+        public V get() {
+            return result;
+        }
+        
+        @Override
+        public V get(long timeout, TimeUnit unit) {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package cn.drcomo.motioncast.cooldown;
+
+import cn.drcomo.motioncast.TestLoggers;
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.tick.TickClock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 远程同步冷却存储测试：以手动执行器与虚拟墙钟驱动，多个存储共用一个进程内后端模拟多个子服
+ */
+class RemoteSyncCooldownStoreTest {
+    
+    private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID OTHER = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final String GLOBAL_KEY = "@gcd";
+    
+    private final AtomicLong wall = new AtomicLong(1_000_000L);
+    private final TickClock tickClock = new TickClock();
+    private final FakeCooldownBackend backend = new FakeCooldownBackend();
+    private final List<Runnable> mainTasks = new ArrayList<>();
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    
+    private final CooldownSlotIndex slotIndex = new CooldownSlotIndex() {
+        @Override
+        public String getCooldownSlotKey(ActionRule rule) {
+            return rule.getId();
+        }
+        
+        @Override
+        public String getGlobalSlotKey() {
+            return GLOBAL_KEY;
+        }
+        
+        @Override
+        public int getCooldownSlot(String slotKey) {
+            Integer slot = slotsByKey.get(slotKey);
+            return slot != null ? slot : -1;
+        }
+    };
+    
+    RemoteSyncCooldownStoreTest() {
+        slotsByKey.put(GLOBAL_KEY, FakeLocalCooldownStore.GLOBAL_SLOT);
+    }
+    
+    /**
+     * 一个子服：独立的IO执行器与本地存储，共用后端、墙钟与主线程任务队列
+     */
+    private final class Server {
+        final ManualScheduledExecutor io = new ManualScheduledExecutor(wall);
+        final FakeLocalCooldownStore local = new FakeLocalCooldownStore(tickClock);
+        final RemoteSyncCooldownStore store;
+        
+        Server(String serverId) {
+            store = new RemoteSyncCooldownStore(TestLoggers.quiet(), slotIndex, tickClock, local,
+                    serverId, wall::get, mainTasks::add);
+            store.startBackend(backend, io);
+            io.runDue();
+        }
+        
+        int pending() {
+            return ((Number) store.getStatistics().get("待提交变更数")).intValue();
+        }
+        
+        long stat(String key) {
+            return ((Number) store.getStatistics().get(key)).longValue();
+        }
+    }
+    
+    private ActionRule rule(String id, int slot, int cooldown, int globalCooldown) {
+        ActionRule rule = new ActionRule();
+        rule.setModelId("test");
+        rule.setId(id);
+        rule.setCooldown(cooldown);
+        rule.setGlobalCooldown(globalCooldown);
+        rule.setCooldownSlot(slot);
+        slotsByKey.put(id, slot);
+        return rule;
+    }
+    
+    private void runMain() {
+        while (!mainTasks.isEmpty()) {
+            mainTasks.remove(0).run();
+        }
+    }
+    
+    @Test
+    void writesToTheSameSlotCoalesceIntoOneRow() {
+        Server server = new Server("a");
+        ActionRule slash = rule("slash", 1, 400, 0);
+        
+        assertEquals(0L, server.store.tryAcquire(PLAYER, slash, tickClock.now()));
+        assertTrue(server.store.rollback(PLAYER, slash, tickClock.now()));
+        assertEquals(0L, server.store.tryAcquire(PLAYER, slash, tickClock.now()));
+        assertEquals(1, server.pending());
+        
+        server.store.flush();
+        assertEquals(0, server.pending());
+        server.io.runDue();
+        
+        assertEquals(Arrays.asList(1), backend.batchSizes());
+        assertEquals(wall.get() + 400 * 50L, backend.rowsOf(PLAYER).get("slash"));
+    }
+    
+    @Test
+    void rollbackOfAReservationWritesADelete() {
+        Server server = new Server("a");
+        ActionRule slash = rule("slash", 1, 400, 0);
+        backend.put(PLAYER, "slash", wall.get() + 99_000L);
+        
+        assertEquals(0L, server.store.tryAcquire(PLAYER, slash, tickClock.now()));
+        assertTrue(server.store.rollback(PLAYER, slash, tickClock.now()));
+        server.store.flush();
+        server.io.runDue();
+        
+        assertFalse(backend.rowsOf(PLAYER).containsKey("slash"));
+    }
+    
+    @Test
+    void shortCooldownsAreNotSynced() {
+        Server server = new Server("a");
+        ActionRule jab = rule("jab", 1, 20, 0);
+        
+        assertEquals(0L, server.store.tryAcquire(PLAYER, jab, tickClock.now()));
+        assertEquals(0, server.pending());
+    }
+    
+    @Test
+    void globalCooldownLaneIsSyncedUnderItsOwnKey() {
+        Server server = new Server("a");
+        ActionRule dash = rule("dash", 1, 0, 300);
+        
+        assertEquals(0L, server.store.tryAcquire(PLAYER, dash, tickClock.now()));
+        server.store.flush();
+        server.io.runDue();
+        
+        assertEquals(wall.get() + 300 * 50L, backend.rowsOf(PLAYER).get(GLOBAL_KEY));
+        assertFalse(backend.rowsOf(PLAYER).containsKey("dash"));
+    }
+    
+    @Test
+    void playerWipeDropsPendingWritesAndClearsRemoteRows() {
+        Server server = new Server("a");
+        ActionRule slash = rule("slash", 1, 400, 0);
+        ActionRule smash = rule("smash", 2, 600, 0);
+        backend.put(PLAYER, "old", wall.get() + 99_000L);
+        
+        server.store.tryAcquire(PLAYER, slash, tickClock.now());
+        server.store.tryAcquire(PLAYER, smash, tickClock.now());
+        assertEquals(2, server.pending());
+        server.store.clearAll(PLAYER);
+        assertEquals(1, server.pending());
+        
+        server.store.flush();
+        server.io.runDue();
+        
+        assertEquals(Arrays.asList(1), backend.batchSizes());
+        assertTrue(backend.rowsOf(PLAYER).isEmpty());
+    }
+    
+    @Test
+    void reachingMaxBatchSizeFlushesEarly() {
+        Server server = new Server("a");
+        server.store.configure(100, 3, 200, 250, 3000);
+        ActionRule slash = rule("slash", 1, 400, 0);
+        ActionRule smash = rule("smash", 2, 400, 0);
+        
+        server.store.tryAcquire(PLAYER, slash, tickClock.now());
+        server.store.tryAcquire(PLAYER, smash, tickClock.now());
+        assertEquals(2, server.pending());
+        assertEquals(0, server.io.pending());
+        
+        server.store.tryAcquire(OTHER, slash, tickClock.now());
+        assertEquals(0, server.pending());
+        assertEquals(1, server.io.pending());
+        
+        server.io.runDue();
+        assertEquals(Arrays.asList(3), backend.batchSizes());
+    }
+    
+    @Test
+    void joinReadAheadRestoresLiveSlotsIntoTheLocalTier() {
+        Server server = new Server("a");
+        rule("slash", 1, 400, 0);
+        backend.put(PLAYER, "slash", wall.get() + 2_000L);
+        backend.put(PLAYER, GLOBAL_KEY, wall.get() + 120L);
+        backend.put(PLAYER, "deleted-rule", wall.get() + 5_000L);
+        backend.put(PLAYER, "expired", wall.get() - 1L);
+        
+        server.store.playerJoined(PLAYER);
+        server.io.runDue();
+        assertTrue(server.local.slotsOf(PLAYER).isEmpty());
+        assertEquals(1, mainTasks.size());
+        
+        runMain();
+        Map<Integer, Long> restored = server.local.slotsOf(PLAYER);
+        assertEquals(2, restored.size());
+        assertEquals(tickClock.now() + 40L, restored.get(1));
+        assertEquals(tickClock.now() + 3L, restored.get(FakeLocalCooldownStore.GLOBAL_SLOT));
+        assertEquals("a", backend.holderOf(PLAYER));
+    }
+    
+    @Test
+    void readAheadIsDroppedWhenThePlayerLeavesBeforeItApplies() {
+        Server server = new Server("a");
+        rule("slash", 1, 400, 0);
+        backend.put(PLAYER, "slash", wall.get() + 2_000L);
+        
+        server.store.playerJoined(PLAYER);
+        server.io.runDue();
+        server.store.playerQuit(PLAYER);
+        runMain();
+        
+        assertTrue(server.local.slotsOf(PLAYER).isEmpty());
+    }
+    
+    @Test
+    void joinWaitsForThePreviousServersQuitFlush() {
+        Server lobby = new Server("lobby");
+        Server arena = new Server("arena");
+        ActionRule slash = rule("slash", 1, 400, 0);
+        
+        lobby.store.playerJoined(PLAYER);
+        lobby.io.runDue();
+        runMain();
+        assertEquals(0L, lobby.store.tryAcquire(PLAYER, slash, tickClock.now()));
+        
+        // 离服提交与释放已排入 lobby 的IO线程但尚未执行，arena 的预读先到
+        lobby.store.playerQuit(PLAYER);
+        arena.store.playerJoined(PLAYER);
+        arena.io.runDue();
+        runMain();
+        assertEquals("lobby", backend.holderOf(PLAYER));
+        assertTrue(arena.local.slotsOf(PLAYER).isEmpty());
+        assertEquals(1L, arena.stat("预读等待重试次数"));
+        
+        lobby.io.runDue();
+        assertNull(backend.holderOf(PLAYER));
+        
+        wall.addAndGet(250L);
+        arena.io.runDue();
+        runMain();
+        
+        assertEquals("arena", backend.holderOf(PLAYER));
+        assertEquals(tickClock.now() + 395L, arena.local.getExpireTick(PLAYER, slash));
+        assertEquals(Arrays.asList("claim:lobby", "load", "claim-wait:arena", "write", "release:lobby", "claim:arena", "load"),
+                backend.operations());
+        assertEquals(0L, arena.stat("预读超时接管次数"));
+    }
+    
+    @Test
+    void joinTakesOverWhenThePreviousServerNeverReleases() {
+        Server crashed = new Server("crashed");
+        Server arena = new Server("arena");
+        rule("slash", 1, 400, 0);
+        backend.put(PLAYER, "slash", wall.get() + 10_000L);
+        
+        crashed.store.playerJoined(PLAYER);
+        crashed.io.runDue();
+        runMain();
+        
+        arena.store.playerJoined(PLAYER);
+        arena.io.runDue();
+        for (int waited = 0; waited < 3000; waited += 250) {
+            assertEquals("crashed", backend.holderOf(PLAYER));
+            wall.addAndGet(250L);
+            arena.io.runDue();
+        }
+        runMain();
+        
+        assertEquals("arena", backend.holderOf(PLAYER));
+        assertEquals(12L, arena.stat("预读等待重试次数"));
+        assertEquals(1L, arena.stat("预读超时接管次数"));
+        assertEquals(tickClock.now() + 140L, arena.local.slotsOf(PLAYER).get(1));
+    }
+    
+    @Test
+    void quittingDuringRetryAbortsTheReadAhead() {
+        Server lobby = new Server("lobby");
+        Server arena = new Server("arena");
+        
+        lobby.store.playerJoined(PLAYER);
+        lobby.io.runDue();
+        arena.store.playerJoined(PLAYER);
+        arena.io.runDue();
+        arena.store.playerQuit(PLAYER);
+        
+        wall.addAndGet(5_000L);
+        arena.io.runDue();
+        
+        assertEquals("lobby", backend.holderOf(PLAYER));
+        assertEquals(0, arena.io.pending());
+        assertFalse(backend.operations().contains("claim:arena"));
+    }
+}
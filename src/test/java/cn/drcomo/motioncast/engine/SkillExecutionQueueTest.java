@@ -0,0 +1,211 @@
+package cn.drcomo.motioncast.engine;
+
+import cn.drcomo.motioncast.rules.ActionRule;
+import cn.drcomo.motioncast.rules.CastPriority;
+import cn.drcomo.motioncast.tick.TickClock;
+import cn.drcomo.motioncast.tick.TickClocks;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 技能执行队列测试：优先级顺序、每tick预算、最长延迟、容量上限与卸载时清空
+ */
+class SkillExecutionQueueTest {
+    
+    private static final long BUDGET_NANOS = 1_000_000L;
+    
+    private final TickClock tickClock = new TickClock();
+    private final SkillExecutionQueue queue = new SkillExecutionQueue(tickClock, BUDGET_NANOS, 5L, 10);
+    private final List<String> executed = new ArrayList<>();
+    // 规则ID + ":" + 完成结果
+    private final List<String> completions = new ArrayList<>();
+    private boolean online = true;
+    
+    private final Player player = (Player) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Player.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "isOnline":
+                        return online;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    case "toString":
+                        return "TestPlayer";
+                    default:
+                        return null;
+                }
+            });
+    
+    private final SkillExecutionQueue.CastExecutor recorder = (player, rule, targets) -> {
+        executed.add(rule.getId());
+        return true;
+    };
+    
+    private static ActionRule rule(String id, CastPriority priority) {
+        ActionRule rule = new ActionRule();
+        rule.setId(id);
+        rule.setPriority(priority);
+        return rule;
+    }
+    
+    private boolean enqueue(String id, CastPriority priority) {
+        return queue.enqueue(player, rule(id, priority), Collections.<Entity>emptyList(),
+                result -> completions.add(id + ":" + result));
+    }
+    
+    private long stat(String key) {
+        return ((Number) queue.getStatistics().get(key)).longValue();
+    }
+    
+    /**
+     * 忙等超过一个tick的预算，模拟耗时的技能
+     */
+    private static void burnBudget() {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start <= BUDGET_NANOS) {
+            Thread.onSpinWait();
+        }
+    }
+    
+    @Test
+    void drainsByPriorityThenInSubmissionOrder() {
+        enqueue("low", CastPriority.LOW);
+        enqueue("normal-1", CastPriority.NORMAL);
+        enqueue("high", CastPriority.HIGH);
+        enqueue("normal-2", CastPriority.NORMAL);
+        TickClocks.advance(tickClock, 1);
+        
+        queue.drain(recorder);
+        
+        assertEquals(Arrays.asList("high", "normal-1", "normal-2", "low"), executed);
+        assertEquals(Arrays.asList("high:true", "normal-1:true", "normal-2:true", "low:true"), completions);
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    void drainStopsOnceTheTickBudgetIsSpent() {
+        enqueue("first", CastPriority.HIGH);
+        enqueue("second", CastPriority.NORMAL);
+        enqueue("third", CastPriority.LOW);
+        SkillExecutionQueue.CastExecutor slow = (player, rule, targets) -> {
+            burnBudget();
+            executed.add(rule.getId());
+            return true;
+        };
+        TickClocks.advance(tickClock, 1);
+        
+        queue.drain(slow);
+        queue.drain(slow);
+        assertEquals(Collections.singletonList("first"), executed);
+        assertEquals(2, queue.size());
+        assertEquals(2L, stat("预算耗尽tick数"));
+        
+        TickClocks.advance(tickClock, 1);
+        queue.drain(slow);
+        assertEquals(Arrays.asList("first", "second"), executed);
+        assertEquals(1, queue.size());
+    }
+    
+    @Test
+    void inlineChargesShareTheBudgetWithTheQueue() {
+        assertTrue(queue.canRunInline());
+        queue.charge(BUDGET_NANOS, true);
+        assertFalse(queue.canRunInline());
+        
+        enqueue("deferred", CastPriority.NORMAL);
+        queue.drain(recorder);
+        assertTrue(executed.isEmpty());
+        
+        TickClocks.advance(tickClock, 1);
+        assertFalse(queue.canRunInline());
+        queue.drain(recorder);
+        assertEquals(Collections.singletonList("deferred"), executed);
+        assertTrue(queue.canRunInline());
+    }
+    
+    @Test
+    void entriesOlderThanMaxDelayAreDroppedWithoutRunning() {
+        enqueue("stale", CastPriority.NORMAL);
+        TickClocks.advance(tickClock, 1);
+        enqueue("fresh", CastPriority.HIGH);
+        TickClocks.advance(tickClock, 5);
+        
+        queue.drain(recorder);
+        
+        assertEquals(Collections.singletonList("fresh"), executed);
+        assertEquals(Arrays.asList("fresh:true", "stale:false"), completions);
+        assertEquals(1L, stat("超时丢弃"));
+        assertEquals(5L, stat("最大延迟(tick)"));
+    }
+    
+    @Test
+    void fullQueueRejectsWithoutCallingTheCompletion() {
+        queue.configure(BUDGET_NANOS, 5L, 2);
+        
+        assertTrue(enqueue("a", CastPriority.NORMAL));
+        assertTrue(enqueue("b", CastPriority.NORMAL));
+        assertFalse(enqueue("c", CastPriority.HIGH));
+        
+        assertEquals(2, queue.size());
+        assertEquals(1L, stat("队列满丢弃"));
+        assertTrue(completions.isEmpty());
+        
+        TickClocks.advance(tickClock, 1);
+        queue.drain(recorder);
+        assertEquals(Arrays.asList("a", "b"), executed);
+    }
+    
+    @Test
+    void offlinePlayersAndFailuresCompleteAsNotExecuted() {
+        enqueue("offline", CastPriority.NORMAL);
+        TickClocks.advance(tickClock, 1);
+        online = false;
+        queue.drain(recorder);
+        
+        online = true;
+        enqueue("fails", CastPriority.NORMAL);
+        enqueue("throws", CastPriority.NORMAL);
+        TickClocks.advance(tickClock, 1);
+        queue.drain((player, rule, targets) -> {
+            if ("throws".equals(rule.getId())) {
+                throw new IllegalStateException("boom");
+            }
+            return false;
+        });
+        
+        assertEquals(Arrays.asList("offline:false", "fails:false", "throws:false"), completions);
+        assertEquals(1L, stat("离线丢弃"));
+        assertEquals(2L, stat("延后执行失败"));
+    }
+    
+    @Test
+    void clearCompletesEveryPendingEntryAsNotExecuted() {
+        enqueue("high", CastPriority.HIGH);
+        enqueue("normal", CastPriority.NORMAL);
+        enqueue("low", CastPriority.LOW);
+        
+        assertEquals(3, queue.clear());
+        
+        assertEquals(0, queue.size());
+        assertEquals(Arrays.asList("high:false", "normal:false", "low:false"), completions);
+        assertEquals(3L, stat("清空丢弃"));
+        assertTrue(queue.canRunInline());
+        
+        TickClocks.advance(tickClock, 1);
+        queue.drain(recorder);
+        assertTrue(executed.isEmpty());
+        assertEquals(0, queue.clear());
+    }
+}
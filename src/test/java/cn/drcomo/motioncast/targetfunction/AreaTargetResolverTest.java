@@ -0,0 +1,157 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import cn.drcomo.motioncast.tick.TickClock;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 区域目标解析器测试：各形状的包含判断、圆锥的朝向与半角，以及经空间索引的完整解析
+ * Minecraft 朝向约定：yaw 0 朝 +Z、90 朝 -X、-90 朝 +X、180 朝 -Z；pitch -90 朝上、90 朝下
+ */
+class AreaTargetResolverTest {
+    
+    private final FakeWorld world = new FakeWorld();
+    
+    private AreaTargetResolver.Query prepared(AreaTargetResolver.Query shape, float yaw, float pitch) {
+        shape.prepare(world.location(0, 64, 0, yaw, pitch));
+        return shape;
+    }
+    
+    private static double[] offAxis(double degrees, double distance) {
+        double radians = Math.toRadians(degrees);
+        return new double[] {Math.sin(radians) * distance, Math.cos(radians) * distance};
+    }
+    
+    @Test
+    void sphereContainsPointsWithinRadiusInAllAxes() {
+        AreaTargetResolver.Query sphere = prepared(new AreaTargetResolver.Sphere(5), 0, 0);
+        
+        assertTrue(sphere.contains(0, 64, 0));
+        assertTrue(sphere.contains(3, 68, 0));
+        assertTrue(sphere.contains(0, 59, 0));
+        assertFalse(sphere.contains(3, 68.1, 0));
+        assertFalse(sphere.contains(-3.6, 64, -3.6));
+        assertEquals(5.0, sphere.horizontalReach(), 0.0);
+    }
+    
+    @Test
+    void boxUsesHalfExtentsPerAxis() {
+        AreaTargetResolver.Query box = prepared(new AreaTargetResolver.Box(4, 2, 1), 0, 0);
+        
+        assertTrue(box.contains(4, 66, -1));
+        assertTrue(box.contains(-4, 62, 1));
+        assertFalse(box.contains(4.1, 64, 0));
+        assertFalse(box.contains(0, 66.5, 0));
+        assertFalse(box.contains(0, 64, 1.01));
+        assertEquals(4.0, box.horizontalReach(), 0.0);
+    }
+    
+    @Test
+    void coneFollowsYaw() {
+        AreaTargetResolver.Query south = prepared(new AreaTargetResolver.Cone(10, 60), 0, 0);
+        assertTrue(south.contains(0, 64, 5));
+        assertFalse(south.contains(0, 64, -5));
+        assertFalse(south.contains(5, 64, 0));
+        
+        AreaTargetResolver.Query west = prepared(new AreaTargetResolver.Cone(10, 60), 90, 0);
+        assertTrue(west.contains(-5, 64, 0));
+        assertFalse(west.contains(5, 64, 0));
+        
+        AreaTargetResolver.Query east = prepared(new AreaTargetResolver.Cone(10, 60), -90, 0);
+        assertTrue(east.contains(5, 64, 0));
+        assertFalse(east.contains(-5, 64, 0));
+        
+        AreaTargetResolver.Query north = prepared(new AreaTargetResolver.Cone(10, 60), 180, 0);
+        assertTrue(north.contains(0, 64, -5));
+        assertFalse(north.contains(0, 64, 5));
+    }
+    
+    @Test
+    void coneFollowsPitch() {
+        AreaTargetResolver.Query up = prepared(new AreaTargetResolver.Cone(10, 60), 0, -90);
+        assertTrue(up.contains(0, 69, 0));
+        assertFalse(up.contains(0, 59, 0));
+        assertFalse(up.contains(0, 64, 5));
+        
+        AreaTargetResolver.Query down = prepared(new AreaTargetResolver.Cone(10, 60), 0, 90);
+        assertTrue(down.contains(0, 59, 0));
+        assertFalse(down.contains(0, 69, 0));
+        
+        // 向上 45°：正前方斜上的点在锥内，水平正前方的点在 30° 半角之外
+        AreaTargetResolver.Query raised = prepared(new AreaTargetResolver.Cone(10, 60), 0, -45);
+        assertTrue(raised.contains(0, 68, 4));
+        assertFalse(raised.contains(0, 64, 5));
+    }
+    
+    @Test
+    void coneAngleIsTheFullApertureSplitAroundTheAxis() {
+        AreaTargetResolver.Query cone = prepared(new AreaTargetResolver.Cone(10, 60), 0, 0);
+        
+        double[] inside = offAxis(29, 5);
+        double[] outside = offAxis(31, 5);
+        assertTrue(cone.contains(inside[0], 64, inside[1]));
+        assertTrue(cone.contains(-inside[0], 64, inside[1]));
+        assertFalse(cone.contains(outside[0], 64, outside[1]));
+        assertFalse(cone.contains(-outside[0], 64, outside[1]));
+        assertTrue(cone.contains(0, 64 + inside[0], inside[1]));
+        assertFalse(cone.contains(0, 64 + outside[0], outside[1]));
+        
+        AreaTargetResolver.Query wide = prepared(new AreaTargetResolver.Cone(10, 180), 0, 0);
+        double[] sideways = offAxis(89, 5);
+        assertTrue(wide.contains(sideways[0], 64, sideways[1]));
+        assertFalse(wide.contains(0, 64, -1));
+    }
+    
+    @Test
+    void coneIsLimitedByItsRadius() {
+        AreaTargetResolver.Query cone = prepared(new AreaTargetResolver.Cone(10, 60), 0, 0);
+        
+        assertTrue(cone.contains(0, 64, 10));
+        assertFalse(cone.contains(0, 64, 10.1));
+        assertTrue(cone.contains(0, 64, 0));
+    }
+    
+    @Test
+    void invalidArgumentsAreRejectedAtBind() {
+        AreaTargetResolver resolver = new AreaTargetResolver(new EntitySpatialIndex(new TickClock()));
+        
+        assertNull(resolver.bind("@cone{angle=0}"));
+        assertNull(resolver.bind("@cone{angle=361}"));
+        assertNull(resolver.bind("@nearby{type=not_a_type}"));
+        assertNull(resolver.bind("@sphere{r=3}"));
+    }
+    
+    @Test
+    void resolvesThroughTheIndex() {
+        AreaTargetResolver resolver = new AreaTargetResolver(new EntitySpatialIndex(new TickClock()));
+        Player player = world.spawnPlayer(0, 64, 0, 0, 0);
+        LivingEntity ahead = world.spawn(0, 64, 3);
+        LivingEntity behind = world.spawn(0, 64, -4);
+        LivingEntity far = world.spawn(0, 64, 9);
+        world.spawn(30, 64, 30);
+        TargetContext context = new TargetContext(player, null, null);
+        
+        assertEquals(new HashSet<Entity>(Arrays.asList(ahead, behind)),
+                new HashSet<>(resolver.bind("@nearby{r=6}").resolve(context)));
+        assertEquals(new HashSet<Entity>(Arrays.asList(player, ahead, behind)),
+                new HashSet<>(resolver.bind("@nearby{r=6,self=true}").resolve(context)));
+        assertEquals(Collections.singletonList(ahead), resolver.bind("@nearby{r=10,limit=1}").resolve(context));
+        assertEquals(new HashSet<Entity>(Arrays.asList(ahead, far)),
+                new HashSet<>(resolver.bind("@cone{r=10,angle=60}").resolve(context)));
+        assertEquals(Collections.singletonList(ahead), resolver.bind("@box{x=1,y=1,z=3}").resolve(context));
+        Collection<Entity> none = resolver.bind("@box{x=1,y=1,z=2}").resolve(context);
+        assertTrue(none.isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import cn.drcomo.motioncast.tick.TickClock;
+import cn.drcomo.motioncast.tick.TickClocks;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 空间索引测试：按区块刷新、同tick复用与跨tick增量更新
+ */
+class EntitySpatialIndexTest {
+    
+    private final TickClock tickClock = new TickClock();
+    private final EntitySpatialIndex index = new EntitySpatialIndex(tickClock);
+    private final FakeWorld world = new FakeWorld();
+    
+    private List<Entity> candidates(double minX, double minZ, double maxX, double maxZ) {
+        List<Entity> found = new ArrayList<>();
+        index.forEachCandidate(world.world(), minX, minZ, maxX, maxZ, entry -> found.add(entry.entity));
+        return found;
+    }
+    
+    private long stat(String key) {
+        return ((Number) index.getStatistics().get(key)).longValue();
+    }
+    
+    @Test
+    void queryReadsOnlyTheChunksCoveringTheArea() {
+        LivingEntity near = world.spawn(1, 64, 1);
+        world.spawn(100, 64, 100);
+        
+        assertEquals(Collections.singletonList(near), candidates(-4, -4, 4, 4));
+        // 范围跨越 x、z 方向各两个区块
+        assertEquals(4, world.chunkReads());
+    }
+    
+    @Test
+    void chunkIsReadOncePerTick() {
+        world.spawn(1, 64, 1);
+        
+        candidates(0, 0, 7, 7);
+        candidates(0, 0, 7, 7);
+        candidates(8, 8, 15, 15);
+        assertEquals(1, world.chunkReads());
+        
+        TickClocks.advance(tickClock, 1);
+        candidates(0, 0, 7, 7);
+        assertEquals(2, world.chunkReads());
+    }
+    
+    @Test
+    void entriesAreReusedAndMovedAcrossTicks() {
+        List<LivingEntity> mobs = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            mobs.add(world.spawn(1 + i * 0.25, 64, 1));
+        }
+        assertEquals(20, candidates(0, 0, 7, 7).size());
+        assertEquals(20L, stat("新建条目数"));
+        
+        // 同一区块内移动到相邻网格
+        LivingEntity moved = mobs.get(0);
+        world.move(moved, 12, 64, 12);
+        TickClocks.advance(tickClock, 1);
+        
+        List<Entity> oldCell = candidates(0, 0, 7, 7);
+        List<Entity> newCell = candidates(8, 8, 15, 15);
+        assertEquals(19, oldCell.size());
+        assertEquals(Collections.singletonList(moved), newCell);
+        assertEquals(20L, stat("新建条目数"));
+        assertEquals(40L, stat("刷新实体数"));
+    }
+    
+    @Test
+    void entitiesThatLeaveTheChunkAreDropped() {
+        LivingEntity stays = world.spawn(1, 64, 1);
+        LivingEntity dies = world.spawn(2, 64, 2);
+        LivingEntity walksAway = world.spawn(3, 64, 3);
+        assertEquals(3, candidates(0, 0, 7, 7).size());
+        assertEquals(3L, stat("缓存实体数"));
+        
+        world.remove(dies);
+        world.move(walksAway, 40, 64, 40);
+        TickClocks.advance(tickClock, 1);
+        
+        assertEquals(Collections.singletonList(stays), candidates(0, 0, 7, 7));
+        assertEquals(1L, stat("缓存实体数"));
+    }
+    
+    @Test
+    void entityReplacedUnderTheSameChunkGetsAFreshEntry() {
+        LivingEntity first = world.spawn(1, 64, 1);
+        candidates(0, 0, 7, 7);
+        world.remove(first);
+        LivingEntity second = world.spawn(1, 64, 1);
+        TickClocks.advance(tickClock, 1);
+        
+        assertEquals(Collections.singletonList(second), candidates(0, 0, 7, 7));
+        assertEquals(2L, stat("新建条目数"));
+    }
+    
+    @Test
+    void unloadedChunksAreEmptyAndNeverRead() {
+        world.spawn(1, 64, 1);
+        world.unloadChunk(0, 0);
+        
+        assertTrue(candidates(0, 0, 7, 7).isEmpty());
+        assertEquals(0, world.chunkReads());
+    }
+    
+    @Test
+    void cachedPositionsFollowTheEntity() {
+        LivingEntity mob = world.spawn(1, 64, 1);
+        candidates(0, 0, 7, 7);
+        world.move(mob, 2.5, 70, 3.5);
+        TickClocks.advance(tickClock, 1);
+        
+        List<double[]> positions = new ArrayList<>();
+        index.forEachCandidate(world.world(), 0, 0, 7, 7, entry -> positions.add(new double[] {entry.x, entry.y, entry.z}));
+        assertEquals(1, positions.size());
+        assertEquals(Arrays.toString(new double[] {2.5, 70, 3.5}), Arrays.toString(positions.get(0)));
+    }
+}
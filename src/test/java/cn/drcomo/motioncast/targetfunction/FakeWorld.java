@@ -0,0 +1,211 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 测试用世界：以动态代理实现 World、Chunk 与实体，实体按脚下坐标归入区块
+ * 实体包围盒为以脚下位置为底面中心的 0.6 x 1.8 x 0.6 长方体，视线高度 1.62
+ */
+final class FakeWorld {
+    
+    static final double EYE_HEIGHT = 1.62;
+    
+    private final UUID uid = UUID.randomUUID();
+    private final World world;
+    private final Map<Long, List<Entity>> chunks = new HashMap<>();
+    private final Set<Long> unloadedChunks = new HashSet<>();
+    // 实体 -> {x, y, z, yaw, pitch}
+    private final Map<Entity, double[]> positions = new IdentityHashMap<>();
+    private int nextEntityId = 1;
+    private int chunkReads = 0;
+    
+    FakeWorld() {
+        world = proxy(World.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getUID":
+                    return uid;
+                case "getName":
+                    return "fake";
+                case "isChunkLoaded":
+                    return !unloadedChunks.contains(key((int) args[0], (int) args[1]));
+                case "getChunkAt":
+                    return chunk((int) args[0], (int) args[1]);
+                case "getLivingEntities":
+                case "getEntities":
+                case "getNearbyEntities":
+                    throw new AssertionError("whole-world entity scan: " + method.getName());
+                default:
+                    return identityOrDefault(proxy, method, args);
+            }
+        });
+    }
+    
+    World world() {
+        return world;
+    }
+    
+    LivingEntity spawn(double x, double y, double z) {
+        return spawn(LivingEntity.class, x, y, z, 0f, 0f);
+    }
+    
+    Player spawnPlayer(double x, double y, double z, float yaw, float pitch) {
+        return spawn(Player.class, x, y, z, yaw, pitch);
+    }
+    
+    <T extends LivingEntity> T spawn(Class<T> type, double x, double y, double z, float yaw, float pitch) {
+        int entityId = nextEntityId++;
+        UUID entityUid = new UUID(0L, entityId);
+        T entity = proxy(type, (proxy, method, args) -> {
+            double[] position = positions.get(proxy);
+            switch (method.getName()) {
+                case "getEntityId":
+                    return entityId;
+                case "getUniqueId":
+                    return entityUid;
+                case "getWorld":
+                    return world;
+                case "isValid":
+                case "isOnline":
+                    return position != null;
+                case "isDead":
+                    return position == null;
+                case "getLocation":
+                    if (args == null || args.length == 0) {
+                        return new Location(world, position[0], position[1], position[2], (float) position[3], (float) position[4]);
+                    }
+                    Location target = (Location) args[0];
+                    target.setWorld(world);
+                    target.setX(position[0]);
+                    target.setY(position[1]);
+                    target.setZ(position[2]);
+                    target.setYaw((float) position[3]);
+                    target.setPitch((float) position[4]);
+                    return target;
+                case "getEyeLocation":
+                    return new Location(world, position[0], position[1] + EYE_HEIGHT, position[2], (float) position[3], (float) position[4]);
+                case "getBoundingBox":
+                    return new BoundingBox(position[0] - 0.3, position[1], position[2] - 0.3,
+                            position[0] + 0.3, position[1] + 1.8, position[2] + 0.3);
+                case "toString":
+                    return type.getSimpleName() + "#" + entityId;
+                default:
+                    return identityOrDefault(proxy, method, args);
+            }
+        });
+        positions.put(entity, new double[] {x, y, z, yaw, pitch});
+        chunkList(x, z).add(entity);
+        return entity;
+    }
+    
+    void move(Entity entity, double x, double y, double z) {
+        double[] position = positions.get(entity);
+        chunkList(position[0], position[2]).remove(entity);
+        position[0] = x;
+        position[1] = y;
+        position[2] = z;
+        chunkList(x, z).add(entity);
+    }
+    
+    void remove(Entity entity) {
+        double[] position = positions.remove(entity);
+        chunkList(position[0], position[2]).remove(entity);
+    }
+    
+    void unloadChunk(int chunkX, int chunkZ) {
+        unloadedChunks.add(key(chunkX, chunkZ));
+    }
+    
+    /**
+     * Chunk#getEntities 被调用的次数
+     */
+    int chunkReads() {
+        return chunkReads;
+    }
+    
+    Location location(double x, double y, double z, float yaw, float pitch) {
+        return new Location(world, x, y, z, yaw, pitch);
+    }
+    
+    private Chunk chunk(int chunkX, int chunkZ) {
+        return proxy(Chunk.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getEntities": {
+                    chunkReads++;
+                    List<Entity> entities = chunks.get(key(chunkX, chunkZ));
+                    return entities != null ? entities.toArray(new Entity[0]) : new Entity[0];
+                }
+                case "getX":
+                    return chunkX;
+                case "getZ":
+                    return chunkZ;
+                case "getWorld":
+                    return world;
+                default:
+                    return identityOrDefault(proxy, method, args);
+            }
+        });
+    }
+    
+    private List<Entity> chunkList(double x, double z) {
+        int chunkX = Math.floorDiv((int) Math.floor(x), 16);
+        int chunkZ = Math.floorDiv((int) Math.floor(z), 16);
+        return chunks.computeIfAbsent(key(chunkX, chunkZ), k -> new ArrayList<>());
+    }
+    
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(FakeWorld.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+    
+    private static Object identityOrDefault(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "FakeProxy";
+            default:
+                break;
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0.0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,182 @@
+package cn.drcomo.motioncast.targetfunction;
+
+import cn.drcomo.motioncast.tick.TickClock;
+import cn.drcomo.motioncast.tick.TickClocks;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.BoundingBox;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 视线目标解析器测试：射线-包围盒求交、@looking 解析，以及候选数量不随世界实体总数增长
+ */
+class LineOfSightTargetResolverTest {
+    
+    private static final double EPSILON = 1.0E-9;
+    private static final BoundingBox UNIT = new BoundingBox(0, 0, 0, 1, 1, 1);
+    
+    private final TickClock tickClock = new TickClock();
+    private final EntitySpatialIndex index = new EntitySpatialIndex(tickClock);
+    private final LineOfSightTargetResolver resolver = new LineOfSightTargetResolver(index, tickClock);
+    private final FakeWorld world = new FakeWorld();
+    
+    private long stat(String key) {
+        return ((Number) index.getStatistics().get(key)).longValue();
+    }
+    
+    @Test
+    void intersectReturnsTheEntryDistance() {
+        assertEquals(2.0, LineOfSightTargetResolver.intersect(UNIT, 0, -2, 0.5, 0.5, 1, 0, 0), EPSILON);
+        assertEquals(3.0, LineOfSightTargetResolver.intersect(UNIT, 0, 0.5, 0.5, 4, 0, 0, -1), EPSILON);
+        
+        double diagonal = Math.sqrt(0.5);
+        assertEquals(Math.sqrt(2), LineOfSightTargetResolver.intersect(UNIT, 0, -1, -1, 0.5, diagonal, diagonal, 0), EPSILON);
+    }
+    
+    @Test
+    void intersectMissesBoxesBesideOrBehindTheRay() {
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -2, 1.5, 0.5, 1, 0, 0), EPSILON);
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, 3, 0.5, 0.5, 1, 0, 0), EPSILON);
+        
+        double diagonal = Math.sqrt(0.5);
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -2, 0, 0.5, diagonal, diagonal, 0), EPSILON);
+    }
+    
+    @Test
+    void intersectFromInsideIsZero() {
+        assertEquals(0.0, LineOfSightTargetResolver.intersect(UNIT, 0, 0.5, 0.5, 0.5, 0, 1, 0), EPSILON);
+        assertEquals(0.0, LineOfSightTargetResolver.intersect(UNIT, 0, 0.5, 0.5, 0.5, 0, -1, 0), EPSILON);
+    }
+    
+    @Test
+    void intersectHandlesAxisParallelRays() {
+        // 方向与 y、z 轴平行：起点必须落在对应区间内，包括恰好在边界上
+        assertEquals(1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -1, 1, 0, 1, 0, 0), EPSILON);
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -1, 1.0001, 0.5, 1, 0, 0), EPSILON);
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -1, 0.5, -0.0001, 1, 0, 0), EPSILON);
+    }
+    
+    @Test
+    void radiusInflatesTheBox() {
+        assertEquals(-1.0, LineOfSightTargetResolver.intersect(UNIT, 0, -2, 1.3, 0.5, 1, 0, 0), EPSILON);
+        assertEquals(1.5, LineOfSightTargetResolver.intersect(UNIT, 0.5, -2, 1.3, 0.5, 1, 0, 0), EPSILON);
+        assertEquals(0.0, LineOfSightTargetResolver.intersect(UNIT, 0.5, -0.2, 0.5, 0.5, -1, 0, 0), EPSILON);
+    }
+    
+    @Test
+    void lookingReturnsTheNearestEntityOnTheRay() {
+        Player player = world.spawnPlayer(0.5, 64, 0.5, 0, 0);
+        world.spawn(0.5, 64, -3);
+        world.spawn(3.5, 64, 4);
+        LivingEntity near = world.spawn(0.5, 64, 6);
+        world.spawn(0.5, 64, 12);
+        TargetContext context = new TargetContext(player, null, null);
+        
+        assertEquals(Collections.singletonList(near), resolver.bind("@looking{range=20}").resolve(context));
+        assertTrue(resolver.bind("@looking{range=5}").resolve(context).isEmpty());
+    }
+    
+    @Test
+    void lookingFollowsYawAndPitch() {
+        Player player = world.spawnPlayer(0.5, 64, 0.5, -90, 0);
+        LivingEntity east = world.spawn(8, 64, 0.5);
+        world.spawn(0.5, 64, 8);
+        TargetContext context = new TargetContext(player, null, null);
+        
+        assertEquals(Collections.singletonList(east), resolver.bind("@looking{range=20}").resolve(context));
+        
+        // 视线高度 65.62，俯视 45° 时在水平距离约 1.6 处到达脚下平面，4 格外的实体不在视线上
+        Player lookingDown = world.spawnPlayer(40.5, 64, 0.5, -90, 45);
+        world.spawn(44.5, 64, 0.5);
+        assertTrue(resolver.bind("@looking{range=20}").resolve(new TargetContext(lookingDown, null, null)).isEmpty());
+    }
+    
+    @Test
+    void radiusWidensTheRay() {
+        Player player = world.spawnPlayer(0.5, 64, 0.5, 0, 0);
+        LivingEntity beside = world.spawn(1.5, 64, 6);
+        TargetContext context = new TargetContext(player, null, null);
+        
+        assertTrue(resolver.bind("@looking{range=20}").resolve(context).isEmpty());
+        assertEquals(Collections.singletonList(beside), resolver.bind("@looking{range=20,radius=1}").resolve(context));
+    }
+    
+    @Test
+    void candidatesPerQueryDoNotGrowWithTheWorldPopulation() {
+        Player player = world.spawnPlayer(0.5, 64, 0.5, 0, 0);
+        Random random = new Random(42L);
+        // 视线附近固定数量的实体
+        for (int i = 0; i < 40; i++) {
+            world.spawn(random.nextDouble() * 16 - 8, 64, random.nextDouble() * 24);
+        }
+        BoundTarget looking = resolver.bind("@looking{range=20}");
+        TargetContext context = new TargetContext(player, null, null);
+        
+        long baselineVisited = -1;
+        long baselineChunks = -1;
+        int population = 0;
+        for (int target : new int[] {100, 1000, 10000}) {
+            // 其余实体散布在视线范围之外的大片区域
+            for (; population < target; population++) {
+                double x = random.nextDouble() * 2000 - 1000;
+                double z = random.nextDouble() * 2000 - 1000;
+                if (Math.abs(x) < 64 && Math.abs(z) < 64) {
+                    x += Math.signum(x) * 64;
+                }
+                world.spawn(x, 64, z);
+            }
+            TickClocks.advance(tickClock, 1);
+            long refreshedBefore = stat("刷新实体数");
+            long chunksBefore = stat("区块刷新次数");
+            long[] visited = {0};
+            index.forEachCandidateAlongRay(world.world(), 0.5, 0.5, 0, 1, 20, entry -> visited[0]++);
+            long refreshed = stat("刷新实体数") - refreshedBefore;
+            long chunks = stat("区块刷新次数") - chunksBefore;
+            
+            assertTrue(visited[0] >= 40 && visited[0] <= refreshed);
+            if (baselineVisited < 0) {
+                baselineVisited = visited[0];
+                baselineChunks = chunks;
+            }
+            assertEquals(baselineVisited, visited[0]);
+            assertEquals(baselineChunks, chunks);
+            
+            TickClocks.advance(tickClock, 1);
+            refreshedBefore = stat("刷新实体数");
+            looking.resolve(context);
+            assertEquals(refreshed, stat("刷新实体数") - refreshedBefore);
+        }
+    }
+    
+    @Test
+    void rayVisitsEachEntryOnce() {
+        Set<Entity> seen = new HashSet<>();
+        long total = 0;
+        for (int i = 0; i < 200; i++) {
+            world.spawn(i * 0.3 - 30, 64, i * 0.2 - 20);
+        }
+        for (double yaw = 0; yaw < 360; yaw += 15) {
+            double radians = Math.toRadians(yaw);
+            double dx = -Math.sin(radians);
+            double dz = Math.cos(radians);
+            seen.clear();
+            long[] visits = {0};
+            index.forEachCandidateAlongRay(world.world(), 0.5, 0.5, dx, dz, 40, entry -> {
+                visits[0]++;
+                seen.add(entry.entity);
+            });
+            assertEquals(seen.size(), visits[0]);
+            total += visits[0];
+        }
+        assertTrue(total > 0);
+    }
+}
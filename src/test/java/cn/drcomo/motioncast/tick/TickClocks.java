@@ -0,0 +1,16 @@
+package cn.drcomo.motioncast.tick;
+
+/**
+ * 测试中推进 TickClock（推进同时驱动共享时间轮）
+ */
+public final class TickClocks {
+    
+    private TickClocks() {
+    }
+    
+    public static void advance(TickClock clock, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.advance();
+        }
+    }
+}